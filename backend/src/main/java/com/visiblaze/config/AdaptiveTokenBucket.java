@@ -0,0 +1,123 @@
+package com.visiblaze.config;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket whose rate adapts to throttling: it grows additively while callers are being
+ * held back by it and no throttling is seen, and shrinks multiplicatively when AWS throttles
+ * a request. Up to one second of tokens can build up for bursts.
+ */
+final class AdaptiveTokenBucket {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final double minRate;
+    private final double maxRate;
+    private final double increasePerSecond;
+    private final double decreaseFactor;
+
+    private double rate;
+    private double tokens;
+    private long lastRefill;
+    private long lastIncrease;
+    private long lastDecrease;
+    private boolean saturated;
+    private long requests;
+    private long throttles;
+
+    AdaptiveTokenBucket(double initialRate, double minRate, double maxRate, double increasePerSecond,
+                        double decreaseFactor) {
+        this.minRate = minRate;
+        this.maxRate = Math.max(minRate, maxRate);
+        this.increasePerSecond = increasePerSecond;
+        this.decreaseFactor = decreaseFactor;
+        this.rate = Math.min(this.maxRate, Math.max(minRate, initialRate));
+        this.tokens = rate;
+        long now = System.nanoTime();
+        this.lastRefill = now;
+        this.lastIncrease = now;
+        this.lastDecrease = now - SECOND;
+    }
+
+    /**
+     * Takes a token, waiting for one if the bucket is empty.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    void acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Takes a token without waiting, even if the bucket is empty; the callers of
+     * {@link #acquire()} that come next wait for it instead.
+     */
+    void take() {
+        reserve();
+    }
+
+    /**
+     * Takes a token and returns how long to wait until it is due.
+     */
+    private synchronized long reserve() {
+        refill(System.nanoTime());
+        requests++;
+        tokens -= 1;
+        // A negative balance reserves the next tokens, so waiters are served in order
+        long waitNanos = tokens >= 0 ? 0 : (long) (-tokens / rate * SECOND);
+        if (waitNanos > 0) {
+            saturated = true;
+        }
+        return waitNanos;
+    }
+
+    /**
+     * Records a request that was not throttled. The rate only grows when callers had to wait
+     * for tokens, so an idle bucket does not drift up to the maximum.
+     */
+    synchronized void onSuccess() {
+        long now = System.nanoTime();
+        if (saturated && now - lastIncrease >= SECOND && now - lastDecrease >= SECOND) {
+            refill(now);
+            rate = Math.min(maxRate, rate + increasePerSecond);
+            lastIncrease = now;
+            saturated = false;
+        }
+    }
+
+    /**
+     * Records a throttled request. Concurrent requests tend to be throttled together, so the
+     * rate is cut at most once per second.
+     */
+    synchronized void onThrottle() {
+        throttles++;
+        long now = System.nanoTime();
+        if (now - lastDecrease >= SECOND) {
+            refill(now);
+            rate = Math.max(minRate, rate * decreaseFactor);
+            tokens = Math.min(tokens, rate);
+            lastDecrease = now;
+            saturated = false;
+        }
+    }
+
+    synchronized double rate() {
+        return rate;
+    }
+
+    synchronized long requests() {
+        return requests;
+    }
+
+    synchronized long throttles() {
+        return throttles;
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(Math.max(1, rate), tokens + (double) (now - lastRefill) / SECOND * rate);
+        lastRefill = now;
+    }
+}
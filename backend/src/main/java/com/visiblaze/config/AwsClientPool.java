@@ -0,0 +1,202 @@
+package com.visiblaze.config;
+
+import com.visiblaze.config.mock.MockAwsHttpClient;
+import com.visiblaze.model.AwsAccount;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.core.client.builder.SdkAsyncClientBuilder;
+import software.amazon.awssdk.core.client.builder.SdkSyncClientBuilder;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.cloudtrail.CloudTrailClient;
+import software.amazon.awssdk.services.ec2.Ec2Client;
+import software.amazon.awssdk.services.iam.IamClient;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.sts.StsClient;
+import software.amazon.awssdk.services.sts.StsClientBuilder;
+import software.amazon.awssdk.services.sts.auth.StsAssumeRoleCredentialsProvider;
+import software.amazon.awssdk.services.sts.model.AssumeRoleRequest;
+import software.amazon.awssdk.utils.SdkAutoCloseable;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+/**
+ * AWS clients per account and region, created on first use and cached for the life of the
+ * application. Accounts other than {@link AwsAccount#SELF} are reached through an assumed
+ * role whose credentials are cached per account and refreshed in the background before
+ * they expire. Every client is rate limited through {@link AwsRateLimiter} and timed by
+ * {@link AwsMetricsInterceptor}, and every client shares the connection pools of
+ * {@link AwsHttpClients}. In {@code app.mock-mode} every client sends its requests to
+ * {@link MockAwsHttpClient} and no role is assumed.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AwsClientPool {
+
+    private final AwsCredentialsProvider credentialsProvider;
+    private final AwsRateLimiter rateLimiter;
+    private final AwsMetricsInterceptor metricsInterceptor;
+    private final AwsHttpClients httpClients;
+    private final AwsHttpPoolMetrics poolMetrics;
+    private final Optional<MockAwsHttpClient> mockHttpClient;
+
+    @Value("${aws.region:us-east-1}")
+    private String homeRegion;
+
+    @Value("${aws.sts.endpoint:}")
+    private String stsEndpoint;
+
+    @Value("${aws.assume-role.external-id:}")
+    private String externalId;
+
+    @Value("${aws.assume-role.session-name:cloud-posture-scanner}")
+    private String roleSessionName;
+
+    @Value("${aws.assume-role.duration-seconds:3600}")
+    private int roleDurationSeconds;
+
+    @Value("${aws.assume-role.refresh-before-expiry-seconds:300}")
+    private int refreshBeforeExpirySeconds;
+
+    private final Map<ClientKey, SdkAutoCloseable> clients = new ConcurrentHashMap<>();
+    private final Map<AwsAccount, AwsCredentialsProvider> accountCredentials = new ConcurrentHashMap<>();
+    private volatile StsClient stsClient;
+
+    public Ec2Client ec2(AwsAccount account, Region region) {
+        return client("ec2", Ec2Client.class, false, account, region, (credentials, overrides) -> sync(Ec2Client.builder())
+                .region(region)
+                .credentialsProvider(credentials)
+                .overrideConfiguration(overrides)
+                .build());
+    }
+
+    public CloudTrailClient cloudTrail(AwsAccount account, Region region) {
+        return client("cloudtrail", CloudTrailClient.class, false, account, region, (credentials, overrides) -> sync(CloudTrailClient.builder())
+                .region(region)
+                .credentialsProvider(credentials)
+                .overrideConfiguration(overrides)
+                .build());
+    }
+
+    public S3Client s3(AwsAccount account) {
+        Region region = Region.of(homeRegion);
+        return client("s3", S3Client.class, false, account, region, (credentials, overrides) -> sync(S3Client.builder())
+                .region(region)
+                .credentialsProvider(credentials)
+                .overrideConfiguration(overrides)
+                .build());
+    }
+
+    public S3AsyncClient s3Async(AwsAccount account) {
+        Region region = Region.of(homeRegion);
+        return client("s3", S3AsyncClient.class, true, account, region, (credentials, overrides) -> async(S3AsyncClient.builder())
+                .region(region)
+                .credentialsProvider(credentials)
+                .overrideConfiguration(overrides)
+                .build());
+    }
+
+    public IamClient iam(AwsAccount account) {
+        return client("iam", IamClient.class, false, account, Region.AWS_GLOBAL, (credentials, overrides) -> sync(IamClient.builder())
+                .region(Region.AWS_GLOBAL)
+                .credentialsProvider(credentials)
+                .overrideConfiguration(overrides)
+                .build());
+    }
+
+    public AwsCredentialsProvider credentials(AwsAccount account) {
+        if (account.isSelf()) {
+            return credentialsProvider;
+        }
+        if (mockHttpClient.isPresent()) {
+            return MockAwsHttpClient.credentials(account);
+        }
+        return accountCredentials.computeIfAbsent(account, this::assumeRoleCredentials);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends SdkAutoCloseable> T client(String service, Class<T> type, boolean async, AwsAccount account,
+                                                  Region region,
+                                                  BiFunction<AwsCredentialsProvider, ClientOverrideConfiguration, T> factory) {
+        // Sync and async clients of a service share its rate limit
+        return (T) clients.computeIfAbsent(new ClientKey(type, account, region), key -> {
+            log.debug("Creating {} for account {} in {}", type.getSimpleName(), account, region);
+            ClientOverrideConfiguration overrides = rateLimiter.overrides(service, account, region, async).toBuilder()
+                    .addExecutionInterceptor(metricsInterceptor)
+                    .addMetricPublisher(poolMetrics)
+                    .build();
+            return factory.apply(credentials(account), overrides);
+        });
+    }
+
+    private <B extends SdkSyncClientBuilder<B, ?>> B sync(B builder) {
+        return builder.httpClient(mockHttpClient.isPresent() ? mockHttpClient.get() : httpClients.sync());
+    }
+
+    private <B extends SdkAsyncClientBuilder<B, ?>> B async(B builder) {
+        return builder.httpClient(mockHttpClient.isPresent() ? mockHttpClient.get() : httpClients.async());
+    }
+
+    private AwsCredentialsProvider assumeRoleCredentials(AwsAccount account) {
+        log.info("Assuming role {} for account {}", account.getRoleArn(), account);
+        return StsAssumeRoleCredentialsProvider.builder()
+                .stsClient(stsClient())
+                .refreshRequest(AssumeRoleRequest.builder()
+                        .roleArn(account.getRoleArn())
+                        .roleSessionName(roleSessionName)
+                        .durationSeconds(roleDurationSeconds)
+                        .externalId(externalId == null || externalId.isBlank() ? null : externalId)
+                        .build())
+                .prefetchTime(Duration.ofSeconds(refreshBeforeExpirySeconds))
+                .staleTime(Duration.ofSeconds(Math.max(60, refreshBeforeExpirySeconds / 2)))
+                .asyncCredentialUpdateEnabled(true)
+                .build();
+    }
+
+    private StsClient stsClient() {
+        StsClient client = stsClient;
+        if (client == null) {
+            synchronized (this) {
+                client = stsClient;
+                if (client == null) {
+                    StsClientBuilder builder = sync(StsClient.builder())
+                            .region(Region.of(homeRegion))
+                            .credentialsProvider(credentialsProvider);
+                    if (stsEndpoint != null && !stsEndpoint.isBlank()) {
+                        // e.g. a local STS stand-in for testing role assumption
+                        builder.endpointOverride(URI.create(stsEndpoint));
+                    }
+                    client = builder.build();
+                    stsClient = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    @PreDestroy
+    void close() {
+        clients.values().forEach(SdkAutoCloseable::close);
+        accountCredentials.values().stream()
+                .filter(SdkAutoCloseable.class::isInstance)
+                .map(SdkAutoCloseable.class::cast)
+                .forEach(SdkAutoCloseable::close);
+        if (stsClient != null) {
+            stsClient.close();
+        }
+    }
+
+    private record ClientKey(Class<?> type, AwsAccount account, Region region) {
+    }
+}
@@ -1,5 +1,7 @@
 package com.visiblaze.config;
 
+import com.visiblaze.config.mock.MockAwsHttpClient;
+import com.visiblaze.model.AwsAccount;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -8,11 +10,10 @@ import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
-import software.amazon.awssdk.services.cloudtrail.CloudTrailClient;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
-import software.amazon.awssdk.services.ec2.Ec2Client;
-import software.amazon.awssdk.services.iam.IamClient;
-import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClientBuilder;
+
+import java.net.URI;
 
 @Configuration
 public class AwsConfig {
@@ -26,8 +27,18 @@ public class AwsConfig {
     @Value("${aws.secret-key:}")
     private String secretKey;
 
+    @Value("${aws.dynamodb.endpoint:}")
+    private String dynamoDbEndpoint;
+
+    @Value("${app.mock-mode:false}")
+    private boolean mockMode;
+
     @Bean
     public AwsCredentialsProvider awsCredentialsProvider() {
+        if (mockMode) {
+            // DynamoDB is still real in mock mode; DynamoDB Local accepts any credentials
+            return MockAwsHttpClient.credentials(AwsAccount.SELF);
+        }
         if (accessKey != null && !accessKey.isBlank() && !accessKey.contains("YOUR_ACCESS_KEY")) {
             return StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey));
         }
@@ -35,42 +46,21 @@ public class AwsConfig {
     }
 
     @Bean
-    public Ec2Client ec2Client(AwsCredentialsProvider credentialsProvider) {
-        return Ec2Client.builder()
-                .region(Region.of(awsRegion))
-                .credentialsProvider(credentialsProvider)
-                .build();
-    }
-
-    @Bean
-    public S3Client s3Client(AwsCredentialsProvider credentialsProvider) {
-        return S3Client.builder()
-                .region(Region.of(awsRegion))
-                .credentialsProvider(credentialsProvider)
-                .build();
-    }
-
-    @Bean
-    public IamClient iamClient(AwsCredentialsProvider credentialsProvider) {
-        return IamClient.builder()
-                .region(Region.AWS_GLOBAL)
-                .credentialsProvider(credentialsProvider)
-                .build();
-    }
-
-    @Bean
-    public CloudTrailClient cloudTrailClient(AwsCredentialsProvider credentialsProvider) {
-        return CloudTrailClient.builder()
+    public DynamoDbClient dynamoDbClient(AwsCredentialsProvider credentialsProvider,
+                                         AwsMetricsInterceptor metricsInterceptor,
+                                         AwsHttpClients httpClients,
+                                         AwsHttpPoolMetrics poolMetrics) {
+        DynamoDbClientBuilder builder = DynamoDbClient.builder()
                 .region(Region.of(awsRegion))
                 .credentialsProvider(credentialsProvider)
-                .build();
-    }
-
-    @Bean
-    public DynamoDbClient dynamoDbClient(AwsCredentialsProvider credentialsProvider) {
-        return DynamoDbClient.builder()
-                .region(Region.of(awsRegion))
-                .credentialsProvider(credentialsProvider)
-                .build();
+                .httpClient(httpClients.sync())
+                .overrideConfiguration(override -> override
+                        .addExecutionInterceptor(metricsInterceptor)
+                        .addMetricPublisher(poolMetrics));
+        if (dynamoDbEndpoint != null && !dynamoDbEndpoint.isBlank()) {
+            // e.g. DynamoDB Local at http://localhost:8000
+            builder.endpointOverride(URI.create(dynamoDbEndpoint));
+        }
+        return builder.build();
     }
 }
@@ -0,0 +1,105 @@
+package com.visiblaze.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+
+import java.time.Duration;
+
+/**
+ * The HTTP transport shared by every AWS client: one blocking Apache connection pool for
+ * the sync clients and one Netty pool for the async clients. Left to themselves, each SDK
+ * client opens its own pool capped at 50 connections, which caps discovery concurrency
+ * per client no matter how many threads are working.
+ * <p>
+ * Connections are reused across clients for the same endpoint and recycled after
+ * {@code aws.http.connection-ttl-seconds}, so DNS changes are picked up. Pool usage is
+ * published by {@link AwsHttpPoolMetrics}.
+ */
+@Slf4j
+@Component
+public class AwsHttpClients {
+
+    @Value("${aws.http.max-connections:200}")
+    private int maxConnections;
+
+    @Value("${aws.http.async.max-concurrency:500}")
+    private int asyncMaxConcurrency;
+
+    @Value("${aws.http.async.max-pending-acquires:10000}")
+    private int asyncMaxPendingAcquires;
+
+    @Value("${aws.http.connection-timeout-ms:2000}")
+    private long connectionTimeoutMs;
+
+    @Value("${aws.http.connection-acquisition-timeout-ms:10000}")
+    private long connectionAcquisitionTimeoutMs;
+
+    @Value("${aws.http.socket-timeout-ms:30000}")
+    private long socketTimeoutMs;
+
+    @Value("${aws.http.connection-ttl-seconds:300}")
+    private long connectionTtlSeconds;
+
+    @Value("${aws.http.connection-max-idle-seconds:60}")
+    private long connectionMaxIdleSeconds;
+
+    @Value("${aws.http.tcp-keep-alive:true}")
+    private boolean tcpKeepAlive;
+
+    private SdkHttpClient syncClient;
+    private SdkAsyncHttpClient asyncClient;
+
+    @PostConstruct
+    void start() {
+        syncClient = ApacheHttpClient.builder()
+                .maxConnections(maxConnections)
+                .connectionTimeout(Duration.ofMillis(connectionTimeoutMs))
+                .connectionAcquisitionTimeout(Duration.ofMillis(connectionAcquisitionTimeoutMs))
+                .socketTimeout(Duration.ofMillis(socketTimeoutMs))
+                .connectionTimeToLive(Duration.ofSeconds(connectionTtlSeconds))
+                .connectionMaxIdleTime(Duration.ofSeconds(connectionMaxIdleSeconds))
+                .useIdleConnectionReaper(true)
+                .tcpKeepAlive(tcpKeepAlive)
+                .build();
+        asyncClient = NettyNioAsyncHttpClient.builder()
+                .maxConcurrency(asyncMaxConcurrency)
+                .maxPendingConnectionAcquires(asyncMaxPendingAcquires)
+                .connectionTimeout(Duration.ofMillis(connectionTimeoutMs))
+                .connectionAcquisitionTimeout(Duration.ofMillis(connectionAcquisitionTimeoutMs))
+                .readTimeout(Duration.ofMillis(socketTimeoutMs))
+                .writeTimeout(Duration.ofMillis(socketTimeoutMs))
+                .connectionTimeToLive(Duration.ofSeconds(connectionTtlSeconds))
+                .connectionMaxIdleTime(Duration.ofSeconds(connectionMaxIdleSeconds))
+                .useIdleConnectionReaper(true)
+                .tcpKeepAlive(tcpKeepAlive)
+                .build();
+        log.info("AWS HTTP pools: {} sync connections, {} async connections", maxConnections, asyncMaxConcurrency);
+    }
+
+    @PreDestroy
+    void stop() {
+        syncClient.close();
+        asyncClient.close();
+    }
+
+    /**
+     * The shared pool for sync clients. Clients built with it leave it open when closed.
+     */
+    public SdkHttpClient sync() {
+        return syncClient;
+    }
+
+    /**
+     * The shared pool for async clients. Clients built with it leave it open when closed.
+     */
+    public SdkAsyncHttpClient async() {
+        return asyncClient;
+    }
+}
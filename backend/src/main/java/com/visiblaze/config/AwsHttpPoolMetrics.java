@@ -0,0 +1,81 @@
+package com.visiblaze.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.http.HttpMetric;
+import software.amazon.awssdk.metrics.MetricCollection;
+import software.amazon.awssdk.metrics.MetricPublisher;
+import software.amazon.awssdk.metrics.SdkMetric;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Publishes the connection pool usage the SDK reports with every request, tagged with the
+ * HTTP {@code client} ({@code Apache} for sync clients, {@code NettyNio} for async ones):
+ * <ul>
+ *     <li>{@code aws.http.pool.max}, {@code aws.http.pool.leased},
+ *     {@code aws.http.pool.available} and {@code aws.http.pool.pending}: the pool as the
+ *     latest request found it.</li>
+ *     <li>{@code aws.http.pool.acquire}: time spent waiting for a connection.</li>
+ * </ul>
+ * A {@code pending} count above zero, or a growing acquire time, means requests are queuing
+ * for connections and {@code aws.http.max-connections} is the bottleneck.
+ */
+@Component
+@RequiredArgsConstructor
+public class AwsHttpPoolMetrics implements MetricPublisher {
+
+    private static final Map<SdkMetric<Integer>, String> POOL_GAUGES = Map.of(
+            HttpMetric.MAX_CONCURRENCY, "aws.http.pool.max",
+            HttpMetric.LEASED_CONCURRENCY, "aws.http.pool.leased",
+            HttpMetric.AVAILABLE_CONCURRENCY, "aws.http.pool.available",
+            HttpMetric.PENDING_CONCURRENCY_ACQUIRES, "aws.http.pool.pending");
+
+    private final MeterRegistry meterRegistry;
+
+    // Gauges hold their state weakly, so the values live here
+    private final Map<String, AtomicInteger> gauges = new ConcurrentHashMap<>();
+
+    @Override
+    public void publish(MetricCollection metrics) {
+        List<String> clientNames = metrics.metricValues(HttpMetric.HTTP_CLIENT_NAME);
+        if (!clientNames.isEmpty()) {
+            String client = clientNames.get(0);
+            POOL_GAUGES.forEach((metric, name) -> {
+                List<Integer> values = metrics.metricValues(metric);
+                if (!values.isEmpty()) {
+                    gauge(name, client).set(values.get(values.size() - 1));
+                }
+            });
+            for (Duration wait : metrics.metricValues(HttpMetric.CONCURRENCY_ACQUIRE_DURATION)) {
+                Timer.builder("aws.http.pool.acquire")
+                        .tag("client", client)
+                        .register(meterRegistry)
+                        .record(wait);
+            }
+        }
+        // Pool metrics are reported on each attempt's HTTP client collection
+        metrics.children().forEach(this::publish);
+    }
+
+    private AtomicInteger gauge(String name, String client) {
+        return gauges.computeIfAbsent(name + "/" + client, key -> {
+            AtomicInteger value = new AtomicInteger();
+            Gauge.builder(name, value, AtomicInteger::get)
+                    .tag("client", client)
+                    .register(meterRegistry);
+            return value;
+        });
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,84 @@
+package com.visiblaze.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.awscore.AwsExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.core.interceptor.SdkExecutionAttribute;
+import software.amazon.awssdk.regions.Region;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the latency of every AWS call per service, operation and region.
+ * <ul>
+ *     <li>{@code aws.api.calls}: the whole call as the caller sees it, including rate limit
+ *     waits and retries, tagged with its {@code outcome} (success, error or throttled).</li>
+ *     <li>{@code aws.api.attempts}: each HTTP round trip, tagged with the response status.</li>
+ * </ul>
+ * Added after the rate limiting interceptor, so attempt latency does not include the wait
+ * for a token.
+ */
+@Component
+@RequiredArgsConstructor
+public class AwsMetricsInterceptor implements ExecutionInterceptor {
+
+    private static final ExecutionAttribute<Long> CALL_START = new ExecutionAttribute<>("MetricsCallStart");
+    private static final ExecutionAttribute<Long> ATTEMPT_START = new ExecutionAttribute<>("MetricsAttemptStart");
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public void beforeExecution(Context.BeforeExecution context, ExecutionAttributes executionAttributes) {
+        executionAttributes.putAttribute(CALL_START, System.nanoTime());
+    }
+
+    @Override
+    public void beforeTransmission(Context.BeforeTransmission context, ExecutionAttributes executionAttributes) {
+        executionAttributes.putAttribute(ATTEMPT_START, System.nanoTime());
+    }
+
+    @Override
+    public void afterTransmission(Context.AfterTransmission context, ExecutionAttributes executionAttributes) {
+        Long start = executionAttributes.getAttribute(ATTEMPT_START);
+        if (start != null) {
+            timer("aws.api.attempts", executionAttributes)
+                    .tag("status", String.valueOf(context.httpResponse().statusCode()))
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void afterExecution(Context.AfterExecution context, ExecutionAttributes executionAttributes) {
+        recordCall(executionAttributes, "success");
+    }
+
+    @Override
+    public void onExecutionFailure(Context.FailedExecution context, ExecutionAttributes executionAttributes) {
+        recordCall(executionAttributes, AwsRateLimiter.isThrottling(context.exception()) ? "throttled" : "error");
+    }
+
+    private void recordCall(ExecutionAttributes executionAttributes, String outcome) {
+        Long start = executionAttributes.getAttribute(CALL_START);
+        if (start != null) {
+            timer("aws.api.calls", executionAttributes)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static Timer.Builder timer(String name, ExecutionAttributes executionAttributes) {
+        Region region = executionAttributes.getAttribute(AwsExecutionAttribute.AWS_REGION);
+        return Timer.builder(name)
+                .tag("service", String.valueOf(executionAttributes.getAttribute(SdkExecutionAttribute.SERVICE_NAME)))
+                .tag("operation", String.valueOf(executionAttributes.getAttribute(SdkExecutionAttribute.OPERATION_NAME)))
+                .tag("region", region != null ? region.id() : "unknown");
+    }
+}
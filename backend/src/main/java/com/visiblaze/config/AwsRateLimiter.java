@@ -0,0 +1,254 @@
+package com.visiblaze.config;
+
+import com.visiblaze.model.AwsAccount;
+import com.visiblaze.model.RateLimitStatus;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.core.exception.AbortedException;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.core.retry.RetryMode;
+import software.amazon.awssdk.core.retry.RetryPolicy;
+import software.amazon.awssdk.core.retry.RetryPolicyContext;
+import software.amazon.awssdk.core.retry.RetryUtils;
+import software.amazon.awssdk.core.retry.conditions.RetryCondition;
+import software.amazon.awssdk.regions.Region;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Client-side rate limiting for AWS API calls, with one {@link AdaptiveTokenBucket} per
+ * service, account and region (the scope AWS throttles at). Every attempt, retries included,
+ * waits for a token before it is sent. Buckets start at {@code aws.rate-limit.initial-rate}
+ * requests per second, speed up while no throttling is seen and back off when it is.
+ * <p>
+ * Throttled requests are retried up to {@code aws.retry.max-throttling-retries} times with
+ * the SDK's throttling backoff; other retryable errors keep the SDK's standard budget. A
+ * request that is still throttled after that fails; use {@link #isThrottling(Throwable)} to
+ * make sure such failures are never read as an answer.
+ */
+@Component
+@RequiredArgsConstructor
+public class AwsRateLimiter {
+
+    /**
+     * The last throttling error already reported to the bucket for a request.
+     */
+    private static final ExecutionAttribute<Throwable> REPORTED_THROTTLE = new ExecutionAttribute<>("ReportedThrottle");
+
+    /**
+     * Whether an async request's first attempt already has the token its caller waited for.
+     */
+    private static final ExecutionAttribute<Boolean> PREPAID_ATTEMPT = new ExecutionAttribute<>("PrepaidAttempt");
+
+    /**
+     * Retries the SDK's standard retry mode allows for errors other than throttling.
+     */
+    private static final int STANDARD_RETRIES = 2;
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${aws.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${aws.rate-limit.initial-rate:20}")
+    private double initialRate;
+
+    @Value("${aws.rate-limit.min-rate:1}")
+    private double minRate;
+
+    @Value("${aws.rate-limit.max-rate:500}")
+    private double maxRate;
+
+    @Value("${aws.rate-limit.increase-per-second:5}")
+    private double increasePerSecond;
+
+    @Value("${aws.rate-limit.decrease-factor:0.5}")
+    private double decreaseFactor;
+
+    @Value("${aws.retry.max-throttling-retries:8}")
+    private int maxThrottlingRetries;
+
+    private final Map<LimiterKey, AdaptiveTokenBucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * Retry policy and, when enabled, the rate limit for a sync or {@code async} client of
+     * {@code service} in {@code account} and {@code region}.
+     */
+    public ClientOverrideConfiguration overrides(String service, AwsAccount account, Region region, boolean async) {
+        AdaptiveTokenBucket bucket = enabled
+                ? buckets.computeIfAbsent(new LimiterKey(service, account, region), this::newBucket)
+                : null;
+        ClientOverrideConfiguration.Builder overrides = ClientOverrideConfiguration.builder()
+                .retryPolicy(RetryPolicy.builder(RetryMode.STANDARD)
+                        .numRetries(Math.max(STANDARD_RETRIES, maxThrottlingRetries))
+                        .retryCondition(new ThrottlingAwareRetryCondition(RetryCondition.defaultRetryCondition(), bucket))
+                        .build());
+        if (bucket != null) {
+            overrides.addExecutionInterceptor(new RateLimitingInterceptor(bucket, async));
+        }
+        return overrides.build();
+    }
+
+    /**
+     * Creates the bucket for {@code key} and publishes its rate ({@code aws.rate.limit}) and
+     * throttled attempts ({@code aws.throttled.attempts}) as metrics.
+     */
+    private AdaptiveTokenBucket newBucket(LimiterKey key) {
+        AdaptiveTokenBucket bucket = new AdaptiveTokenBucket(initialRate, minRate, maxRate, increasePerSecond,
+                decreaseFactor);
+        Tags tags = Tags.of("service", key.service(), "account", key.account().toString(), "region", key.region().id());
+        Gauge.builder("aws.rate.limit", bucket, AdaptiveTokenBucket::rate)
+                .tags(tags)
+                .description("Requests per second currently allowed")
+                .register(meterRegistry);
+        FunctionCounter.builder("aws.throttled.attempts", bucket, AdaptiveTokenBucket::throttles)
+                .tags(tags)
+                .register(meterRegistry);
+        return bucket;
+    }
+
+    /**
+     * Current rate of every bucket, busiest first.
+     */
+    public List<RateLimitStatus> status() {
+        return buckets.entrySet().stream()
+                .map(entry -> RateLimitStatus.builder()
+                        .service(entry.getKey().service())
+                        .accountId(entry.getKey().account().getAccountId())
+                        .region(entry.getKey().region().id())
+                        .ratePerSecond(Math.round(entry.getValue().rate() * 100) / 100.0)
+                        .requests(entry.getValue().requests())
+                        .throttledRequests(entry.getValue().throttles())
+                        .build())
+                .sorted(Comparator.comparingLong(RateLimitStatus::getRequests).reversed())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Whether {@code e} means AWS throttled the request (e.g. {@code SlowDown},
+     * {@code RequestLimitExceeded}, {@code Throttling} or HTTP 429), as opposed to
+     * answering it.
+     */
+    public static boolean isThrottling(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        return cause instanceof SdkException sdkException && RetryUtils.isThrottlingException(sdkException);
+    }
+
+    private record LimiterKey(String service, AwsAccount account, Region region) {
+    }
+
+    /**
+     * Takes a token before every attempt and credits the bucket for every attempt that
+     * came back without being throttled. A sync client waits for the token right before each
+     * attempt. An async client sends its attempts from the SDK's I/O and retry threads, which
+     * must never sleep, so the calling thread waits for the first attempt's token before the
+     * request is started, and each retry takes its token without waiting, making the next
+     * callers wait for it instead.
+     */
+    private static final class RateLimitingInterceptor implements ExecutionInterceptor {
+
+        private final AdaptiveTokenBucket bucket;
+        private final boolean async;
+
+        RateLimitingInterceptor(AdaptiveTokenBucket bucket, boolean async) {
+            this.bucket = bucket;
+            this.async = async;
+        }
+
+        @Override
+        public void beforeExecution(Context.BeforeExecution context, ExecutionAttributes executionAttributes) {
+            if (async) {
+                acquire();
+                executionAttributes.putAttribute(PREPAID_ATTEMPT, Boolean.TRUE);
+            }
+        }
+
+        @Override
+        public void beforeTransmission(Context.BeforeTransmission context, ExecutionAttributes executionAttributes) {
+            if (!async) {
+                acquire();
+            } else if (Boolean.TRUE.equals(executionAttributes.getAttribute(PREPAID_ATTEMPT))) {
+                executionAttributes.putAttribute(PREPAID_ATTEMPT, Boolean.FALSE);
+            } else {
+                bucket.take();
+            }
+        }
+
+        private void acquire() {
+            try {
+                bucket.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw AbortedException.create("Interrupted while waiting for the AWS rate limit", e);
+            }
+        }
+
+        @Override
+        public void afterTransmission(Context.AfterTransmission context, ExecutionAttributes executionAttributes) {
+            if (context.httpResponse().isSuccessful()) {
+                bucket.onSuccess();
+            }
+        }
+
+        @Override
+        public void onExecutionFailure(Context.FailedExecution context, ExecutionAttributes executionAttributes) {
+            // The retry condition is not consulted once retries are used up
+            if (isThrottling(context.exception())
+                    && executionAttributes.getAttribute(REPORTED_THROTTLE) != context.exception()) {
+                bucket.onThrottle();
+            }
+        }
+    }
+
+    /**
+     * The SDK's default retry condition, with the larger retry budget kept for throttling.
+     * Throttled attempts are reported to the bucket, if there is one, as they happen.
+     */
+    private static final class ThrottlingAwareRetryCondition implements RetryCondition {
+
+        private final RetryCondition delegate;
+        private final AdaptiveTokenBucket bucket;
+
+        ThrottlingAwareRetryCondition(RetryCondition delegate, AdaptiveTokenBucket bucket) {
+            this.delegate = delegate;
+            this.bucket = bucket;
+        }
+
+        @Override
+        public boolean shouldRetry(RetryPolicyContext context) {
+            if (!isThrottling(context.exception())) {
+                return context.retriesAttempted() < STANDARD_RETRIES && delegate.shouldRetry(context);
+            }
+            if (bucket != null) {
+                bucket.onThrottle();
+                context.executionAttributes().putAttribute(REPORTED_THROTTLE, context.exception());
+            }
+            return delegate.shouldRetry(context);
+        }
+
+        @Override
+        public void requestWillNotBeRetried(RetryPolicyContext context) {
+            delegate.requestWillNotBeRetried(context);
+        }
+
+        @Override
+        public void requestSucceeded(RetryPolicyContext context) {
+            delegate.requestSucceeded(context);
+        }
+    }
+}
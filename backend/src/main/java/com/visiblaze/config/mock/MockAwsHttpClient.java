@@ -0,0 +1,530 @@
+package com.visiblaze.config.mock;
+
+import com.visiblaze.model.AwsAccount;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.http.ExecutableHttpRequest;
+import software.amazon.awssdk.http.HttpExecuteRequest;
+import software.amazon.awssdk.http.HttpExecuteResponse;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.SdkHttpRequest;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.http.async.AsyncExecuteRequest;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HTTP client that answers AWS API calls from {@link SyntheticAwsInventory} instead of
+ * sending them, used by every discovery client when {@code app.mock-mode} is on. Requests
+ * still go through the real SDK clients, so signing, retries, the rate limiter, metrics and
+ * response parsing behave as they do against AWS.
+ * <p>
+ * Answers EC2 DescribeInstances, DescribeSecurityGroups and DescribeRegions, the S3 calls
+ * made by bucket discovery, IAM GetAccountSummary and CloudTrail DescribeTrails. The
+ * account is read from the access key of the request, see {@link #credentials(AwsAccount)}.
+ * Every response can be delayed by {@code app.mock.latency-ms}, and calls above
+ * {@code app.mock.throttle-above-rps} per second to one service endpoint in one account are
+ * throttled the way that service throttles.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.mock-mode", havingValue = "true")
+@RequiredArgsConstructor
+public class MockAwsHttpClient implements SdkHttpClient, SdkAsyncHttpClient {
+
+    private static final String ACCESS_KEY_PREFIX = "MOCK";
+    private static final String EC2_NAMESPACE = "http://ec2.amazonaws.com/doc/2016-11-15/";
+    private static final String S3_NAMESPACE = "http://s3.amazonaws.com/doc/2006-03-01/";
+    private static final int EC2_MAX_RESULTS = 1000;
+
+    private final SyntheticAwsInventory inventory;
+
+    @Value("${app.mock.latency-ms:0}")
+    private long latencyMs;
+
+    @Value("${app.mock.throttle-above-rps:0}")
+    private int throttleAboveRps;
+
+    private final Map<String, RequestWindow> requestWindows = new ConcurrentHashMap<>();
+    private final AtomicLong requestIds = new AtomicLong();
+    private ScheduledExecutorService executor;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "mock-aws-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.warn("Mock mode: AWS calls are answered from a synthetic inventory of {} instances, {} security groups "
+                        + "per account and region and {} buckets per account",
+                inventory.instanceCount(), inventory.securityGroupCount(), inventory.bucketCount());
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Credentials that identify {@code account} to the mock; nothing is assumed or fetched.
+     */
+    public static AwsCredentialsProvider credentials(AwsAccount account) {
+        String accountId = account.isSelf() || account.getAccountId() == null ? "SELF" : account.getAccountId();
+        return StaticCredentialsProvider.create(AwsBasicCredentials.create(ACCESS_KEY_PREFIX + accountId, "mock"));
+    }
+
+    @Override
+    public ExecutableHttpRequest prepareRequest(HttpExecuteRequest request) {
+        return new ExecutableHttpRequest() {
+            @Override
+            public HttpExecuteResponse call() throws IOException {
+                byte[] body = request.contentStreamProvider().isPresent()
+                        ? readAll(request.contentStreamProvider().get().newStream())
+                        : new byte[0];
+                MockResponse response = handle(request.httpRequest(), body);
+                if (latencyMs > 0) {
+                    try {
+                        Thread.sleep(latencyMs);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted while simulating AWS latency");
+                    }
+                }
+                return HttpExecuteResponse.builder()
+                        .response(response.httpResponse())
+                        .responseBody(AbortableInputStream.create(new ByteArrayInputStream(response.body())))
+                        .build();
+            }
+
+            @Override
+            public void abort() {
+            }
+        };
+    }
+
+    @Override
+    public CompletableFuture<Void> execute(AsyncExecuteRequest request) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        readAll(request.requestContentPublisher()).whenComplete((body, readError) -> {
+            if (readError != null) {
+                request.responseHandler().onError(readError);
+                done.completeExceptionally(readError);
+                return;
+            }
+            executor.schedule(() -> {
+                try {
+                    MockResponse response = handle(request.request(), body);
+                    request.responseHandler().onHeaders(response.httpResponse());
+                    request.responseHandler().onStream(subscriber -> subscriber.onSubscribe(
+                            new SingleBufferSubscription(subscriber, response.body(), done)));
+                } catch (RuntimeException e) {
+                    request.responseHandler().onError(e);
+                    done.completeExceptionally(e);
+                }
+            }, latencyMs, TimeUnit.MILLISECONDS);
+        });
+        return done;
+    }
+
+    @Override
+    public String clientName() {
+        return "Mock";
+    }
+
+    @Override
+    public void close() {
+        // Shared by every client; the executor is stopped with the application
+    }
+
+    private MockResponse handle(SdkHttpRequest request, byte[] body) {
+        String host = request.host();
+        String account = account(request);
+        if (host.startsWith("ec2.")) {
+            Map<String, String> form = parseForm(new String(body, StandardCharsets.UTF_8));
+            return throttled(host, account)
+                    ? xml(503, "<Response><Errors><Error><Code>RequestLimitExceeded</Code>"
+                            + "<Message>Request limit exceeded.</Message></Error></Errors>"
+                            + "<RequestID>" + requestId() + "</RequestID></Response>")
+                    : ec2(account, host.split("\\.")[1], form);
+        }
+        if (host.startsWith("iam.")) {
+            return throttled(host, account)
+                    ? xml(400, "<ErrorResponse><Error><Type>Sender</Type><Code>Throttling</Code>"
+                            + "<Message>Rate exceeded</Message></Error><RequestId>" + requestId()
+                            + "</RequestId></ErrorResponse>")
+                    : accountSummary();
+        }
+        if (host.startsWith("cloudtrail.")) {
+            return throttled(host, account)
+                    ? new MockResponse(400, Map.of("Content-Type", "application/x-amz-json-1.1",
+                            "x-amzn-ErrorType", "ThrottlingException", "x-amzn-RequestId", requestId()),
+                            "{\"__type\":\"ThrottlingException\",\"message\":\"Rate exceeded\"}"
+                                    .getBytes(StandardCharsets.UTF_8))
+                    : trails(account, host.split("\\.")[1]);
+        }
+        int s3 = host.indexOf("s3.");
+        if (s3 >= 0) {
+            String endpoint = host.substring(s3);
+            return throttled(endpoint, account)
+                    ? s3Error(503, "SlowDown", "Please reduce your request rate.")
+                    : s3(account, request, s3 > 0 ? host.substring(0, s3 - 1) : null);
+        }
+        return xml(400, "<Error><Code>UnsupportedOperation</Code><Message>Mock mode does not support "
+                + host + "</Message></Error>");
+    }
+
+    private MockResponse ec2(String account, String region, Map<String, String> form) {
+        String action = form.getOrDefault("Action", "");
+        int from = form.containsKey("NextToken") ? Integer.parseInt(form.get("NextToken")) : 0;
+        int maxResults = form.containsKey("MaxResults")
+                ? Math.min(Integer.parseInt(form.get("MaxResults")), EC2_MAX_RESULTS)
+                : EC2_MAX_RESULTS;
+        StringBuilder xml = new StringBuilder(256 * maxResults);
+        switch (action) {
+            case "DescribeInstances" -> {
+                xml.append("<DescribeInstancesResponse xmlns=\"").append(EC2_NAMESPACE).append("\">")
+                        .append("<requestId>").append(requestId()).append("</requestId><reservationSet>");
+                for (SyntheticAwsInventory.Instance instance : inventory.instances(account, region, from, maxResults)) {
+                    xml.append("<item><reservationId>r-").append(instance.instanceId().substring(2))
+                            .append("</reservationId><ownerId>").append(account).append("</ownerId>")
+                            .append("<instancesSet><item>")
+                            .append("<instanceId>").append(instance.instanceId()).append("</instanceId>")
+                            .append("<instanceType>").append(instance.instanceType()).append("</instanceType>")
+                            .append("<instanceState><code>").append(instance.stateCode()).append("</code><name>")
+                            .append(instance.state()).append("</name></instanceState>")
+                            .append("<privateIpAddress>").append(instance.privateIp()).append("</privateIpAddress>");
+                    if (instance.publicIp() != null) {
+                        xml.append("<ipAddress>").append(instance.publicIp()).append("</ipAddress>");
+                    }
+                    xml.append("<placement><availabilityZone>").append(instance.availabilityZone())
+                            .append("</availabilityZone></placement>")
+                            .append("<launchTime>").append(instance.launchTime()).append("</launchTime>")
+                            .append("<groupSet>");
+                    if (instance.groupId() != null) {
+                        xml.append("<item><groupId>").append(instance.groupId()).append("</groupId></item>");
+                    }
+                    xml.append("</groupSet></item></instancesSet></item>");
+                }
+                xml.append("</reservationSet>");
+                appendNextToken(xml, from, maxResults, inventory.instanceCount());
+                xml.append("</DescribeInstancesResponse>");
+            }
+            case "DescribeSecurityGroups" -> {
+                xml.append("<DescribeSecurityGroupsResponse xmlns=\"").append(EC2_NAMESPACE).append("\">")
+                        .append("<requestId>").append(requestId()).append("</requestId><securityGroupInfo>");
+                for (SyntheticAwsInventory.SecurityGroup group : inventory.securityGroups(account, region, from, maxResults)) {
+                    xml.append("<item><ownerId>").append(account).append("</ownerId>")
+                            .append("<groupId>").append(group.groupId()).append("</groupId>")
+                            .append("<groupName>").append(group.groupName()).append("</groupName>")
+                            .append("<groupDescription>Synthetic security group</groupDescription>")
+                            .append("<ipPermissions>");
+                    for (SyntheticAwsInventory.Rule rule : group.rules()) {
+                        xml.append("<item><ipProtocol>tcp</ipProtocol>")
+                                .append("<fromPort>").append(rule.fromPort()).append("</fromPort>")
+                                .append("<toPort>").append(rule.toPort()).append("</toPort>");
+                        if (rule.cidr().indexOf(':') >= 0) {
+                            xml.append("<ipv6Ranges><item><cidrIpv6>").append(rule.cidr())
+                                    .append("</cidrIpv6></item></ipv6Ranges>");
+                        } else {
+                            xml.append("<ipRanges><item><cidrIp>").append(rule.cidr())
+                                    .append("</cidrIp></item></ipRanges>");
+                        }
+                        xml.append("</item>");
+                    }
+                    xml.append("</ipPermissions></item>");
+                }
+                xml.append("</securityGroupInfo>");
+                appendNextToken(xml, from, maxResults, inventory.securityGroupCount());
+                xml.append("</DescribeSecurityGroupsResponse>");
+            }
+            case "DescribeRegions" -> {
+                xml.append("<DescribeRegionsResponse xmlns=\"").append(EC2_NAMESPACE).append("\">")
+                        .append("<requestId>").append(requestId()).append("</requestId><regionInfo>");
+                for (String name : inventory.regions()) {
+                    xml.append("<item><regionName>").append(name).append("</regionName>")
+                            .append("<regionEndpoint>ec2.").append(name).append(".amazonaws.com</regionEndpoint>")
+                            .append("<optInStatus>opt-in-not-required</optInStatus></item>");
+                }
+                xml.append("</regionInfo></DescribeRegionsResponse>");
+            }
+            default -> {
+                return xml(400, "<Response><Errors><Error><Code>InvalidAction</Code><Message>Mock mode does not "
+                        + "support " + action + "</Message></Error></Errors><RequestID>" + requestId()
+                        + "</RequestID></Response>");
+            }
+        }
+        return xml(200, xml.toString());
+    }
+
+    private static void appendNextToken(StringBuilder xml, int from, int maxResults, int total) {
+        if (from + maxResults < total) {
+            xml.append("<nextToken>").append(from + maxResults).append("</nextToken>");
+        }
+    }
+
+    private MockResponse s3(String account, SdkHttpRequest request, String bucketName) {
+        if (bucketName == null) {
+            // Path-style addressing
+            String path = request.encodedPath();
+            String first = path.startsWith("/") ? path.substring(1) : path;
+            bucketName = first.isEmpty() ? null : first.split("/")[0];
+        }
+        if (bucketName == null) {
+            StringBuilder xml = new StringBuilder(128 * inventory.bucketCount());
+            xml.append("<ListAllMyBucketsResult xmlns=\"").append(S3_NAMESPACE).append("\">")
+                    .append("<Owner><ID>").append(account).append("</ID><DisplayName>mock</DisplayName></Owner>")
+                    .append("<Buckets>");
+            for (int index = 0; index < inventory.bucketCount(); index++) {
+                SyntheticAwsInventory.Bucket bucket = inventory.bucket(account, index);
+                xml.append("<Bucket><Name>").append(bucket.name()).append("</Name><CreationDate>")
+                        .append(bucket.creationDate()).append("</CreationDate></Bucket>");
+            }
+            xml.append("</Buckets></ListAllMyBucketsResult>");
+            return s3Xml(200, xml.toString());
+        }
+
+        SyntheticAwsInventory.Bucket bucket = inventory.bucket(account, bucketName);
+        if (bucket == null) {
+            return s3Error(404, "NoSuchBucket", "The specified bucket does not exist");
+        }
+        Map<String, List<String>> query = request.rawQueryParameters();
+        if (query.containsKey("location")) {
+            String constraint = "us-east-1".equals(bucket.region()) ? "" : bucket.region();
+            return s3Xml(200, "<LocationConstraint xmlns=\"" + S3_NAMESPACE + "\">" + constraint
+                    + "</LocationConstraint>");
+        }
+        if (query.containsKey("encryption")) {
+            return bucket.encryption() == null
+                    ? s3Error(404, "ServerSideEncryptionConfigurationNotFoundError",
+                            "The server side encryption configuration was not found")
+                    : s3Xml(200, "<ServerSideEncryptionConfiguration xmlns=\"" + S3_NAMESPACE + "\"><Rule>"
+                            + "<ApplyServerSideEncryptionByDefault><SSEAlgorithm>" + bucket.encryption()
+                            + "</SSEAlgorithm></ApplyServerSideEncryptionByDefault></Rule>"
+                            + "</ServerSideEncryptionConfiguration>");
+        }
+        if (query.containsKey("policyStatus")) {
+            return bucket.publicPolicy() == null
+                    ? s3Error(404, "NoSuchBucketPolicy", "The bucket policy does not exist")
+                    : s3Xml(200, "<PolicyStatus xmlns=\"" + S3_NAMESPACE + "\"><IsPublic>" + bucket.publicPolicy()
+                            + "</IsPublic></PolicyStatus>");
+        }
+        if (query.containsKey("publicAccessBlock")) {
+            return bucket.publicAccessBlocked()
+                    ? s3Xml(200, "<PublicAccessBlockConfiguration xmlns=\"" + S3_NAMESPACE + "\">"
+                            + "<BlockPublicAcls>true</BlockPublicAcls><IgnorePublicAcls>true</IgnorePublicAcls>"
+                            + "<BlockPublicPolicy>true</BlockPublicPolicy>"
+                            + "<RestrictPublicBuckets>true</RestrictPublicBuckets></PublicAccessBlockConfiguration>")
+                    : s3Error(404, "NoSuchPublicAccessBlockConfiguration",
+                            "The public access block configuration was not found");
+        }
+        if (query.containsKey("versioning")) {
+            return s3Xml(200, "<VersioningConfiguration xmlns=\"" + S3_NAMESPACE + "\">"
+                    + (bucket.versioned() ? "<Status>Enabled</Status>" : "") + "</VersioningConfiguration>");
+        }
+        return s3Error(501, "NotImplemented", "Mock mode does not support this S3 operation");
+    }
+
+    private MockResponse accountSummary() {
+        return xml(200, "<GetAccountSummaryResponse xmlns=\"https://iam.amazonaws.com/doc/2010-05-08/\">"
+                + "<GetAccountSummaryResult><SummaryMap><entry><key>AccountMFAEnabled</key><value>1</value></entry>"
+                + "</SummaryMap></GetAccountSummaryResult><ResponseMetadata><RequestId>" + requestId()
+                + "</RequestId></ResponseMetadata></GetAccountSummaryResponse>");
+    }
+
+    private MockResponse trails(String account, String region) {
+        // One multi-region trail, which DescribeTrails returns in every region
+        List<String> regions = inventory.regions();
+        String homeRegion = regions.isEmpty() ? region : regions.get(0);
+        String body = "{\"trailList\":[{\"Name\":\"mock-trail\",\"TrailARN\":\"arn:aws:cloudtrail:" + homeRegion
+                + ":" + account + ":trail/mock-trail\",\"HomeRegion\":\"" + homeRegion
+                + "\",\"IsMultiRegionTrail\":true}]}";
+        return new MockResponse(200, Map.of("Content-Type", "application/x-amz-json-1.1",
+                "x-amzn-RequestId", requestId()), body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Whether this call is over {@code app.mock.throttle-above-rps} for the endpoint and
+     * account in the current second.
+     */
+    private boolean throttled(String endpoint, String account) {
+        if (throttleAboveRps <= 0) {
+            return false;
+        }
+        return !requestWindows.computeIfAbsent(endpoint + "/" + account, key -> new RequestWindow())
+                .tryAcquire(throttleAboveRps);
+    }
+
+    private String account(SdkHttpRequest request) {
+        // AWS4-HMAC-SHA256 Credential=<access key>/<date>/<region>/<service>/aws4_request, ...
+        String authorization = request.firstMatchingHeader("Authorization").orElse("");
+        int start = authorization.indexOf("Credential=");
+        if (start < 0) {
+            return "SELF";
+        }
+        start += "Credential=".length();
+        int end = authorization.indexOf('/', start);
+        String accessKey = authorization.substring(start, end < 0 ? authorization.length() : end);
+        return accessKey.startsWith(ACCESS_KEY_PREFIX) ? accessKey.substring(ACCESS_KEY_PREFIX.length()) : accessKey;
+    }
+
+    private String requestId() {
+        return "mock-" + requestIds.incrementAndGet();
+    }
+
+    private MockResponse xml(int status, String body) {
+        return new MockResponse(status, Map.of("Content-Type", "text/xml;charset=UTF-8",
+                "x-amzn-RequestId", requestId()), body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private MockResponse s3Xml(int status, String body) {
+        return new MockResponse(status, Map.of("Content-Type", "application/xml", "x-amz-request-id", requestId()),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private MockResponse s3Error(int status, String code, String message) {
+        return s3Xml(status, "<Error><Code>" + code + "</Code><Message>" + message + "</Message></Error>");
+    }
+
+    private static Map<String, String> parseForm(String body) {
+        Map<String, String> form = new HashMap<>();
+        for (String pair : body.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                form.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return form;
+    }
+
+    private static byte[] readAll(InputStream stream) throws IOException {
+        try (stream) {
+            return stream.readAllBytes();
+        }
+    }
+
+    private static CompletableFuture<byte[]> readAll(Publisher<ByteBuffer> publisher) {
+        CompletableFuture<byte[]> body = new CompletableFuture<>();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        publisher.subscribe(new Subscriber<>() {
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ByteBuffer bytes) {
+                byte[] chunk = new byte[bytes.remaining()];
+                bytes.get(chunk);
+                buffer.writeBytes(chunk);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                body.completeExceptionally(error);
+            }
+
+            @Override
+            public void onComplete() {
+                body.complete(buffer.toByteArray());
+            }
+        });
+        return body;
+    }
+
+    private record MockResponse(int status, Map<String, String> headers, byte[] body) {
+
+        SdkHttpResponse httpResponse() {
+            SdkHttpResponse.Builder response = SdkHttpResponse.builder().statusCode(status);
+            headers.forEach(response::putHeader);
+            response.putHeader("Content-Length", String.valueOf(body.length));
+            return response.build();
+        }
+    }
+
+    /**
+     * Requests seen in the current second.
+     */
+    private static final class RequestWindow {
+
+        private long second;
+        private int count;
+
+        synchronized boolean tryAcquire(int limit) {
+            long now = System.currentTimeMillis() / 1000;
+            if (now != second) {
+                second = now;
+                count = 0;
+            }
+            return ++count <= limit;
+        }
+    }
+
+    /**
+     * Streams a response body as a single buffer.
+     */
+    private static final class SingleBufferSubscription implements Subscription {
+
+        private final Subscriber<? super ByteBuffer> subscriber;
+        private final byte[] body;
+        private final CompletableFuture<Void> done;
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        SingleBufferSubscription(Subscriber<? super ByteBuffer> subscriber, byte[] body, CompletableFuture<Void> done) {
+            this.subscriber = subscriber;
+            this.body = body;
+            this.done = done;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n > 0 && finished.compareAndSet(false, true)) {
+                if (body.length > 0) {
+                    subscriber.onNext(ByteBuffer.wrap(body));
+                }
+                subscriber.onComplete();
+                done.complete(null);
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if (finished.compareAndSet(false, true)) {
+                done.complete(null);
+            }
+        }
+    }
+}
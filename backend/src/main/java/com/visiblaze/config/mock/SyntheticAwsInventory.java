@@ -0,0 +1,195 @@
+package com.visiblaze.config.mock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A synthetic AWS inventory for {@code app.mock-mode}. Nothing is held in memory: every
+ * instance, security group and bucket is derived from its index, the account, the region
+ * and {@code app.mock.seed}, so the same settings always produce the same inventory and a
+ * page can be generated on its own.
+ * <p>
+ * Sizes are per account: {@code app.mock.instances} and {@code app.mock.security-group-rules}
+ * in every region, {@code app.mock.buckets} once. A small share of the rules open SSH or RDP
+ * to the internet and a small share of the buckets are public, so every CIS check has
+ * something to find.
+ */
+@Component
+@ConditionalOnProperty(name = "app.mock-mode", havingValue = "true")
+public class SyntheticAwsInventory {
+
+    private static final String[] INSTANCE_TYPES = {
+            "t3.micro", "t3.small", "t3.medium", "m5.large", "m5.xlarge", "c5.large", "r5.large"};
+    private static final int[] RULE_PORTS = {22, 80, 443, 3389, 5432, 6379, 8080, 8443};
+    private static final String[] ENCRYPTION = {"AES256", "AES256", "aws:kms", "aws:kms:dsse"};
+    private static final long EPOCH_2020 = 1577836800L;
+    private static final long FOUR_YEARS_SECONDS = 4L * 365 * 24 * 3600;
+
+    @Value("${app.mock.instances:200000}")
+    private int instances;
+
+    @Value("${app.mock.security-group-rules:50000}")
+    private int securityGroupRules;
+
+    @Value("${app.mock.rules-per-group:5}")
+    private int rulesPerGroup;
+
+    @Value("${app.mock.buckets:20000}")
+    private int buckets;
+
+    @Value("${app.mock.regions:us-east-1,us-west-2,eu-west-1}")
+    private String regions;
+
+    @Value("${app.mock.seed:42}")
+    private long seed;
+
+    public record Instance(String instanceId, String instanceType, String state, int stateCode,
+                           String privateIp, String publicIp, String availabilityZone, String launchTime,
+                           String groupId) {
+    }
+
+    public record SecurityGroup(String groupId, String groupName, List<Rule> rules) {
+    }
+
+    /**
+     * An inbound TCP rule; {@code cidr} is IPv6 when it contains a colon.
+     */
+    public record Rule(int fromPort, int toPort, String cidr) {
+    }
+
+    /**
+     * A bucket and its configuration; a null {@code encryption} or {@code publicPolicy}
+     * means the bucket has none configured.
+     */
+    public record Bucket(String name, String creationDate, String region, String encryption,
+                         Boolean publicPolicy, boolean publicAccessBlocked, boolean versioned) {
+    }
+
+    public int instanceCount() {
+        return instances;
+    }
+
+    public int securityGroupCount() {
+        return (securityGroupRules + groupSize() - 1) / groupSize();
+    }
+
+    public int bucketCount() {
+        return buckets;
+    }
+
+    /**
+     * Regions reported as enabled by DescribeRegions.
+     */
+    public List<String> regions() {
+        return Arrays.stream(regions.split(","))
+                .map(String::trim)
+                .filter(region -> !region.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    public List<Instance> instances(String account, String region, int from, int count) {
+        List<Instance> page = new ArrayList<>(Math.max(0, count));
+        int groups = securityGroupCount();
+        for (int index = from; index < from + count && index < instances; index++) {
+            long r = random(account + "/" + region, "instance", index);
+            int state = (int) Long.remainderUnsigned(r, 100);
+            boolean running = state < 85;
+            long address = r >>> 16;
+            page.add(new Instance(
+                    String.format("i-0%016x", r),
+                    INSTANCE_TYPES[(int) Long.remainderUnsigned(r >>> 8, INSTANCE_TYPES.length)],
+                    running ? "running" : state < 95 ? "stopped" : "terminated",
+                    running ? 16 : state < 95 ? 80 : 48,
+                    "10." + ((index >> 16) & 255) + "." + ((index >> 8) & 255) + "." + (index & 255),
+                    running && (address & 7) < 3 ? "54." + ((address >> 3) & 255) + "." + ((address >> 11) & 255)
+                            + "." + ((address >> 19) & 255) : null,
+                    region + (char) ('a' + (int) Long.remainderUnsigned(r >>> 40, 3)),
+                    Instant.ofEpochSecond(EPOCH_2020 + Long.remainderUnsigned(r >>> 4, FOUR_YEARS_SECONDS)).toString(),
+                    groups > 0 ? groupId(account, region, (int) Long.remainderUnsigned(r >>> 24, groups)) : null));
+        }
+        return page;
+    }
+
+    public List<SecurityGroup> securityGroups(String account, String region, int from, int count) {
+        List<SecurityGroup> page = new ArrayList<>(Math.max(0, count));
+        int groups = securityGroupCount();
+        for (int group = from; group < from + count && group < groups; group++) {
+            List<Rule> rules = new ArrayList<>(groupSize());
+            for (int rule = group * groupSize(); rule < (group + 1) * groupSize() && rule < securityGroupRules; rule++) {
+                long r = random(account + "/" + region, "rule", rule);
+                int port = RULE_PORTS[(int) Long.remainderUnsigned(r, RULE_PORTS.length)];
+                int exposure = (int) Long.remainderUnsigned(r >>> 8, 100);
+                String cidr = exposure < 2 ? "0.0.0.0/0"
+                        : exposure < 3 ? "::/0"
+                        : "10." + ((r >>> 16) & 255) + ".0.0/16";
+                rules.add(new Rule(port, port, cidr));
+            }
+            page.add(new SecurityGroup(groupId(account, region, group), "mock-sg-" + group, rules));
+        }
+        return page;
+    }
+
+    public Bucket bucket(String account, int index) {
+        long r = random(account, "bucket", index);
+        List<String> bucketRegions = regions();
+        int policy = (int) Long.remainderUnsigned(r >>> 16, 100);
+        return new Bucket(
+                bucketName(account, index),
+                Instant.ofEpochSecond(EPOCH_2020 + Long.remainderUnsigned(r >>> 4, FOUR_YEARS_SECONDS)).toString(),
+                bucketRegions.isEmpty() ? "us-east-1"
+                        : bucketRegions.get((int) Long.remainderUnsigned(r >>> 32, bucketRegions.size())),
+                Long.remainderUnsigned(r, 100) < 85 ? ENCRYPTION[(int) ((r >>> 8) & 3)] : null,
+                policy < 5 ? Boolean.TRUE : policy < 25 ? Boolean.FALSE : null,
+                Long.remainderUnsigned(r >>> 24, 100) < 70,
+                ((r >>> 40) & 1) == 0);
+    }
+
+    /**
+     * The bucket called {@code name} in {@code account}, or null if there is none.
+     */
+    public Bucket bucket(String account, String name) {
+        String prefix = bucketName(account, 0);
+        prefix = prefix.substring(0, prefix.lastIndexOf('-') + 1);
+        if (!name.startsWith(prefix)) {
+            return null;
+        }
+        try {
+            int index = Integer.parseInt(name.substring(prefix.length()));
+            return index >= 0 && index < buckets ? bucket(account, index) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String bucketName(String account, int index) {
+        return String.format("mock-%s-%06d", account.toLowerCase(), index);
+    }
+
+    private String groupId(String account, String region, int group) {
+        return String.format("sg-0%016x", random(account + "/" + region, "group", group));
+    }
+
+    private int groupSize() {
+        return Math.max(1, rulesPerGroup);
+    }
+
+    private long random(String scope, String kind, long index) {
+        long hash = mix(seed ^ scope.hashCode());
+        hash = mix(hash ^ kind.hashCode());
+        return mix(hash + index * 0x9E3779B97F4A7C15L);
+    }
+
+    // SplitMix64 finaliser
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -1,19 +1,44 @@
 package com.visiblaze.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.visiblaze.config.AwsRateLimiter;
 import com.visiblaze.model.CISCheckResult;
-import com.visiblaze.model.EC2InstanceInfo;
-import com.visiblaze.model.S3BucketInfo;
+import com.visiblaze.model.DashboardSummary;
+import com.visiblaze.model.InventoryPage;
+import com.visiblaze.model.RateLimitStatus;
 import com.visiblaze.model.ScanResponse;
-import com.visiblaze.service.ScanService;
+import com.visiblaze.service.DashboardService;
+import com.visiblaze.service.ExportService;
+import com.visiblaze.service.InventoryCache;
+import com.visiblaze.service.ScanJobService;
+import com.visiblaze.service.benchmark.InventoryType;
 import com.visiblaze.service.storage.DynamoDbStorageService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
 @Slf4j
 @RestController
@@ -22,8 +47,16 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class CloudPostureController {
 
-    private final ScanService scanService;
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final ScanJobService scanJobService;
     private final DynamoDbStorageService storageService;
+    private final DashboardService dashboardService;
+    private final ExportService exportService;
+    private final InventoryCache inventoryCache;
+    private final AwsRateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
 
     @GetMapping("/health")
     public ResponseEntity<Map<String, String>> health() {
@@ -33,14 +66,36 @@ public class CloudPostureController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Starts a scan of every inventory type, or only of those in {@code scope}, a
+     * comma-separated list such as {@code ec2-instances,security-groups}.
+     */
     @PostMapping("/scan")
-    public ResponseEntity<ScanResponse> triggerScan() {
+    public ResponseEntity<ScanResponse> triggerScan(@RequestParam(required = false) String scope) {
         log.info("Received request to trigger new scan");
+        Set<InventoryType> types;
+        try {
+            types = InventoryType.parse(scope);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ScanResponse.builder()
+                    .status("REJECTED")
+                    .errors(List.of(e.getMessage()))
+                    .build());
+        }
         try {
-            ScanResponse response = scanService.executeScan();
-            return ResponseEntity.ok(response);
+            ScanResponse response = scanJobService.submitScan(types);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/scan/" + response.getScanId()))
+                    .body(response);
+        } catch (RejectedExecutionException e) {
+            log.warn("Scan queue is full", e);
+            ScanResponse errorResponse = ScanResponse.builder()
+                    .status("REJECTED")
+                    .errors(List.of("Too many scans queued, try again later"))
+                    .build();
+            return ResponseEntity.status(503).body(errorResponse);
         } catch (Exception e) {
-            log.error("Error executing scan", e);
+            log.error("Error submitting scan", e);
             ScanResponse errorResponse = ScanResponse.builder()
                     .status("FAILED")
                     .errors(List.of(e.getMessage()))
@@ -49,66 +104,281 @@ public class CloudPostureController {
         }
     }
 
+    @GetMapping("/scan/{scanId}")
+    public ResponseEntity<ScanResponse> getScanStatus(@PathVariable String scanId) {
+        return scanJobService.getScanStatus(scanId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Every stored instance as a JSON array or, when any of the paging, filter or order
+     * parameters is given, one {@link InventoryPage} of them. Only {@code publicIp=true} is
+     * read from an index (a sparse one holding just public instances), and only such a page is
+     * sorted by instance id and can be ordered {@code desc}. Other filters are applied to a
+     * Scan in table order; a dense index per low-cardinality filter would put every instance
+     * on a few hot partition keys and cost a write per index on every instance.
+     */
     @GetMapping("/instances")
-    public ResponseEntity<List<EC2InstanceInfo>> getInstances() {
+    public ResponseEntity<StreamingResponseBody> getInstances(@RequestParam(required = false) Integer limit,
+                                          @RequestParam(required = false) String cursor,
+                                          @RequestParam(required = false) String state,
+                                          @RequestParam(required = false) String region,
+                                          @RequestParam(required = false) Boolean publicIp,
+                                          @RequestParam(required = false) String order,
+                                          @RequestHeader HttpHeaders headers) {
+        if (limit != null || cursor != null || state != null || region != null || publicIp != null
+                || order != null) {
+            Map<String, String> filters = new LinkedHashMap<>();
+            if (state != null) {
+                filters.put("state", state.toLowerCase());
+            }
+            if (region != null) {
+                filters.put("region", region);
+            }
+            if (publicIp != null) {
+                filters.put("exposure", publicIp
+                        ? DynamoDbStorageService.EXPOSURE_PUBLIC : DynamoDbStorageService.EXPOSURE_PRIVATE);
+            }
+            return inventoryPage("instances", filters, limit, cursor, order, headers,
+                    storageService::getEC2InstancePage);
+        }
+
         log.info("Received request to retrieve EC2 instances");
-        try {
-            List<EC2InstanceInfo> instances = storageService.getEC2Instances();
-            return ResponseEntity.ok(instances);
-        } catch (Exception e) {
-            log.error("Error retrieving EC2 instances", e);
-            return ResponseEntity.status(500).body(List.of());
+        String etag = inventoryCache.etag("instances");
+        if (matchesETag(headers, etag)) {
+            return notModified(etag);
         }
+        return streamJsonArray(() -> inventoryCache.stream("instances", storageService::streamEC2Instances),
+                etag, "EC2 instances");
     }
 
+    /**
+     * Every stored bucket as a JSON array or, when any of the paging, filter or order
+     * parameters is given, one {@link InventoryPage} of them. Only {@code accessPolicy=PUBLIC}
+     * and {@code encrypted=false} are read from (sparse) indexes, and only such a page is sorted
+     * by bucket name and can be ordered {@code desc}. Other filters are applied to a Scan in
+     * table order, as for {@link #getInstances}.
+     */
     @GetMapping("/buckets")
-    public ResponseEntity<List<S3BucketInfo>> getBuckets() {
+    public ResponseEntity<StreamingResponseBody> getBuckets(@RequestParam(required = false) Integer limit,
+                                        @RequestParam(required = false) String cursor,
+                                        @RequestParam(required = false) String region,
+                                        @RequestParam(required = false) Boolean encrypted,
+                                        @RequestParam(required = false) String accessPolicy,
+                                        @RequestParam(required = false) String order,
+                                        @RequestHeader HttpHeaders headers) {
+        if (limit != null || cursor != null || region != null || encrypted != null || accessPolicy != null
+                || order != null) {
+            Map<String, String> filters = new LinkedHashMap<>();
+            if (accessPolicy != null) {
+                filters.put("accessPolicy", accessPolicy.toUpperCase());
+            }
+            if (encrypted != null) {
+                filters.put("encryption", encrypted
+                        ? DynamoDbStorageService.ENCRYPTION_ENABLED : DynamoDbStorageService.ENCRYPTION_DISABLED);
+            }
+            if (region != null) {
+                filters.put("region", region);
+            }
+            return inventoryPage("buckets", filters, limit, cursor, order, headers,
+                    storageService::getS3BucketPage);
+        }
+
         log.info("Received request to retrieve S3 buckets");
-        try {
-            List<S3BucketInfo> buckets = storageService.getS3Buckets();
-            return ResponseEntity.ok(buckets);
-        } catch (Exception e) {
-            log.error("Error retrieving S3 buckets", e);
-            return ResponseEntity.status(500).body(List.of());
+        String etag = inventoryCache.etag("buckets");
+        if (matchesETag(headers, etag)) {
+            return notModified(etag);
         }
+        return streamJsonArray(() -> inventoryCache.stream("buckets", storageService::streamS3Buckets),
+                etag, "S3 buckets");
     }
 
     @GetMapping("/cis-results")
-    public ResponseEntity<List<CISCheckResult>> getCISResults() {
+    public ResponseEntity<List<CISCheckResult>> getCISResults(@RequestHeader HttpHeaders headers) {
         log.info("Received request to retrieve CIS check results");
         try {
-            List<CISCheckResult> results = storageService.getCISResults();
-            return ResponseEntity.ok(results);
+            String etag = inventoryCache.etag("cis-results");
+            if (matchesETag(headers, etag)) {
+                return notModified(etag);
+            }
+            List<CISCheckResult> results = inventoryCache.get("cis-results", storageService::getCISResults);
+            return ResponseEntity.ok()
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache())
+                    .body(results);
         } catch (Exception e) {
             log.error("Error retrieving CIS results", e);
             return ResponseEntity.status(500).body(List.of());
         }
     }
 
+    /**
+     * Bulk export of {@code instances}, {@code buckets} or {@code cis-results} as NDJSON or
+     * CSV, written while it is read from DynamoDB and gzipped when the client accepts it.
+     * Unlike {@code /instances} and {@code /buckets} this bypasses the inventory cache, so
+     * exports of any size run in constant memory.
+     */
+    @GetMapping("/export/{dataset}")
+    public ResponseEntity<StreamingResponseBody> export(@PathVariable String dataset,
+                                                        @RequestParam(defaultValue = "ndjson") String format,
+                                                        @RequestHeader HttpHeaders headers) {
+        ExportService.Dataset exportDataset = ExportService.Dataset.of(dataset).orElse(null);
+        ExportService.Format exportFormat = ExportService.Format.of(format).orElse(null);
+        if (exportDataset == null || exportFormat == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        log.info("Received request to export {} as {}", exportDataset.path(), exportFormat.extension());
+        boolean gzip = headers.getOrEmpty(HttpHeaders.ACCEPT_ENCODING).stream()
+                .anyMatch(value -> value.toLowerCase().contains("gzip"));
+
+        StreamingResponseBody body = outputStream -> {
+            try {
+                if (gzip) {
+                    GZIPOutputStream compressed = new GZIPOutputStream(outputStream, 64 * 1024);
+                    exportService.export(exportDataset, exportFormat, compressed);
+                    compressed.finish();
+                } else {
+                    exportService.export(exportDataset, exportFormat, outputStream);
+                }
+            } catch (Exception e) {
+                log.error("Error exporting {}", exportDataset.path(), e);
+                throw e;
+            }
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.mediaType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\""
+                        + exportDataset.path() + "." + exportFormat.extension() + "\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .cacheControl(CacheControl.noStore());
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
     @GetMapping("/dashboard/summary")
-    public ResponseEntity<Map<String, Object>> getDashboardSummary() {
+    public ResponseEntity<DashboardSummary> getDashboardSummary() {
         log.info("Received request for dashboard summary");
         try {
-            List<EC2InstanceInfo> instances = storageService.getEC2Instances();
-            List<S3BucketInfo> buckets = storageService.getS3Buckets();
-            List<CISCheckResult> cisResults = storageService.getCISResults();
-
-            long passedChecks = cisResults.stream().filter(r -> "PASS".equals(r.getStatus())).count();
-            long failedChecks = cisResults.stream().filter(r -> "FAIL".equals(r.getStatus())).count();
-
-            Map<String, Object> summary = new HashMap<>();
-            summary.put("totalEC2Instances", instances.size());
-            summary.put("totalS3Buckets", buckets.size());
-            summary.put("totalCISChecks", cisResults.size());
-            summary.put("checksPassedCount", passedChecks);
-            summary.put("checksFailedCount", failedChecks);
-            summary.put("complianceRate",
-                    cisResults.isEmpty() ? 0 : Math.round((passedChecks * 100.0) / cisResults.size()));
-
-            return ResponseEntity.ok(summary);
+            return ResponseEntity.ok(dashboardService.getSummary());
         } catch (Exception e) {
             log.error("Error generating dashboard summary", e);
-            return ResponseEntity.status(500).body(Map.of("error", e.getMessage()));
+            return ResponseEntity.status(500).build();
         }
     }
+
+    /**
+     * Current client-side AWS request rates, one entry per service, account and region
+     * called so far.
+     */
+    @GetMapping("/rate-limits")
+    public ResponseEntity<List<RateLimitStatus>> getRateLimits() {
+        return ResponseEntity.ok(rateLimiter.status());
+    }
+
+    /**
+     * Serves one page of a listing. Pages only change when a scan completes, so they carry an
+     * ETag of the listing and its parameters.
+     */
+    private <T> ResponseEntity<StreamingResponseBody> inventoryPage(String listing, Map<String, String> filters,
+                                                                    Integer limit, String cursor, String order,
+                                                                    HttpHeaders headers, PageLoader<T> loader) {
+        int pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            return json(HttpStatus.BAD_REQUEST, Map.of("error", "limit must be between 1 and " + MAX_PAGE_SIZE));
+        }
+        if (order != null && !order.equalsIgnoreCase("asc") && !order.equalsIgnoreCase("desc")) {
+            return json(HttpStatus.BAD_REQUEST, Map.of("error", "order must be asc or desc"));
+        }
+        boolean descending = "desc".equalsIgnoreCase(order);
+        log.info("Received request for a page of {} (filters {}, limit {})", listing, filters, pageSize);
+
+        String parameters = filters + "|" + pageSize + "|" + cursor + "|" + descending;
+        String etag = inventoryCache.etag(listing + "-"
+                + UUID.nameUUIDFromBytes(parameters.getBytes(StandardCharsets.UTF_8)));
+        if (matchesETag(headers, etag)) {
+            return notModified(etag);
+        }
+        try {
+            InventoryPage<T> page = loader.load(filters, pageSize, cursor, descending);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache())
+                    .body(outputStream -> writeJson(outputStream, page));
+        } catch (IllegalArgumentException e) {
+            return json(HttpStatus.BAD_REQUEST, Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            log.warn("Cannot page {} yet: {}", listing, e.getMessage());
+            return json(HttpStatus.SERVICE_UNAVAILABLE, Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error retrieving a page of {}", listing, e);
+            return ResponseEntity.status(500).build();
+        }
+    }
+
+    /**
+     * A small JSON body for endpoints whose successful responses are streamed.
+     */
+    private ResponseEntity<StreamingResponseBody> json(HttpStatus status, Object body) {
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(outputStream -> writeJson(outputStream, body));
+    }
+
+    private void writeJson(OutputStream outputStream, Object body) throws IOException {
+        objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET).writeValue(outputStream, body);
+    }
+
+    @FunctionalInterface
+    private interface PageLoader<T> {
+        InventoryPage<T> load(Map<String, String> filters, int limit, String cursor, boolean descending);
+    }
+
+    /**
+     * Writes the stream as a JSON array while it is being read, so the full result set is
+     * never held in memory.
+     */
+    private ResponseEntity<StreamingResponseBody> streamJsonArray(Supplier<Stream<?>> source, String etag,
+                                                                  String description) {
+        StreamingResponseBody body = outputStream -> {
+            try (Stream<?> items = source.get();
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)
+                         .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+                generator.writeStartArray();
+                Iterator<?> iterator = items.iterator();
+                while (iterator.hasNext()) {
+                    generator.writeObject(iterator.next());
+                }
+                generator.writeEndArray();
+            } catch (Exception e) {
+                log.error("Error streaming {}", description, e);
+                throw e;
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(body);
+    }
+
+    private static boolean matchesETag(HttpHeaders headers, String etag) {
+        return headers.getIfNoneMatch().stream()
+                .map(tag -> tag.startsWith("W/") ? tag.substring(2) : tag)
+                .anyMatch(tag -> tag.equals(etag) || tag.equals("*"));
+    }
+
+    /**
+     * The client's copy is still current. {@code no-cache} makes browsers revalidate every
+     * time, so polling costs a 304 with no body until the next scan completes.
+     */
+    private static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .build();
+    }
 }
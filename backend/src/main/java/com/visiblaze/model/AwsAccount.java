@@ -0,0 +1,24 @@
+package com.visiblaze.model;
+
+import lombok.Value;
+
+/**
+ * An AWS account to scan. {@link #SELF} is the account of the application's own
+ * credentials; every other account is reached by assuming {@code roleArn}.
+ */
+@Value
+public class AwsAccount {
+    public static final AwsAccount SELF = new AwsAccount(null, null);
+
+    String accountId;
+    String roleArn;
+
+    public boolean isSelf() {
+        return roleArn == null;
+    }
+
+    @Override
+    public String toString() {
+        return accountId != null ? accountId : "self";
+    }
+}
@@ -18,5 +18,8 @@ public class CISCheckResult {
     private String recommendation;
     private String severity; // HIGH, MEDIUM, LOW
     private Long scanTimestamp;
+    private String scanId;
+    private String accountId;
+    private Long durationMs; // How long the check took to evaluate
     private String resourceId; // Optional: specific resource that failed
 }
@@ -0,0 +1,24 @@
+package com.visiblaze.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Dashboard totals, computed once when a scan completes and stored as a single item.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DashboardSummary {
+    private String scanId;
+    private Long generatedAt;
+    private long totalEC2Instances;
+    private long totalS3Buckets;
+    private long totalCISChecks;
+    private long checksPassedCount;
+    private long checksFailedCount;
+    private long complianceRate; // percentage of checks passed, 0-100
+}
@@ -13,6 +13,7 @@ import java.util.List;
 @AllArgsConstructor
 public class EC2InstanceInfo {
     private String instanceId;
+    private String accountId;
     private String instanceType;
     private String region;
     private String publicIp;
@@ -22,4 +23,8 @@ public class EC2InstanceInfo {
     private String availabilityZone;
     private String launchTime;
     private Long scanTimestamp;
+    /**
+     * The scan that last saw this resource; records left with an older one are swept.
+     */
+    private String scanId;
 }
@@ -0,0 +1,21 @@
+package com.visiblaze.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of an inventory listing. Pass {@code nextCursor} back as {@code cursor} for the
+ * following page; it is null on the last page.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryPage<T> {
+    private List<T> items;
+    private String nextCursor;
+}
@@ -0,0 +1,61 @@
+package com.visiblaze.model;
+
+import com.visiblaze.service.benchmark.InventoryType;
+import lombok.Builder;
+import lombok.Value;
+import software.amazon.awssdk.services.ec2.model.SecurityGroup;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable view of everything discovered in one account during one scan. It is collected once by
+ * {@code ScanService} and handed to the CIS checks so they evaluate in memory instead
+ * of calling AWS again. A {@code null} list or map means that part of the inventory could
+ * not be collected, or was not in the scan's {@code scope}; types in {@code partial} were
+ * collected from only some regions. EC2 instances are streamed straight to storage during
+ * discovery, so only their count is kept here.
+ */
+@Value
+public class InventorySnapshot {
+    String scanId;
+    AwsAccount account;
+    long collectedAt;
+    Set<InventoryType> scope;
+    Integer ec2InstanceCount;
+    List<SecurityGroup> securityGroups;
+    List<S3BucketInfo> s3Buckets;
+    /**
+     * IAM account summary values by key, e.g. {@code AccountMFAEnabled}.
+     */
+    Map<String, Integer> iamAccountSummary;
+    /**
+     * ARNs of the CloudTrail trails covering each scanned region, by region id.
+     */
+    Map<String, List<String>> trailsByRegion;
+    /**
+     * Types whose inventory is missing the regions that failed, so a check over them cannot pass.
+     */
+    Set<InventoryType> partial;
+
+    @Builder
+    private InventorySnapshot(String scanId, AwsAccount account, long collectedAt, Set<InventoryType> scope,
+                              Integer ec2InstanceCount, List<SecurityGroup> securityGroups,
+                              List<S3BucketInfo> s3Buckets, Map<String, Integer> iamAccountSummary,
+                              Map<String, List<String>> trailsByRegion, Set<InventoryType> partial) {
+        this.scanId = scanId;
+        this.account = account;
+        this.collectedAt = collectedAt;
+        this.scope = scope == null ? InventoryType.all() : Set.copyOf(scope);
+        this.ec2InstanceCount = ec2InstanceCount;
+        this.securityGroups = securityGroups == null ? null : List.copyOf(securityGroups);
+        this.s3Buckets = s3Buckets == null ? null : List.copyOf(s3Buckets);
+        this.iamAccountSummary = iamAccountSummary == null ? null : Map.copyOf(iamAccountSummary);
+        this.trailsByRegion = trailsByRegion == null ? null
+                : Collections.unmodifiableMap(new LinkedHashMap<>(trailsByRegion));
+        this.partial = partial == null ? Set.of() : Set.copyOf(partial);
+    }
+}
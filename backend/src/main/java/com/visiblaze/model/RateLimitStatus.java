@@ -0,0 +1,22 @@
+package com.visiblaze.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Current client-side rate limit for one AWS service in one account and region.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RateLimitStatus {
+    private String service;
+    private String accountId;
+    private String region;
+    private double ratePerSecond;
+    private long requests; // attempts sent, including retries
+    private long throttledRequests;
+}
@@ -11,6 +11,7 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class S3BucketInfo {
     private String bucketName;
+    private String accountId;
     private String region;
     private boolean encryptionEnabled;
     private String encryptionType;
@@ -19,4 +20,8 @@ public class S3BucketInfo {
     private boolean versioningEnabled;
     private String creationDate;
     private Long scanTimestamp;
+    /**
+     * The scan that last saw this resource; records left with an older one are swept.
+     */
+    private String scanId;
 }
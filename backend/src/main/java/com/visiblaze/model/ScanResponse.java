@@ -14,9 +14,16 @@ import java.util.List;
 public class ScanResponse {
     private String scanId;
     private String status;
+    private String phase;
+    /**
+     * Inventory types the scan covers, e.g. {@code ec2-instances}; every type for a full scan.
+     */
+    private List<String> scope;
     private Long startTime;
     private Long endTime;
+    private int accountsScanned;
     private int ec2InstancesFound;
+    private int securityGroupsFound;
     private int s3BucketsFound;
     private int checksPerformed;
     private int checksPassed;
@@ -0,0 +1,115 @@
+package com.visiblaze.service;
+
+import com.visiblaze.model.AwsAccount;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves the accounts to scan and runs per-account work concurrently, with at most
+ * {@code app.scan.max-concurrent-accounts} accounts in flight at once.
+ * <p>
+ * {@code aws.accounts} takes a comma-separated list of account ids, each scanned by assuming
+ * {@code aws.assume-role.role-name} in that account; a full role ARN may be given instead of
+ * an id. When it is empty only the application's own account is scanned.
+ */
+@Slf4j
+@Component
+public class AccountFanOut {
+
+    @Value("${aws.accounts:}")
+    private String accountList;
+
+    @Value("${aws.assume-role.role-name:CloudPostureScannerRole}")
+    private String roleName;
+
+    @Value("${app.scan.max-concurrent-accounts:8}")
+    private int maxConcurrentAccounts;
+
+    private List<AwsAccount> accounts;
+    private ExecutorService executor;
+
+    @PostConstruct
+    void start() {
+        accounts = resolveAccounts();
+        log.info("Scanning {} account(s): {}", accounts.size(), accounts);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(Math.max(1, maxConcurrentAccounts), runnable -> {
+            Thread thread = new Thread(runnable, "account-scan-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    public List<AwsAccount> accounts() {
+        return accounts;
+    }
+
+    /**
+     * Runs {@code task} once per account and waits for all of them. The task is expected to
+     * record its own failures; an exception escaping it is rethrown once every account is done.
+     *
+     * @return results keyed by account, in account order
+     */
+    public <T> Map<AwsAccount, T> forEachAccount(Function<AwsAccount, T> task) {
+        if (accounts.size() == 1) {
+            return Map.of(accounts.get(0), task.apply(accounts.get(0)));
+        }
+
+        Map<AwsAccount, CompletableFuture<T>> futures = new LinkedHashMap<>();
+        for (AwsAccount account : accounts) {
+            futures.put(account, CompletableFuture.supplyAsync(() -> task.apply(account), executor));
+        }
+        CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new)).join();
+
+        Map<AwsAccount, T> results = new LinkedHashMap<>();
+        futures.forEach((account, future) -> results.put(account, future.join()));
+        return results;
+    }
+
+    private List<AwsAccount> resolveAccounts() {
+        if (accountList == null || accountList.isBlank()) {
+            return List.of(AwsAccount.SELF);
+        }
+        return Arrays.stream(accountList.split(","))
+                .map(String::trim)
+                .filter(entry -> !entry.isEmpty())
+                .distinct()
+                .map(this::toAccount)
+                .collect(Collectors.toList());
+    }
+
+    private AwsAccount toAccount(String entry) {
+        if (entry.startsWith("arn:")) {
+            // arn:aws:iam::123456789012:role/Name
+            String[] parts = entry.split(":", 6);
+            if (parts.length < 6 || !parts[4].matches("\\d{12}")) {
+                throw new IllegalArgumentException("Invalid role ARN in aws.accounts: " + entry);
+            }
+            return new AwsAccount(parts[4], entry);
+        }
+        if (!entry.matches("\\d{12}")) {
+            throw new IllegalArgumentException("Invalid account id in aws.accounts: " + entry);
+        }
+        return new AwsAccount(entry, "arn:aws:iam::" + entry + ":role/" + roleName);
+    }
+}
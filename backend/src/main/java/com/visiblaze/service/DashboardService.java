@@ -0,0 +1,53 @@
+package com.visiblaze.service;
+
+import com.visiblaze.model.CISCheckResult;
+import com.visiblaze.model.DashboardSummary;
+import com.visiblaze.service.storage.DynamoDbStorageService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Maintains the materialized dashboard summary. It is recomputed once per completed scan,
+ * so serving the dashboard is a single item read no matter how large the inventory is.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DashboardService {
+
+    private final DynamoDbStorageService storageService;
+
+    public DashboardSummary getSummary() {
+        return storageService.getDashboardSummary().orElseGet(() -> {
+            // Nothing materialized yet, e.g. the first request after upgrading
+            log.info("No stored dashboard summary; computing it from the tables");
+            return refresh(storageService.getLatestScanId().orElse(null), storageService.getCISResults());
+        });
+    }
+
+    /**
+     * Recomputes the summary for a completed scan and stores it. Inventory totals are
+     * counted from the tables, so they match what the inventory endpoints return.
+     */
+    public DashboardSummary refresh(String scanId, List<CISCheckResult> cisResults) {
+        long passedChecks = cisResults.stream().filter(r -> "PASS".equals(r.getStatus())).count();
+        long failedChecks = cisResults.stream().filter(r -> "FAIL".equals(r.getStatus())).count();
+
+        DashboardSummary summary = DashboardSummary.builder()
+                .scanId(scanId)
+                .generatedAt(System.currentTimeMillis())
+                .totalEC2Instances(storageService.countEC2Instances())
+                .totalS3Buckets(storageService.countS3Buckets())
+                .totalCISChecks(cisResults.size())
+                .checksPassedCount(passedChecks)
+                .checksFailedCount(failedChecks)
+                .complianceRate(cisResults.isEmpty() ? 0 : Math.round((passedChecks * 100.0) / cisResults.size()))
+                .build();
+
+        storageService.storeDashboardSummary(summary);
+        return summary;
+    }
+}
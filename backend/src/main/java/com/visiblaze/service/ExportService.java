@@ -0,0 +1,211 @@
+package com.visiblaze.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.visiblaze.model.CISCheckResult;
+import com.visiblaze.model.EC2InstanceInfo;
+import com.visiblaze.model.S3BucketInfo;
+import com.visiblaze.service.storage.DynamoDbStorageService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Bulk export of stored inventory and CIS findings as NDJSON or CSV. Records are written as
+ * they are read from DynamoDB, page by page, so memory use does not grow with the size of
+ * the inventory.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ExportService {
+
+    private static final int WRITE_BUFFER_BYTES = 64 * 1024;
+
+    private static final List<Column<EC2InstanceInfo>> INSTANCE_COLUMNS = List.of(
+            new Column<>("instanceId", EC2InstanceInfo::getInstanceId),
+            new Column<>("accountId", EC2InstanceInfo::getAccountId),
+            new Column<>("region", EC2InstanceInfo::getRegion),
+            new Column<>("instanceType", EC2InstanceInfo::getInstanceType),
+            new Column<>("state", EC2InstanceInfo::getState),
+            new Column<>("publicIp", EC2InstanceInfo::getPublicIp),
+            new Column<>("privateIp", EC2InstanceInfo::getPrivateIp),
+            new Column<>("securityGroups", EC2InstanceInfo::getSecurityGroups),
+            new Column<>("availabilityZone", EC2InstanceInfo::getAvailabilityZone),
+            new Column<>("launchTime", EC2InstanceInfo::getLaunchTime),
+            new Column<>("scanTimestamp", EC2InstanceInfo::getScanTimestamp),
+            new Column<>("scanId", EC2InstanceInfo::getScanId));
+
+    private static final List<Column<S3BucketInfo>> BUCKET_COLUMNS = List.of(
+            new Column<>("bucketName", S3BucketInfo::getBucketName),
+            new Column<>("accountId", S3BucketInfo::getAccountId),
+            new Column<>("region", S3BucketInfo::getRegion),
+            new Column<>("encryptionEnabled", S3BucketInfo::isEncryptionEnabled),
+            new Column<>("encryptionType", S3BucketInfo::getEncryptionType),
+            new Column<>("accessPolicy", S3BucketInfo::getAccessPolicy),
+            new Column<>("blockPublicAccess", S3BucketInfo::isBlockPublicAccess),
+            new Column<>("versioningEnabled", S3BucketInfo::isVersioningEnabled),
+            new Column<>("creationDate", S3BucketInfo::getCreationDate),
+            new Column<>("scanTimestamp", S3BucketInfo::getScanTimestamp),
+            new Column<>("scanId", S3BucketInfo::getScanId));
+
+    private static final List<Column<CISCheckResult>> CIS_RESULT_COLUMNS = List.of(
+            new Column<>("checkId", CISCheckResult::getCheckId),
+            new Column<>("accountId", CISCheckResult::getAccountId),
+            new Column<>("checkName", CISCheckResult::getCheckName),
+            new Column<>("status", CISCheckResult::getStatus),
+            new Column<>("severity", CISCheckResult::getSeverity),
+            new Column<>("resourceId", CISCheckResult::getResourceId),
+            new Column<>("evidence", CISCheckResult::getEvidence),
+            new Column<>("recommendation", CISCheckResult::getRecommendation),
+            new Column<>("scanId", CISCheckResult::getScanId),
+            new Column<>("scanTimestamp", CISCheckResult::getScanTimestamp));
+
+    private final DynamoDbStorageService storageService;
+    private final ObjectMapper objectMapper;
+
+    public enum Dataset {
+        INSTANCES("instances"),
+        BUCKETS("buckets"),
+        CIS_RESULTS("cis-results");
+
+        private final String path;
+
+        Dataset(String path) {
+            this.path = path;
+        }
+
+        public String path() {
+            return path;
+        }
+
+        public static Optional<Dataset> of(String path) {
+            return Arrays.stream(values()).filter(dataset -> dataset.path.equalsIgnoreCase(path)).findFirst();
+        }
+    }
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String mediaType;
+        private final String extension;
+
+        Format(String mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public String mediaType() {
+            return mediaType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+
+        public static Optional<Format> of(String name) {
+            return Arrays.stream(values()).filter(format -> format.extension.equalsIgnoreCase(name)).findFirst();
+        }
+    }
+
+    /**
+     * Writes every record of {@code dataset} to {@code out}. {@code out} is flushed but not
+     * closed.
+     *
+     * @return the number of records written
+     */
+    public long export(Dataset dataset, Format format, OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        long written = switch (dataset) {
+            case INSTANCES -> write(storageService.streamEC2Instances(), INSTANCE_COLUMNS, format, out);
+            case BUCKETS -> write(storageService.streamS3Buckets(), BUCKET_COLUMNS, format, out);
+            // Only the latest scan's results, which are few; read through the scan index
+            case CIS_RESULTS -> write(storageService.getCISResults().stream(), CIS_RESULT_COLUMNS, format, out);
+        };
+        log.info("Exported {} {} as {} in {}ms", written, dataset.path(), format.extension(),
+                System.currentTimeMillis() - start);
+        return written;
+    }
+
+    private <T> long write(Stream<T> source, List<Column<T>> columns, Format format, OutputStream out)
+            throws IOException {
+        try (Stream<T> records = source) {
+            return format == Format.CSV
+                    ? writeCsv(records.iterator(), columns, out)
+                    : writeNdjson(records.iterator(), out);
+        }
+    }
+
+    private long writeNdjson(Iterator<?> records, OutputStream out) throws IOException {
+        long written = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            while (records.hasNext()) {
+                generator.writeObject(records.next());
+                generator.writeRaw('\n');
+                written++;
+            }
+        }
+        out.flush();
+        return written;
+    }
+
+    private <T> long writeCsv(Iterator<T> records, List<Column<T>> columns, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_BYTES);
+        for (int i = 0; i < columns.size(); i++) {
+            writer.write(i == 0 ? "" : ",");
+            writer.write(columns.get(i).name());
+        }
+        writer.write("\r\n");
+
+        long written = 0;
+        while (records.hasNext()) {
+            T record = records.next();
+            for (int i = 0; i < columns.size(); i++) {
+                writer.write(i == 0 ? "" : ",");
+                writeCsvValue(writer, columns.get(i).value().apply(record));
+            }
+            writer.write("\r\n");
+            written++;
+        }
+        writer.flush();
+        return written;
+    }
+
+    /**
+     * RFC 4180 quoting; lists are joined with {@code ;}.
+     */
+    private static void writeCsvValue(Writer writer, Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        String text = value instanceof Collection<?> values
+                ? String.join(";", values.stream().map(String::valueOf).toList())
+                : value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private record Column<T>(String name, Function<T, Object> value) {
+    }
+}
@@ -0,0 +1,176 @@
+package com.visiblaze.service;
+
+import com.visiblaze.service.storage.DynamoDbStorageService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Read-through cache for the inventory endpoints. Stored data only changes when a scan
+ * finishes, so entries live until the next {@link ScanCompletedEvent} and ETags are derived
+ * from the scan that produced the data.
+ * <p>
+ * At most {@code app.cache.max-entries} results are kept (least recently used first out),
+ * and results larger than {@code app.cache.max-items-per-entry} are served but not cached.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class InventoryCache {
+
+    private static final String NO_SCAN = "none";
+
+    private final DynamoDbStorageService storageService;
+
+    @Value("${app.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.cache.max-entries:64}")
+    private int maxEntries;
+
+    @Value("${app.cache.max-items-per-entry:10000}")
+    private int maxItemsPerEntry;
+
+    private final Map<String, List<?>> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, List<?>> eldest) {
+            return size() > maxEntries;
+        }
+    };
+    private long generation;
+    private volatile String version;
+
+    /**
+     * Strong ETag for {@code key} as of the latest completed scan.
+     */
+    public String etag(String key) {
+        return "\"" + version() + ":" + key + "\"";
+    }
+
+    @EventListener
+    public void onScanCompleted(ScanCompletedEvent event) {
+        synchronized (entries) {
+            entries.clear();
+            generation++;
+            version = event.getScanId();
+        }
+        log.debug("Inventory cache invalidated by scan {}", event.getScanId());
+    }
+
+    /**
+     * Returns the cached list for {@code key}, or loads and caches it.
+     */
+    public <T> List<T> get(String key, Supplier<List<T>> loader) {
+        List<T> cached = lookup(key);
+        if (cached != null) {
+            return cached;
+        }
+        long loadedGeneration = currentGeneration();
+        List<T> loaded = loader.get();
+        if (loaded.size() <= maxItemsPerEntry) {
+            store(key, loadedGeneration, List.copyOf(loaded));
+        }
+        return loaded;
+    }
+
+    /**
+     * Streams the cached list for {@code key}, or streams from {@code loader} while recording
+     * the items, and caches them once the stream has been read to the end. The caller must
+     * close the returned stream.
+     */
+    public <T> Stream<T> stream(String key, Supplier<Stream<T>> loader) {
+        List<T> cached = lookup(key);
+        if (cached != null) {
+            return cached.stream();
+        }
+        if (!enabled) {
+            return loader.get();
+        }
+
+        long loadedGeneration = currentGeneration();
+        Stream<T> source = loader.get();
+        Iterator<T> items = source.iterator();
+        Iterator<T> recording = new Iterator<>() {
+            private List<T> recorded = new ArrayList<>();
+
+            @Override
+            public boolean hasNext() {
+                boolean hasNext = items.hasNext();
+                if (!hasNext && recorded != null) {
+                    store(key, loadedGeneration, List.copyOf(recorded));
+                    recorded = null;
+                }
+                return hasNext;
+            }
+
+            @Override
+            public T next() {
+                T item = items.next();
+                if (recorded != null) {
+                    if (recorded.size() < maxItemsPerEntry) {
+                        recorded.add(item);
+                    } else {
+                        recorded = null; // too large to cache
+                    }
+                }
+                return item;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(recording, Spliterator.ORDERED), false)
+                .onClose(source::close);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> List<T> lookup(String key) {
+        if (!enabled) {
+            return null;
+        }
+        synchronized (entries) {
+            return (List<T>) entries.get(key);
+        }
+    }
+
+    private void store(String key, long loadedGeneration, List<?> value) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (entries) {
+            // Drop results loaded before a scan completed; they may predate its writes
+            if (generation == loadedGeneration) {
+                entries.put(key, value);
+            }
+        }
+    }
+
+    private long currentGeneration() {
+        synchronized (entries) {
+            return generation;
+        }
+    }
+
+    private String version() {
+        String current = version;
+        if (current == null) {
+            synchronized (entries) {
+                if (version == null) {
+                    version = storageService.getLatestScanId().orElse(NO_SCAN);
+                }
+                current = version;
+            }
+        }
+        return current;
+    }
+}
@@ -0,0 +1,14 @@
+package com.visiblaze.service;
+
+import lombok.Value;
+
+/**
+ * Published once a scan has finished writing, whatever its outcome, so anything derived
+ * from the stored inventory can be refreshed.
+ */
+@Value
+public class ScanCompletedEvent {
+    String scanId;
+    String status;
+    long completedAt;
+}
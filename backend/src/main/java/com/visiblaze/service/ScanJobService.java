@@ -0,0 +1,135 @@
+package com.visiblaze.service;
+
+import com.visiblaze.model.ScanResponse;
+import com.visiblaze.service.benchmark.InventoryType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs scans as background jobs on a dedicated bounded executor. A request that arrives
+ * while a scan covering everything it asks for is queued or running attaches to that scan
+ * instead of starting another.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ScanJobService {
+
+    private final ScanService scanService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ScanMetrics scanMetrics;
+
+    @Value("${app.scan.max-concurrent-jobs:1}")
+    private int maxConcurrentJobs;
+
+    @Value("${app.scan.queue-capacity:4}")
+    private int queueCapacity;
+
+    @Value("${app.scan.retained-jobs:20}")
+    private int retainedJobs;
+
+    private final Map<String, ScanProgress> jobs = new LinkedHashMap<>();
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(maxConcurrentJobs, maxConcurrentJobs, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+                    Thread thread = new Thread(runnable, "scan-job-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Submits a scan of {@code scope}, or returns a queued or running scan that already
+     * covers it.
+     *
+     * @throws RejectedExecutionException if the job queue is full
+     */
+    public synchronized ScanResponse submitScan(Set<InventoryType> scope) {
+        Optional<ScanProgress> covering = jobs.values().stream()
+                .filter(job -> !job.isFinished() && job.getScope().containsAll(scope))
+                .findFirst();
+        if (covering.isPresent()) {
+            log.info("Scan {} already covers {}; attaching request to it", covering.get().getScanId(), scope);
+            return covering.get().toResponse();
+        }
+
+        ScanProgress progress = new ScanProgress(UUID.randomUUID().toString(), scope);
+        executor.execute(() -> run(progress));
+        remember(progress);
+        log.info("Submitted scan {} of {}", progress.getScanId(), progress.scopeKeys());
+        return progress.toResponse();
+    }
+
+    public synchronized Optional<ScanResponse> getScanStatus(String scanId) {
+        return Optional.ofNullable(jobs.get(scanId)).map(ScanProgress::toResponse);
+    }
+
+    /**
+     * Runs one job to completion. Whatever the scan or the event listeners throw, Errors
+     * included, the job ends up finished so it never blocks pollers or later submissions.
+     */
+    private void run(ScanProgress progress) {
+        progress.started();
+        long start = System.currentTimeMillis();
+        ScanResponse response;
+        try {
+            response = scanService.executeScan(progress);
+        } catch (Throwable e) {
+            log.error("Scan {} failed", progress.getScanId(), e);
+            response = ScanResponse.builder()
+                    .scanId(progress.getScanId())
+                    .status("FAILED")
+                    .scope(progress.scopeKeys())
+                    .endTime(System.currentTimeMillis())
+                    .errors(List.of("Critical error: " + e.getMessage()))
+                    .build();
+        }
+        try {
+            scanMetrics.scanCompleted(response.getStatus(), progress.getScope().equals(InventoryType.all())
+                    ? "full" : String.join(",", progress.scopeKeys()), System.currentTimeMillis() - start);
+            // Invalidate derived data before pollers can see the scan as finished
+            eventPublisher.publishEvent(new ScanCompletedEvent(progress.getScanId(), response.getStatus(),
+                    response.getEndTime() != null ? response.getEndTime() : System.currentTimeMillis()));
+        } catch (Throwable e) {
+            log.error("Error publishing completion of scan {}", progress.getScanId(), e);
+        } finally {
+            progress.finished(response);
+        }
+    }
+
+    private void remember(ScanProgress progress) {
+        jobs.put(progress.getScanId(), progress);
+        var iterator = jobs.values().iterator();
+        while (jobs.size() > retainedJobs && iterator.hasNext()) {
+            if (iterator.next().isFinished()) {
+                iterator.remove();
+            }
+        }
+    }
+}
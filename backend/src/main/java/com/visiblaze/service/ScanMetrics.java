@@ -0,0 +1,105 @@
+package com.visiblaze.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Scan metrics, published on {@code /actuator/prometheus}:
+ * <ul>
+ *     <li>{@code scan.phase}: time per phase, recorded once per scanned account and tagged
+ *     with the {@code phase} and its {@code outcome}. Discovery phases include storing the
+ *     pages they hand off, which is also recorded on its own as {@code storage}.</li>
+ *     <li>{@code scan.duration}: end-to-end scan time, tagged with the final status.</li>
+ *     <li>{@code scan.resources.discovered}: resources found, per resource type.</li>
+ *     <li>{@code scan.discovery.throughput}: resources per second in the latest discovery of
+ *     each resource type.</li>
+ * </ul>
+ */
+@Component
+@RequiredArgsConstructor
+public class ScanMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    // Gauges hold their state weakly, so the values live here; doubles stored as raw bits
+    private final Map<String, AtomicLong> throughput = new ConcurrentHashMap<>();
+
+    /**
+     * Runs {@code work} and records how long it took under {@code phase}.
+     */
+    public <T> T time(String phase, Supplier<T> work) {
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            T result = work.get();
+            outcome = "success";
+            return result;
+        } finally {
+            Timer.builder("scan.phase")
+                    .tag("phase", phase)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void time(String phase, Runnable work) {
+        time(phase, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Counts {@code count} resources of {@code resourceType} discovered since
+     * {@code startNanos} and updates the throughput gauge for that type.
+     */
+    public void discovered(String resourceType, long count, long startNanos) {
+        Counter.builder("scan.resources.discovered")
+                .tag("type", resourceType)
+                .register(meterRegistry)
+                .increment(count);
+
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        double perSecond = seconds > 0 ? count / seconds : 0;
+        throughput.computeIfAbsent(resourceType, type -> {
+            AtomicLong bits = new AtomicLong();
+            Gauge.builder("scan.discovery.throughput", bits, value -> Double.longBitsToDouble(value.get()))
+                    .tag("type", type)
+                    .description("Resources discovered per second in the latest scan")
+                    .register(meterRegistry);
+            return bits;
+        }).set(Double.doubleToLongBits(perSecond));
+    }
+
+    /**
+     * Counts stale records of {@code resourceType} deleted after a complete discovery.
+     */
+    public void swept(String resourceType, long count) {
+        Counter.builder("scan.resources.swept")
+                .tag("type", resourceType)
+                .register(meterRegistry)
+                .increment(count);
+    }
+
+    /**
+     * @param scope {@code full}, or the comma-separated inventory types of a partial scan
+     */
+    public void scanCompleted(String status, String scope, long durationMs) {
+        Timer.builder("scan.duration")
+                .tag("status", status)
+                .tag("scope", scope)
+                .register(meterRegistry)
+                .record(durationMs, TimeUnit.MILLISECONDS);
+    }
+}
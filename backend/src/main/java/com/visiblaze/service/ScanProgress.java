@@ -0,0 +1,99 @@
+package com.visiblaze.service;
+
+import com.visiblaze.model.ScanResponse;
+import com.visiblaze.service.benchmark.InventoryType;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Live state of one scan job. {@link ScanService} reports phases and counts here while it
+ * runs, and the status endpoint reads a point-in-time copy via {@link #toResponse()}.
+ */
+public class ScanProgress {
+
+    @Getter
+    private final String scanId;
+    @Getter
+    private final Set<InventoryType> scope;
+    private final long submittedAt;
+    private final AtomicInteger ec2InstancesFound = new AtomicInteger();
+    private final AtomicInteger securityGroupsFound = new AtomicInteger();
+    private final AtomicInteger s3BucketsFound = new AtomicInteger();
+    private final AtomicInteger checksPerformed = new AtomicInteger();
+
+    private volatile String status = "QUEUED";
+    private volatile String phase = "QUEUED";
+    private volatile Long startTime;
+    private volatile ScanResponse result;
+
+    public ScanProgress(String scanId) {
+        this(scanId, InventoryType.all());
+    }
+
+    public ScanProgress(String scanId, Set<InventoryType> scope) {
+        this.scanId = scanId;
+        this.scope = Set.copyOf(scope);
+        this.submittedAt = System.currentTimeMillis();
+    }
+
+    public void started() {
+        startTime = System.currentTimeMillis();
+        status = "IN_PROGRESS";
+    }
+
+    public void phase(String phase) {
+        this.phase = phase;
+    }
+
+    public void addEc2Instances(int count) {
+        ec2InstancesFound.addAndGet(count);
+    }
+
+    public void addSecurityGroups(int count) {
+        securityGroupsFound.addAndGet(count);
+    }
+
+    public void addS3Buckets(int count) {
+        s3BucketsFound.addAndGet(count);
+    }
+
+    public void addChecks(int count) {
+        checksPerformed.addAndGet(count);
+    }
+
+    public void finished(ScanResponse response) {
+        response.setPhase("DONE");
+        result = response;
+        status = response.getStatus();
+        phase = "DONE";
+    }
+
+    public boolean isFinished() {
+        return result != null;
+    }
+
+    public List<String> scopeKeys() {
+        return scope.stream().sorted().map(InventoryType::key).toList();
+    }
+
+    public ScanResponse toResponse() {
+        ScanResponse finished = result;
+        if (finished != null) {
+            return finished;
+        }
+        return ScanResponse.builder()
+                .scanId(scanId)
+                .status(status)
+                .phase(phase)
+                .scope(scopeKeys())
+                .startTime(startTime != null ? startTime : submittedAt)
+                .ec2InstancesFound(ec2InstancesFound.get())
+                .securityGroupsFound(securityGroupsFound.get())
+                .s3BucketsFound(s3BucketsFound.get())
+                .checksPerformed(checksPerformed.get())
+                .build();
+    }
+}
@@ -0,0 +1,154 @@
+package com.visiblaze.service;
+
+import com.visiblaze.model.ScanResponse;
+import com.visiblaze.service.benchmark.InventoryType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Rescans each inventory type on its own interval. Types that fall due within a minute of
+ * each other are covered by one partial scan, and every interval is jittered so the types
+ * drift apart instead of rescanning in lockstep.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ScanScheduler {
+
+    /**
+     * Types due this soon after the earliest one are scanned with it.
+     */
+    private static final long COALESCE_WINDOW_MS = 60_000;
+    private static final long RETRY_DELAY_MS = 60_000;
+
+    private final ScanJobService scanJobService;
+
+    @Value("${app.schedule.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.schedule.initial-delay-seconds:30}")
+    private long initialDelaySeconds;
+
+    @Value("${app.schedule.jitter-fraction:0.1}")
+    private double jitterFraction;
+
+    @Value("${app.schedule.ec2-instances-minutes:5}")
+    private long ec2InstancesMinutes;
+
+    @Value("${app.schedule.security-groups-minutes:5}")
+    private long securityGroupsMinutes;
+
+    @Value("${app.schedule.s3-buckets-minutes:30}")
+    private long s3BucketsMinutes;
+
+    @Value("${app.schedule.iam-minutes:60}")
+    private long iamMinutes;
+
+    @Value("${app.schedule.cloudtrail-minutes:60}")
+    private long cloudTrailMinutes;
+
+    private final Map<InventoryType, Long> intervalsMs = new EnumMap<>(InventoryType.class);
+    private final Map<InventoryType, Long> nextRuns = new EnumMap<>(InventoryType.class);
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        interval(InventoryType.EC2_INSTANCES, ec2InstancesMinutes);
+        interval(InventoryType.SECURITY_GROUPS, securityGroupsMinutes);
+        interval(InventoryType.S3_BUCKETS, s3BucketsMinutes);
+        interval(InventoryType.IAM, iamMinutes);
+        interval(InventoryType.CLOUDTRAIL, cloudTrailMinutes);
+        if (intervalsMs.isEmpty()) {
+            log.warn("Scheduled scanning is enabled but every interval is 0; nothing will be scheduled");
+            return;
+        }
+
+        // The first run covers every scheduled type at once
+        long firstRun = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(initialDelaySeconds);
+        intervalsMs.keySet().forEach(type -> nextRuns.put(type, firstRun));
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "scan-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("Scheduled scanning every {} minutes", intervalsMs.entrySet().stream()
+                .collect(Collectors.toMap(entry -> entry.getKey().key(),
+                        entry -> TimeUnit.MILLISECONDS.toMinutes(entry.getValue()))));
+        scheduleNext();
+    }
+
+    @PreDestroy
+    void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void interval(InventoryType type, long minutes) {
+        if (minutes > 0) {
+            intervalsMs.put(type, TimeUnit.MINUTES.toMillis(minutes));
+        }
+    }
+
+    private synchronized void runDue() {
+        long now = System.currentTimeMillis();
+        Set<InventoryType> due = EnumSet.noneOf(InventoryType.class);
+        nextRuns.forEach((type, nextRun) -> {
+            if (nextRun <= now + COALESCE_WINDOW_MS) {
+                due.add(type);
+            }
+        });
+
+        if (!due.isEmpty()) {
+            try {
+                ScanResponse response = scanJobService.submitScan(due);
+                log.info("Scheduled scan {} of {}", response.getScanId(), response.getScope());
+                due.forEach(type -> nextRuns.put(type, now + jittered(intervalsMs.get(type))));
+            } catch (RejectedExecutionException e) {
+                log.warn("Scan queue is full; retrying scheduled scan of {} later", due);
+                due.forEach(type -> nextRuns.put(type, now + RETRY_DELAY_MS));
+            } catch (Exception e) {
+                log.error("Error submitting scheduled scan of {}", due, e);
+                due.forEach(type -> nextRuns.put(type, now + RETRY_DELAY_MS));
+            }
+        }
+        scheduleNext();
+    }
+
+    private synchronized void scheduleNext() {
+        long earliest = Collections.min(nextRuns.values());
+        long delay = Math.max(0, earliest - System.currentTimeMillis());
+        try {
+            scheduler.schedule(this::runDue, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.debug("Scan scheduler is shut down");
+        }
+    }
+
+    /**
+     * {@code intervalMs}, moved randomly by up to {@code jitter-fraction} either way.
+     */
+    private long jittered(long intervalMs) {
+        double jitter = Math.max(0, Math.min(1, jitterFraction));
+        return Math.round(intervalMs * (1 + jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1)));
+    }
+}
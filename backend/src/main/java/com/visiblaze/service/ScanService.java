@@ -2,16 +2,41 @@ package com.visiblaze.service;
 
 import com.visiblaze.model.*;
 import com.visiblaze.service.benchmark.CISBenchmarkService;
+import com.visiblaze.service.benchmark.InventoryType;
+import com.visiblaze.service.discovery.CloudTrailDiscoveryService;
 import com.visiblaze.service.discovery.EC2DiscoveryService;
+import com.visiblaze.service.discovery.IamDiscoveryService;
+import com.visiblaze.service.discovery.RegionResults;
 import com.visiblaze.service.discovery.S3DiscoveryService;
+import com.visiblaze.service.discovery.S3DiscoveryService.BucketDiscovery;
+import com.visiblaze.service.storage.BatchWriteResult;
 import com.visiblaze.service.storage.DynamoDbStorageService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.ec2.model.SecurityGroup;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 @Slf4j
 @Service
@@ -20,56 +45,81 @@ public class ScanService {
 
     private final EC2DiscoveryService ec2DiscoveryService;
     private final S3DiscoveryService s3DiscoveryService;
+    private final IamDiscoveryService iamDiscoveryService;
+    private final CloudTrailDiscoveryService cloudTrailDiscoveryService;
     private final CISBenchmarkService cisBenchmarkService;
     private final DynamoDbStorageService storageService;
+    private final AccountFanOut accountFanOut;
+    private final DashboardService dashboardService;
+    private final ScanMetrics scanMetrics;
 
-    public ScanResponse executeScan() {
-        String scanId = UUID.randomUUID().toString();
+    @Value("${app.scan.phase-timeout-seconds:600}")
+    private long phaseTimeoutSeconds;
+
+    @Value("${app.scan.sweep-stale-inventory:true}")
+    private boolean sweepStaleInventory;
+
+    private ExecutorService phaseExecutor;
+
+    @PostConstruct
+    void start() {
+        // Unbounded, but at most one thread per discovery branch of each account being scanned
+        AtomicInteger threadCount = new AtomicInteger();
+        phaseExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "scan-phase-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        phaseExecutor.shutdownNow();
+    }
+
+    /**
+     * Runs a scan synchronously on the calling thread, reporting phase and live counts to
+     * {@code progress}. Only the inventory types in the progress's scope are discovered, and
+     * only the checks they cover are run. Callers normally go through {@link ScanJobService}
+     * instead.
+     */
+    public ScanResponse executeScan(ScanProgress progress) {
+        String scanId = progress.getScanId();
+        Set<InventoryType> scope = progress.getScope();
         long startTime = System.currentTimeMillis();
-        List<String> errors = new ArrayList<>();
+        // Discovery branches report into this from their own threads
+        List<String> errors = Collections.synchronizedList(new ArrayList<>());
 
-        log.info("Starting scan with ID: {}", scanId);
+        log.info("Starting scan with ID: {} covering {}", scanId, progress.scopeKeys());
 
         ScanResponse.ScanResponseBuilder responseBuilder = ScanResponse.builder()
                 .scanId(scanId)
+                .scope(progress.scopeKeys())
                 .startTime(startTime)
                 .status("IN_PROGRESS");
 
         try {
-            // Ensure DynamoDB tables exist
-            storageService.createTablesIfNotExist();
-
-            // Discover EC2 instances
-            List<EC2InstanceInfo> ec2Instances = new ArrayList<>();
-            try {
-                ec2Instances = ec2DiscoveryService.discoverInstances();
-                storageService.storeEC2Instances(ec2Instances);
-            } catch (Exception e) {
-                log.error("Error discovering EC2 instances", e);
-                errors.add("EC2 Discovery: " + e.getMessage());
-            }
+            // Tables are provisioned at startup; this only does work if that failed
+            scanMetrics.time("table_bootstrap", storageService::ensureTablesReady);
 
-            // Discover S3 buckets
-            List<S3BucketInfo> s3Buckets = new ArrayList<>();
-            try {
-                s3Buckets = s3DiscoveryService.discoverBuckets();
-                storageService.storeS3Buckets(s3Buckets);
-            } catch (Exception e) {
-                log.error("Error discovering S3 buckets", e);
-                errors.add("S3 Discovery: " + e.getMessage());
-            }
+            List<String> accountErrors = Collections.synchronizedList(new ArrayList<>());
+            Map<AwsAccount, AccountScan> accountScans = accountFanOut.forEachAccount(
+                    account -> scanAccount(scanId, scope, account, progress, accountErrors));
+            errors.addAll(accountErrors);
 
-            // Run CIS benchmark checks
+            // Calculate metrics
+            int ec2InstanceCount = 0;
+            int securityGroupCount = 0;
+            int s3BucketCount = 0;
             List<CISCheckResult> cisResults = new ArrayList<>();
-            try {
-                cisResults = cisBenchmarkService.runAllChecks();
-                storageService.storeCISResults(cisResults);
-            } catch (Exception e) {
-                log.error("Error running CIS checks", e);
-                errors.add("CIS Checks: " + e.getMessage());
+            List<CISCheckResult> storedResults = new ArrayList<>();
+            for (AccountScan accountScan : accountScans.values()) {
+                ec2InstanceCount += accountScan.ec2InstanceCount();
+                securityGroupCount += accountScan.securityGroupCount();
+                s3BucketCount += accountScan.s3BucketCount();
+                cisResults.addAll(accountScan.cisResults());
+                storedResults.addAll(accountScan.storedResults());
             }
-
-            // Calculate metrics
             int checksPassed = (int) cisResults.stream()
                     .filter(r -> "PASS".equals(r.getStatus()))
                     .count();
@@ -78,21 +128,43 @@ public class ScanService {
                     .count();
 
             long endTime = System.currentTimeMillis();
+            // The summary counts stored inventory too, so a scan that only stored or swept
+            // instances or buckets still refreshes it
+            boolean inventoryChanged = scope.contains(InventoryType.EC2_INSTANCES)
+                    || scope.contains(InventoryType.S3_BUCKETS);
+            if (!cisResults.isEmpty() || inventoryChanged) {
+                try {
+                    scanMetrics.time("summary", () -> {
+                        // A partial scan replaces only the results of the checks it ran, and
+                        // a result that could not be stored leaves its check on the older one
+                        if (!storedResults.isEmpty()) {
+                            storageService.markLatestResults(storedResults);
+                            storageService.markLatestScan(scanId, endTime);
+                        }
+                        dashboardService.refresh(scanId, storageService.getCISResults());
+                    });
+                } catch (Exception e) {
+                    log.error("Error recording latest scan", e);
+                    errors.add("Scan Metadata: " + e.getMessage());
+                }
+            }
             String status = errors.isEmpty() ? "COMPLETED" : "COMPLETED_WITH_ERRORS";
 
             ScanResponse response = responseBuilder
                     .endTime(endTime)
                     .status(status)
-                    .ec2InstancesFound(ec2Instances.size())
-                    .s3BucketsFound(s3Buckets.size())
+                    .accountsScanned(accountScans.size())
+                    .ec2InstancesFound(ec2InstanceCount)
+                    .securityGroupsFound(securityGroupCount)
+                    .s3BucketsFound(s3BucketCount)
                     .checksPerformed(cisResults.size())
                     .checksPassed(checksPassed)
                     .checksFailed(checksFailed)
                     .errors(errors)
                     .build();
 
-            log.info("Scan {} completed. EC2: {}, S3: {}, Checks: {}/{} passed",
-                    scanId, ec2Instances.size(), s3Buckets.size(), checksPassed, cisResults.size());
+            log.info("Scan {} completed. Accounts: {}, EC2: {}, S3: {}, Checks: {}/{} passed",
+                    scanId, accountScans.size(), ec2InstanceCount, s3BucketCount, checksPassed, cisResults.size());
 
             return response;
 
@@ -105,4 +177,224 @@ public class ScanService {
                     .build();
         }
     }
+
+    /**
+     * Discovers, stores and checks one account. Discovery of each inventory type in scope is an
+     * independent branch, and all of them run at once; EC2 instances and S3 buckets are stored
+     * while the other branches are still discovering. The checks start once every branch is
+     * done. A branch that fails or runs longer than {@code app.scan.phase-timeout-seconds}
+     * leaves its part of the snapshot empty, so only the checks needing it report a WARNING;
+     * a branch that fails in some regions keeps what the other regions returned.
+     * Failures are added to {@code errors}, prefixed with the account id when more than one
+     * account is scanned, and never thrown.
+     */
+    private AccountScan scanAccount(String scanId, Set<InventoryType> scope, AwsAccount account,
+                                    ScanProgress progress, List<String> errors) {
+        String prefix = account.isSelf() ? "" : "[" + account.getAccountId() + "] ";
+        Set<InventoryType> partial = ConcurrentHashMap.newKeySet();
+        progress.phase("DISCOVERY");
+
+        // Discover EC2 instances, storing each page as it arrives stamped with this scan
+        CompletableFuture<Integer> ec2Instances = branch(scope, InventoryType.EC2_INSTANCES, () -> {
+            List<BatchWriteResult> stored = Collections.synchronizedList(new ArrayList<>());
+            long startedAt = System.currentTimeMillis();
+            long started = System.nanoTime();
+            RegionResults<Integer> discovered = scanMetrics.time("ec2_discovery",
+                    () -> ec2DiscoveryService.discoverInstances(account, page -> {
+                        progress.addEc2Instances(page.size());
+                        page.forEach(instance -> instance.setScanId(scanId));
+                        stored.add(scanMetrics.time("storage", () -> storageService.storeEC2Instances(page)));
+                    }));
+            int count = EC2DiscoveryService.total(discovered);
+            scanMetrics.discovered("ec2_instances", count, started);
+            reportIncomplete(prefix + "EC2 Discovery", InventoryType.EC2_INSTANCES, discovered, partial, errors);
+            reportStorageFailures(prefix + "EC2 Storage", stored, errors);
+            // The regions that were discovered were stored in full, so anything older there is gone
+            if (allWritten(stored)) {
+                List<String> regions = discovered.succeeded().stream().map(Region::id).toList();
+                sweep("ec2_instances", prefix + "EC2 Sweep", errors, () -> storageService.sweepEC2Instances(
+                        account.getAccountId(), scanId, startedAt, regions));
+            }
+            return count;
+        });
+
+        CompletableFuture<List<SecurityGroup>> securityGroups = branch(scope, InventoryType.SECURITY_GROUPS, () -> {
+            List<SecurityGroup> collected = Collections.synchronizedList(new ArrayList<>());
+            long started = System.nanoTime();
+            RegionResults<Integer> retrieved = scanMetrics.time("security_group_discovery",
+                    () -> ec2DiscoveryService.getSecurityGroups(account, page -> {
+                        progress.addSecurityGroups(page.size());
+                        collected.addAll(page);
+                    }));
+            scanMetrics.discovered("security_groups", EC2DiscoveryService.total(retrieved), started);
+            reportIncomplete(prefix + "Security Group Discovery", InventoryType.SECURITY_GROUPS, retrieved, partial, errors);
+            return collected;
+        });
+
+        CompletableFuture<List<S3BucketInfo>> s3Buckets = branch(scope, InventoryType.S3_BUCKETS, () -> {
+            long startedAt = System.currentTimeMillis();
+            long started = System.nanoTime();
+            BucketDiscovery discovery = scanMetrics.time("s3_discovery", () -> s3DiscoveryService.discoverBuckets(account));
+            List<S3BucketInfo> discovered = discovery.buckets();
+            scanMetrics.discovered("s3_buckets", discovered.size(), started);
+            // Unread buckets may be the public or unencrypted ones, so the S3 checks cannot pass
+            if (!discovery.complete()) {
+                partial.add(InventoryType.S3_BUCKETS);
+                errors.add(prefix + "S3 Discovery: " + discovery.failureMessage());
+            }
+            progress.addS3Buckets(discovered.size());
+            discovered.forEach(bucket -> bucket.setScanId(scanId));
+            List<BatchWriteResult> stored =
+                    List.of(scanMetrics.time("storage", () -> storageService.storeS3Buckets(discovered)));
+            reportStorageFailures(prefix + "S3 Storage", stored, errors);
+            // Buckets that were listed but could not be read still exist, so they are kept
+            if (allWritten(stored)) {
+                sweep("s3_buckets", prefix + "S3 Sweep", errors, () -> storageService.sweepS3Buckets(
+                        account.getAccountId(), scanId, startedAt, discovery.failedBuckets()));
+            }
+            return discovered;
+        });
+
+        CompletableFuture<Map<String, Integer>> iamAccountSummary = branch(scope, InventoryType.IAM,
+                () -> scanMetrics.time("iam_discovery", () -> iamDiscoveryService.getAccountSummary(account)));
+
+        CompletableFuture<Map<String, List<String>>> trailsByRegion = branch(scope, InventoryType.CLOUDTRAIL, () -> {
+            RegionResults<List<String>> trails = scanMetrics.time("cloudtrail_discovery",
+                    () -> cloudTrailDiscoveryService.getTrailsByRegion(account));
+            reportIncomplete(prefix + "CloudTrail Discovery", InventoryType.CLOUDTRAIL, trails, partial, errors);
+            return CloudTrailDiscoveryService.byRegionId(trails);
+        });
+
+        // Freeze the inventory so the checks evaluate it without calling AWS again
+        InventorySnapshot snapshot = InventorySnapshot.builder()
+                .scanId(scanId)
+                .account(account)
+                .scope(scope)
+                .ec2InstanceCount(await(ec2Instances, account, prefix + "EC2 Discovery", errors))
+                .securityGroups(await(securityGroups, account, prefix + "Security Group Discovery", errors))
+                .s3Buckets(await(s3Buckets, account, prefix + "S3 Discovery", errors))
+                .iamAccountSummary(await(iamAccountSummary, account, prefix + "IAM Discovery", errors))
+                .trailsByRegion(await(trailsByRegion, account, prefix + "CloudTrail Discovery", errors))
+                .partial(partial)
+                .collectedAt(System.currentTimeMillis())
+                .build();
+
+        // Run CIS benchmark checks
+        progress.phase("CIS_CHECKS");
+        List<CISCheckResult> cisResults = List.of();
+        List<CISCheckResult> storedResults = List.of();
+        try {
+            List<CISCheckResult> checked = scanMetrics.time("cis_checks", () -> cisBenchmarkService.runAllChecks(snapshot));
+            cisResults = checked;
+            progress.addChecks(checked.size());
+            BatchWriteResult stored = scanMetrics.time("storage", () -> storageService.storeCISResults(checked));
+            reportStorageFailures(prefix + "CIS Storage", List.of(stored), errors);
+            storedResults = storageService.writtenResults(checked, stored);
+        } catch (Exception e) {
+            log.error("Error running CIS checks in account {}", account, e);
+            errors.add(prefix + "CIS Checks: " + e.getMessage());
+        }
+
+        return new AccountScan(snapshot.getEc2InstanceCount() != null ? snapshot.getEc2InstanceCount() : 0,
+                sizeOf(snapshot.getSecurityGroups()), sizeOf(snapshot.getS3Buckets()), cisResults, storedResults);
+    }
+
+    /**
+     * Starts discovery of {@code type} on the phase executor, or completes with {@code null}
+     * straight away if it is not in scope. The phase timeout is armed when the branch starts
+     * running; a branch still running after it completes with a {@link TimeoutException} and
+     * its thread is interrupted, which also stops the regions it is still discovering.
+     */
+    private <T> CompletableFuture<T> branch(Set<InventoryType> scope, InventoryType type, Supplier<T> work) {
+        if (!scope.contains(type)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicReference<Future<?>> self = new AtomicReference<>();
+        FutureTask<Void> task = new FutureTask<>(() -> {
+            if (phaseTimeoutSeconds > 0) {
+                result.orTimeout(phaseTimeoutSeconds, TimeUnit.SECONDS).whenComplete((value, e) -> {
+                    if (e instanceof TimeoutException) {
+                        self.get().cancel(true);
+                    }
+                });
+            }
+            try {
+                result.complete(work.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        }, null);
+        self.set(task);
+        phaseExecutor.execute(task);
+        return result;
+    }
+
+    /**
+     * Waits for a branch, turning a failure into an entry in {@code errors} and a {@code null}
+     * (not collected) result.
+     */
+    private <T> T await(CompletableFuture<T> branch, AwsAccount account, String phase, List<String> errors) {
+        try {
+            return branch.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof TimeoutException) {
+                log.error("{} in account {} did not finish within {}s", phase, account, phaseTimeoutSeconds);
+                errors.add(phase + ": did not finish within " + phaseTimeoutSeconds + " seconds");
+            } else {
+                log.error("Error in {} in account {}", phase, account, cause);
+                errors.add(phase + ": " + cause.getMessage());
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Deletes the records of {@code resourceType} this scan did not see. Skipped when
+     * {@code app.scan.sweep-stale-inventory} is off or the branch has timed out; a failed
+     * sweep is reported but leaves the discovered inventory usable.
+     */
+    private void sweep(String resourceType, String phase, List<String> errors, Supplier<Long> sweep) {
+        if (!sweepStaleInventory || Thread.currentThread().isInterrupted()) {
+            return;
+        }
+        try {
+            scanMetrics.swept(resourceType, scanMetrics.time("sweep", sweep));
+        } catch (Exception e) {
+            log.error("Error in {}", phase, e);
+            errors.add(phase + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Records that {@code type} is missing the regions that failed, keeping what the others
+     * returned.
+     */
+    private static void reportIncomplete(String phase, InventoryType type, RegionResults<?> results,
+                                         Set<InventoryType> partial, List<String> errors) {
+        if (!results.complete()) {
+            partial.add(type);
+            errors.add(phase + ": " + results.failureMessage());
+        }
+    }
+
+    private static boolean allWritten(List<BatchWriteResult> results) {
+        return results.stream().allMatch(result -> result.getFailed() == 0);
+    }
+
+    private static void reportStorageFailures(String phase, List<BatchWriteResult> results, List<String> errors) {
+        int failed = results.stream().mapToInt(BatchWriteResult::getFailed).sum();
+        if (failed > 0) {
+            errors.add(phase + ": " + failed + " item(s) could not be written");
+        }
+    }
+
+    private static int sizeOf(List<?> inventory) {
+        return inventory != null ? inventory.size() : 0;
+    }
+
+    private record AccountScan(int ec2InstanceCount, int securityGroupCount, int s3BucketCount,
+                               List<CISCheckResult> cisResults, List<CISCheckResult> storedResults) {
+    }
 }
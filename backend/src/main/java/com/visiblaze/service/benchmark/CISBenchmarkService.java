@@ -1,298 +1,198 @@
 package com.visiblaze.service.benchmark;
 
 import com.visiblaze.model.CISCheckResult;
-import com.visiblaze.model.S3BucketInfo;
-import com.visiblaze.service.discovery.EC2DiscoveryService;
-import com.visiblaze.service.discovery.S3DiscoveryService;
+import com.visiblaze.model.InventorySnapshot;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import software.amazon.awssdk.services.cloudtrail.CloudTrailClient;
-import software.amazon.awssdk.services.cloudtrail.model.DescribeTrailsRequest;
-import software.amazon.awssdk.services.cloudtrail.model.DescribeTrailsResponse;
-import software.amazon.awssdk.services.cloudtrail.model.Trail;
-import software.amazon.awssdk.services.ec2.model.IpPermission;
-import software.amazon.awssdk.services.ec2.model.IpRange;
-import software.amazon.awssdk.services.ec2.model.SecurityGroup;
-import software.amazon.awssdk.services.iam.IamClient;
-import software.amazon.awssdk.services.iam.model.GetAccountSummaryRequest;
-import software.amazon.awssdk.services.iam.model.GetAccountSummaryResponse;
-import software.amazon.awssdk.services.iam.model.ListVirtualMfaDevicesRequest;
-import software.amazon.awssdk.services.iam.model.ListVirtualMfaDevicesResponse;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs the registered {@link CISCheck}s covered by a snapshot's scope against it. Checks are
+ * independent, so up to {@code app.checks.parallelism} of them run at once; each one is
+ * cancelled if it runs longer than {@code app.checks.timeout-seconds}.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class CISBenchmarkService {
 
-    private final S3DiscoveryService s3DiscoveryService;
-    private final EC2DiscoveryService ec2DiscoveryService;
-    private final IamClient iamClient;
-    private final CloudTrailClient cloudTrailClient;
-
-    public List<CISCheckResult> runAllChecks() {
-        log.info("Starting CIS benchmark checks...");
-        List<CISCheckResult> results = new ArrayList<>();
-
-        results.add(checkS3BucketsNotPublic());
-        results.add(checkS3BucketsEncrypted());
-        results.add(checkIAMRootMFAEnabled());
-        results.add(checkCloudTrailEnabled());
-        results.add(checkSecurityGroupsNotOpenToWorld());
+    private final List<CISCheck> checks;
+
+    @Value("${app.checks.parallelism:8}")
+    private int parallelism;
+
+    @Value("${app.checks.timeout-seconds:60}")
+    private long timeoutSeconds;
+
+    private ExecutorService executor;
+    private ScheduledExecutorService watchdog;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(Math.max(1, parallelism), runnable -> {
+            Thread thread = new Thread(runnable, "cis-check-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cis-check-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("Registered {} CIS checks", checks.size());
+    }
 
-        log.info("Completed {} CIS benchmark checks", results.size());
-        return results;
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+        watchdog.shutdownNow();
     }
 
-    /**
-     * CIS Check 1: Ensure no S3 buckets are publicly accessible
-     */
-    private CISCheckResult checkS3BucketsNotPublic() {
-        log.info("Running CIS Check: S3 Buckets Not Public");
-        try {
-            List<S3BucketInfo> buckets = s3DiscoveryService.discoverBuckets();
-            List<String> publicBuckets = new ArrayList<>();
+    public List<CISCheckResult> runAllChecks(InventorySnapshot snapshot) {
+        log.info("Starting CIS benchmark checks for scan {} in account {}...", snapshot.getScanId(), snapshot.getAccount());
 
-            for (S3BucketInfo bucket : buckets) {
-                if ("PUBLIC".equals(bucket.getAccessPolicy()) || !bucket.isBlockPublicAccess()) {
-                    publicBuckets.add(bucket.getBucketName());
-                }
+        Map<CISCheck, Future<CISCheckResult>> futures = new LinkedHashMap<>();
+        for (CISCheck check : checks) {
+            if (inScope(check, snapshot.getScope())) {
+                futures.put(check, submit(check, snapshot));
             }
+        }
 
-            if (publicBuckets.isEmpty()) {
-                return CISCheckResult.builder()
-                        .checkId("CIS-2.1.5")
-                        .checkName("S3 Buckets Not Publicly Accessible")
-                        .description("Ensure that S3 buckets are not publicly accessible")
-                        .status("PASS")
-                        .evidence(String.format("All %d S3 buckets are private", buckets.size()))
-                        .recommendation("N/A")
-                        .severity("HIGH")
-                        .scanTimestamp(System.currentTimeMillis())
-                        .build();
-            } else {
-                return CISCheckResult.builder()
-                        .checkId("CIS-2.1.5")
-                        .checkName("S3 Buckets Not Publicly Accessible")
-                        .description("Ensure that S3 buckets are not publicly accessible")
-                        .status("FAIL")
-                        .evidence(String.format("Found %d public buckets: %s",
-                                publicBuckets.size(), String.join(", ", publicBuckets)))
-                        .recommendation(
-                                "Enable S3 Block Public Access for all buckets and remove public bucket policies")
-                        .severity("HIGH")
-                        .resourceId(String.join(",", publicBuckets))
-                        .scanTimestamp(System.currentTimeMillis())
-                        .build();
-            }
-        } catch (Exception e) {
-            log.error("Error in S3 public access check", e);
-            return createErrorResult("CIS-2.1.5", "S3 Buckets Not Publicly Accessible", e);
+        List<CISCheckResult> results = new ArrayList<>(futures.size());
+        for (Map.Entry<CISCheck, Future<CISCheckResult>> entry : futures.entrySet()) {
+            results.add(await(entry.getKey(), entry.getValue()));
         }
+        results.forEach(result -> {
+            result.setScanId(snapshot.getScanId());
+            result.setAccountId(snapshot.getAccount().getAccountId());
+        });
+
+        log.info("Completed {} CIS benchmark checks", results.size());
+        return results;
     }
 
     /**
-     * CIS Check 2: Ensure all S3 buckets have encryption enabled
+     * Whether a scan of {@code scope} can evaluate {@code check}. Checks whose inventory is
+     * only partly in scope would report a WARNING, so they wait for a scan covering all of it.
      */
-    private CISCheckResult checkS3BucketsEncrypted() {
-        log.info("Running CIS Check: S3 Buckets Encrypted");
-        try {
-            List<S3BucketInfo> buckets = s3DiscoveryService.discoverBuckets();
-            List<String> unencryptedBuckets = new ArrayList<>();
-
-            for (S3BucketInfo bucket : buckets) {
-                if (!bucket.isEncryptionEnabled()) {
-                    unencryptedBuckets.add(bucket.getBucketName());
-                }
-            }
-
-            if (unencryptedBuckets.isEmpty()) {
-                return CISCheckResult.builder()
-                        .checkId("CIS-2.1.1")
-                        .checkName("S3 Bucket Encryption Enabled")
-                        .description("Ensure S3 bucket encryption is enabled")
-                        .status("PASS")
-                        .evidence(String.format("All %d S3 buckets have encryption enabled", buckets.size()))
-                        .recommendation("N/A")
-                        .severity("MEDIUM")
-                        .scanTimestamp(System.currentTimeMillis())
-                        .build();
-            } else {
-                return CISCheckResult.builder()
-                        .checkId("CIS-2.1.1")
-                        .checkName("S3 Bucket Encryption Enabled")
-                        .description("Ensure S3 bucket encryption is enabled")
-                        .status("FAIL")
-                        .evidence(String.format("Found %d unencrypted buckets: %s",
-                                unencryptedBuckets.size(), String.join(", ", unencryptedBuckets)))
-                        .recommendation("Enable default encryption (AES-256 or AWS-KMS) for all S3 buckets")
-                        .severity("MEDIUM")
-                        .resourceId(String.join(",", unencryptedBuckets))
-                        .scanTimestamp(System.currentTimeMillis())
-                        .build();
-            }
-        } catch (Exception e) {
-            log.error("Error in S3 encryption check", e);
-            return createErrorResult("CIS-2.1.1", "S3 Bucket Encryption Enabled", e);
-        }
+    private static boolean inScope(CISCheck check, Set<InventoryType> scope) {
+        Set<InventoryType> required = check.requires();
+        return required.isEmpty()
+                ? scope.containsAll(InventoryType.all())
+                : scope.containsAll(required);
     }
 
     /**
-     * CIS Check 3: Ensure IAM root account has MFA enabled
+     * Queues {@code check} and arms its timeout once it actually starts, so time spent
+     * waiting for a free thread does not count against it.
      */
-    private CISCheckResult checkIAMRootMFAEnabled() {
-        log.info("Running CIS Check: IAM Root MFA Enabled");
-        try {
-            GetAccountSummaryRequest request = GetAccountSummaryRequest.builder().build();
-            GetAccountSummaryResponse response = iamClient.getAccountSummary(request);
-
-            Integer mfaDevices = response.summaryMap().get("AccountMFAEnabled");
-            boolean mfaEnabled = mfaDevices != null && mfaDevices > 0;
-
-            if (mfaEnabled) {
-                return CISCheckResult.builder()
-                        .checkId("CIS-1.5")
-                        .checkName("IAM Root Account MFA Enabled")
-                        .description("Ensure MFA is enabled for the root account")
-                        .status("PASS")
-                        .evidence("MFA is enabled for the root account")
-                        .recommendation("N/A")
-                        .severity("HIGH")
-                        .scanTimestamp(System.currentTimeMillis())
-                        .build();
-            } else {
-                return CISCheckResult.builder()
-                        .checkId("CIS-1.5")
-                        .checkName("IAM Root Account MFA Enabled")
-                        .description("Ensure MFA is enabled for the root account")
-                        .status("FAIL")
-                        .evidence("MFA is NOT enabled for the root account")
-                        .recommendation(
-                                "Enable MFA for the root account immediately. Use virtual MFA or hardware MFA device.")
-                        .severity("HIGH")
-                        .scanTimestamp(System.currentTimeMillis())
-                        .build();
+    private Future<CISCheckResult> submit(CISCheck check, InventorySnapshot snapshot) {
+        AtomicReference<Future<CISCheckResult>> self = new AtomicReference<>();
+        FutureTask<CISCheckResult> task = new FutureTask<>(() -> {
+            ScheduledFuture<?> timeout = watchdog.schedule(() -> self.get().cancel(true),
+                    timeoutSeconds, TimeUnit.SECONDS);
+            try {
+                return runCheck(check, snapshot);
+            } finally {
+                timeout.cancel(false);
             }
-        } catch (Exception e) {
-            log.error("Error in IAM root MFA check", e);
-            return createErrorResult("CIS-1.5", "IAM Root Account MFA Enabled", e);
-        }
+        });
+        self.set(task);
+        executor.execute(task);
+        return task;
     }
 
-    /**
-     * CIS Check 4: Ensure CloudTrail is enabled
-     */
-    private CISCheckResult checkCloudTrailEnabled() {
-        log.info("Running CIS Check: CloudTrail Enabled");
+    private CISCheckResult runCheck(CISCheck check, InventorySnapshot snapshot) {
+        log.info("Running CIS Check: {}", check.getCheckName());
+        long start = System.nanoTime();
+        CISCheckResult result;
         try {
-            DescribeTrailsRequest request = DescribeTrailsRequest.builder().build();
-            DescribeTrailsResponse response = cloudTrailClient.describeTrails(request);
-
-            List<Trail> trails = response.trailList();
-            boolean hasEnabledTrail = !trails.isEmpty();
-
-            if (hasEnabledTrail) {
-                return CISCheckResult.builder()
-                        .checkId("CIS-3.1")
-                        .checkName("CloudTrail Enabled")
-                        .description("Ensure CloudTrail is enabled in all regions")
-                        .status("PASS")
-                        .evidence(String.format("Found %d CloudTrail trail(s) configured", trails.size()))
-                        .recommendation("N/A")
-                        .severity("HIGH")
-                        .scanTimestamp(System.currentTimeMillis())
-                        .build();
-            } else {
-                return CISCheckResult.builder()
-                        .checkId("CIS-3.1")
-                        .checkName("CloudTrail Enabled")
-                        .description("Ensure CloudTrail is enabled in all regions")
-                        .status("FAIL")
-                        .evidence("No CloudTrail trails found")
-                        .recommendation("Enable CloudTrail in all regions for audit logging and compliance")
-                        .severity("HIGH")
-                        .scanTimestamp(System.currentTimeMillis())
-                        .build();
+            for (InventoryType required : check.requires()) {
+                requireCollected(snapshot, required);
+            }
+            result = check.run(snapshot);
+            if ("PASS".equals(result.getStatus()) && check.requires().stream().anyMatch(snapshot.getPartial()::contains)) {
+                result.setStatus("WARNING");
+                result.setEvidence(result.getEvidence() + " (part of the inventory could not be read; see the scan errors)");
             }
         } catch (Exception e) {
-            log.error("Error in CloudTrail check", e);
-            return createErrorResult("CIS-3.1", "CloudTrail Enabled", e);
+            log.error("Error in CIS check {}", check.getCheckId(), e);
+            result = createErrorResult(check, "Error: " + e.getMessage());
         }
+        result.setDurationMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return result;
     }
 
-    /**
-     * CIS Check 5: Ensure security groups don't allow unrestricted access
-     * (0.0.0.0/0) for SSH (22) or RDP (3389)
-     */
-    private CISCheckResult checkSecurityGroupsNotOpenToWorld() {
-        log.info("Running CIS Check: Security Groups Not Open to World");
+    private CISCheckResult await(CISCheck check, Future<CISCheckResult> future) {
         try {
-            List<SecurityGroup> securityGroups = ec2DiscoveryService.getSecurityGroups();
-            List<String> offendingSGs = new ArrayList<>();
-
-            for (SecurityGroup sg : securityGroups) {
-                for (IpPermission permission : sg.ipPermissions()) {
-                    Integer fromPort = permission.fromPort();
-                    Integer toPort = permission.toPort();
-
-                    // Check for SSH (22) or RDP (3389)
-                    if ((fromPort != null && toPort != null) &&
-                            ((fromPort <= 22 && toPort >= 22) || (fromPort <= 3389 && toPort >= 3389))) {
-
-                        for (IpRange ipRange : permission.ipRanges()) {
-                            if ("0.0.0.0/0".equals(ipRange.cidrIp())) {
-                                String port = (fromPort <= 22 && toPort >= 22) ? "22 (SSH)" : "3389 (RDP)";
-                                offendingSGs.add(String.format("%s (Port %s)", sg.groupId(), port));
-                                break;
-                            }
-                        }
-                    }
-                }
-            }
+            return future.get();
+        } catch (CancellationException e) {
+            log.error("CIS check {} timed out after {}s", check.getCheckId(), timeoutSeconds);
+            CISCheckResult result = createErrorResult(check,
+                    String.format("Error: check did not finish within %d seconds", timeoutSeconds));
+            result.setDurationMs(TimeUnit.SECONDS.toMillis(timeoutSeconds));
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            return createErrorResult(check, "Error: interrupted");
+        } catch (ExecutionException e) {
+            // runCheck catches everything else; this only happens on an Error
+            return createErrorResult(check, "Error: " + e.getCause().getMessage());
+        }
+    }
 
-            if (offendingSGs.isEmpty()) {
-                return CISCheckResult.builder()
-                        .checkId("CIS-5.2")
-                        .checkName("Security Groups Restricted Access")
-                        .description("Ensure no security groups allow unrestricted access on SSH or RDP")
-                        .status("PASS")
-                        .evidence(
-                                String.format("All %d security groups are properly restricted", securityGroups.size()))
-                        .recommendation("N/A")
-                        .severity("HIGH")
-                        .scanTimestamp(System.currentTimeMillis())
-                        .build();
-            } else {
-                return CISCheckResult.builder()
-                        .checkId("CIS-5.2")
-                        .checkName("Security Groups Restricted Access")
-                        .description("Ensure no security groups allow unrestricted access on SSH or RDP")
-                        .status("FAIL")
-                        .evidence(String.format("Found %d security group(s) with unrestricted access: %s",
-                                offendingSGs.size(), String.join(", ", offendingSGs)))
-                        .recommendation(
-                                "Restrict security group rules to specific IP addresses. Never use 0.0.0.0/0 for SSH or RDP")
-                        .severity("HIGH")
-                        .resourceId(String.join(",", offendingSGs))
-                        .scanTimestamp(System.currentTimeMillis())
-                        .build();
-            }
-        } catch (Exception e) {
-            log.error("Error in security group check", e);
-            return createErrorResult("CIS-5.2", "Security Groups Restricted Access", e);
+    private void requireCollected(InventorySnapshot snapshot, InventoryType inventory) {
+        boolean collected = switch (inventory) {
+            case EC2_INSTANCES -> snapshot.getEc2InstanceCount() != null;
+            case SECURITY_GROUPS -> snapshot.getSecurityGroups() != null;
+            case S3_BUCKETS -> snapshot.getS3Buckets() != null;
+            case IAM -> snapshot.getIamAccountSummary() != null;
+            case CLOUDTRAIL -> snapshot.getTrailsByRegion() != null;
+        };
+        if (!collected) {
+            throw new IllegalStateException("Inventory of " + describe(inventory) + " was not collected in this scan");
         }
     }
 
-    private CISCheckResult createErrorResult(String checkId, String checkName, Exception e) {
+    private static String describe(InventoryType inventory) {
+        return switch (inventory) {
+            case EC2_INSTANCES -> "EC2 instances";
+            case SECURITY_GROUPS -> "security groups";
+            case S3_BUCKETS -> "S3 buckets";
+            case IAM -> "IAM";
+            case CLOUDTRAIL -> "CloudTrail";
+        };
+    }
+
+    private CISCheckResult createErrorResult(CISCheck check, String evidence) {
         return CISCheckResult.builder()
-                .checkId(checkId)
-                .checkName(checkName)
+                .checkId(check.getCheckId())
+                .checkName(check.getCheckName())
                 .description("Check encountered an error")
                 .status("WARNING")
-                .evidence("Error: " + e.getMessage())
+                .evidence(evidence)
                 .recommendation("Review AWS permissions and configuration")
                 .severity("MEDIUM")
                 .scanTimestamp(System.currentTimeMillis())
@@ -0,0 +1,30 @@
+package com.visiblaze.service.benchmark;
+
+import com.visiblaze.model.CISCheckResult;
+import com.visiblaze.model.InventorySnapshot;
+
+import java.util.Set;
+
+/**
+ * One CIS control. Implementations are Spring beans picked up by {@link CISBenchmarkService},
+ * which runs them in parallel, each with its own timeout.
+ * <p>
+ * A check runs in scans that cover everything it {@link #requires() requires}, and is
+ * skipped by scans covering none of it. If its inventory was in scope but could not be
+ * collected, the engine reports a WARNING for it. Exceptions thrown from {@link #run} are
+ * also turned into a WARNING, so implementations need not catch them.
+ */
+public interface CISCheck {
+
+    String getCheckId();
+
+    String getCheckName();
+
+    /**
+     * Inventory this check reads from the snapshot. A check requiring nothing runs only in
+     * full scans.
+     */
+    Set<InventoryType> requires();
+
+    CISCheckResult run(InventorySnapshot snapshot);
+}
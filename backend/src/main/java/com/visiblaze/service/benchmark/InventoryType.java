@@ -0,0 +1,51 @@
+package com.visiblaze.service.benchmark;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Kinds of inventory a scan can cover and a check can depend on. A scan may cover only some
+ * of them; see {@link #parse(String)}.
+ */
+public enum InventoryType {
+    EC2_INSTANCES,
+    SECURITY_GROUPS,
+    S3_BUCKETS,
+    IAM,
+    CLOUDTRAIL;
+
+    public static Set<InventoryType> all() {
+        return EnumSet.allOf(InventoryType.class);
+    }
+
+    /**
+     * Parses a comma-separated list such as {@code ec2-instances,security-groups}; blank means
+     * every type.
+     *
+     * @throws IllegalArgumentException for an unknown type
+     */
+    public static Set<InventoryType> parse(String types) {
+        if (types == null || types.isBlank()) {
+            return all();
+        }
+        Set<InventoryType> parsed = EnumSet.noneOf(InventoryType.class);
+        for (String type : types.split(",")) {
+            if (!type.isBlank()) {
+                String name = type.trim().toUpperCase().replace('-', '_');
+                parsed.add(Arrays.stream(values())
+                        .filter(value -> value.name().equals(name))
+                        .findFirst()
+                        .orElseThrow(() -> new IllegalArgumentException("Unknown inventory type: " + type.trim())));
+            }
+        }
+        return parsed.isEmpty() ? all() : parsed;
+    }
+
+    /**
+     * The lower-case, dash-separated name used in configuration and the API.
+     */
+    public String key() {
+        return name().toLowerCase().replace('_', '-');
+    }
+}
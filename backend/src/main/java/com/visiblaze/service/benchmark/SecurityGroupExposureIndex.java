@@ -0,0 +1,214 @@
+package com.visiblaze.service.benchmark;
+
+import software.amazon.awssdk.services.ec2.model.IpPermission;
+import software.amazon.awssdk.services.ec2.model.IpRange;
+import software.amazon.awssdk.services.ec2.model.Ipv6Range;
+import software.amazon.awssdk.services.ec2.model.SecurityGroup;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.regex.Pattern;
+
+/**
+ * Index over the ingress rules of a set of security groups that answers "which rules expose
+ * port X to CIDR Y" without walking every group.
+ * <p>
+ * Rule CIDRs are stored in a binary prefix trie per address family, so the rules whose CIDR
+ * contains a queried CIDR are exactly the ones on the path to it. Each trie node keeps its
+ * rules sorted by port range, and a set of ports is answered in a single sweep over them.
+ * <p>
+ * Protocol {@code -1} (all traffic) covers every port. TCP and UDP rules cover their port
+ * range. ICMP and other protocols without ports never match a port query.
+ */
+public final class SecurityGroupExposureIndex {
+
+    private static final int MAX_PORT = 65535;
+    private static final Pattern ADDRESS_LITERAL = Pattern.compile("[0-9A-Fa-f:.]+");
+
+    private final Node ipv4Root = new Node();
+    private final Node ipv6Root = new Node();
+    private final int ruleCount;
+
+    /**
+     * One ingress rule, or part of one, that opens {@code fromPort}-{@code toPort} to {@code cidr}.
+     */
+    public record Exposure(String groupId, String groupName, String protocol, int fromPort, int toPort, String cidr) {
+    }
+
+    private SecurityGroupExposureIndex(List<SecurityGroup> securityGroups) {
+        // Most rules share a handful of CIDRs, so each distinct one is parsed once
+        Map<String, Cidr> parsedCidrs = new HashMap<>();
+        int count = 0;
+        for (SecurityGroup group : securityGroups) {
+            for (IpPermission permission : group.ipPermissions()) {
+                int[] ports = portRange(permission);
+                if (ports == null) {
+                    continue;
+                }
+                for (IpRange range : permission.ipRanges()) {
+                    count += add(group, permission, ports, range.cidrIp(), parsedCidrs);
+                }
+                for (Ipv6Range range : permission.ipv6Ranges()) {
+                    count += add(group, permission, ports, range.cidrIpv6(), parsedCidrs);
+                }
+            }
+        }
+        ruleCount = count;
+        ipv4Root.seal();
+        ipv6Root.seal();
+    }
+
+    public static SecurityGroupExposureIndex build(List<SecurityGroup> securityGroups) {
+        return new SecurityGroupExposureIndex(securityGroups);
+    }
+
+    /**
+     * Number of (rule, CIDR) entries indexed.
+     */
+    public int size() {
+        return ruleCount;
+    }
+
+    public List<Exposure> exposing(int port, String cidr) {
+        return exposing(List.of(port), cidr).get(port);
+    }
+
+    /**
+     * Finds, for every port in {@code ports}, the rules that allow it from all of {@code cidr}.
+     *
+     * @return exposures keyed by port, in ascending port order; ports nothing exposes map to
+     * an empty list
+     */
+    public Map<Integer, List<Exposure>> exposing(Collection<Integer> ports, String cidr) {
+        int[] sortedPorts = ports.stream().mapToInt(Integer::intValue).distinct().sorted().toArray();
+        Map<Integer, List<Exposure>> result = new LinkedHashMap<>();
+        for (int port : sortedPorts) {
+            result.put(port, new ArrayList<>());
+        }
+
+        Cidr query = Cidr.parse(cidr);
+        Node node = query.ipv6() ? ipv6Root : ipv4Root;
+        for (int bit = 0; node != null; bit++) {
+            node.collect(sortedPorts, result);
+            if (bit == query.prefixLength()) {
+                break;
+            }
+            node = node.children[query.bit(bit)];
+        }
+        return result;
+    }
+
+    private int add(SecurityGroup group, IpPermission permission, int[] ports, String cidr,
+                    Map<String, Cidr> parsedCidrs) {
+        if (cidr == null) {
+            return 0;
+        }
+        Cidr parsed = parsedCidrs.computeIfAbsent(cidr, Cidr::parse);
+        Node node = parsed.ipv6() ? ipv6Root : ipv4Root;
+        for (int bit = 0; bit < parsed.prefixLength(); bit++) {
+            int branch = parsed.bit(bit);
+            if (node.children[branch] == null) {
+                node.children[branch] = new Node();
+            }
+            node = node.children[branch];
+        }
+        node.pending.add(new Exposure(group.groupId(), group.groupName(), permission.ipProtocol(),
+                ports[0], ports[1], cidr));
+        return 1;
+    }
+
+    /**
+     * Port range a permission opens, or {@code null} if it is not port based.
+     */
+    private static int[] portRange(IpPermission permission) {
+        String protocol = permission.ipProtocol();
+        if ("-1".equals(protocol)) {
+            return new int[]{0, MAX_PORT};
+        }
+        if ("tcp".equals(protocol) || "6".equals(protocol) || "udp".equals(protocol) || "17".equals(protocol)) {
+            Integer from = permission.fromPort();
+            Integer to = permission.toPort();
+            if (from == null || to == null || from < 0 || to < 0) {
+                return new int[]{0, MAX_PORT};
+            }
+            return new int[]{from, to};
+        }
+        return null;
+    }
+
+    private static final class Node {
+        private final Node[] children = new Node[2];
+        private List<Exposure> pending = new ArrayList<>();
+        private Exposure[] byFromPort;
+
+        void seal() {
+            byFromPort = pending.toArray(new Exposure[0]);
+            Arrays.sort(byFromPort, Comparator.comparingInt(Exposure::fromPort));
+            pending = null;
+            for (Node child : children) {
+                if (child != null) {
+                    child.seal();
+                }
+            }
+        }
+
+        /**
+         * Sweeps the queried ports in ascending order, keeping the rules that have started
+         * in a heap ordered by where they end.
+         */
+        void collect(int[] sortedPorts, Map<Integer, List<Exposure>> result) {
+            if (byFromPort.length == 0) {
+                return;
+            }
+            PriorityQueue<Exposure> open = new PriorityQueue<>(Comparator.comparingInt(Exposure::toPort));
+            int next = 0;
+            for (int port : sortedPorts) {
+                while (next < byFromPort.length && byFromPort[next].fromPort() <= port) {
+                    open.add(byFromPort[next++]);
+                }
+                while (!open.isEmpty() && open.peek().toPort() < port) {
+                    open.poll();
+                }
+                result.get(port).addAll(open);
+            }
+        }
+    }
+
+    private record Cidr(byte[] address, int prefixLength) {
+
+        static Cidr parse(String cidr) {
+            String[] parts = cidr.trim().split("/");
+            if (!ADDRESS_LITERAL.matcher(parts[0]).matches()) {
+                throw new IllegalArgumentException("Invalid CIDR: " + cidr);
+            }
+            try {
+                // Literal addresses only, so this never does a DNS lookup
+                byte[] address = InetAddress.getByName(parts[0]).getAddress();
+                int prefixLength = parts.length > 1 ? Integer.parseInt(parts[1]) : address.length * 8;
+                if (prefixLength < 0 || prefixLength > address.length * 8) {
+                    throw new IllegalArgumentException("Invalid prefix length in CIDR: " + cidr);
+                }
+                return new Cidr(address, prefixLength);
+            } catch (UnknownHostException | NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid CIDR: " + cidr, e);
+            }
+        }
+
+        boolean ipv6() {
+            return address.length == 16;
+        }
+
+        int bit(int index) {
+            return (address[index / 8] >> (7 - index % 8)) & 1;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.visiblaze.service.benchmark.checks;
+
+import com.visiblaze.model.CISCheckResult;
+import com.visiblaze.model.InventorySnapshot;
+import com.visiblaze.service.benchmark.CISCheck;
+import com.visiblaze.service.benchmark.InventoryType;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * CIS 3.1: Ensure CloudTrail is enabled in every scanned region
+ */
+@Component
+@Order(40)
+public class CloudTrailEnabledCheck implements CISCheck {
+
+    @Override
+    public String getCheckId() {
+        return "CIS-3.1";
+    }
+
+    @Override
+    public String getCheckName() {
+        return "CloudTrail Enabled";
+    }
+
+    @Override
+    public Set<InventoryType> requires() {
+        return Set.of(InventoryType.CLOUDTRAIL);
+    }
+
+    @Override
+    public CISCheckResult run(InventorySnapshot snapshot) {
+        Map<String, List<String>> trailsByRegion = snapshot.getTrailsByRegion();
+
+        List<String> regionsWithoutTrail = new ArrayList<>();
+        Set<String> trailArns = new HashSet<>();
+        trailsByRegion.forEach((region, trails) -> {
+            if (trails.isEmpty()) {
+                regionsWithoutTrail.add(region);
+            }
+            trailArns.addAll(trails);
+        });
+
+        if (regionsWithoutTrail.isEmpty()) {
+            return CISCheckResult.builder()
+                    .checkId(getCheckId())
+                    .checkName(getCheckName())
+                    .description("Ensure CloudTrail is enabled in all regions")
+                    .status("PASS")
+                    .evidence(String.format("Found %d CloudTrail trail(s) covering all %d scanned region(s)",
+                            trailArns.size(), trailsByRegion.size()))
+                    .recommendation("N/A")
+                    .severity("HIGH")
+                    .scanTimestamp(System.currentTimeMillis())
+                    .build();
+        } else {
+            return CISCheckResult.builder()
+                    .checkId(getCheckId())
+                    .checkName(getCheckName())
+                    .description("Ensure CloudTrail is enabled in all regions")
+                    .status("FAIL")
+                    .evidence(String.format("No CloudTrail trails found in %d region(s): %s",
+                            regionsWithoutTrail.size(), String.join(", ", regionsWithoutTrail)))
+                    .recommendation("Enable CloudTrail in all regions for audit logging and compliance")
+                    .severity("HIGH")
+                    .resourceId(String.join(",", regionsWithoutTrail))
+                    .scanTimestamp(System.currentTimeMillis())
+                    .build();
+        }
+    }
+}
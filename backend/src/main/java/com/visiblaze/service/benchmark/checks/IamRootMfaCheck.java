@@ -0,0 +1,65 @@
+package com.visiblaze.service.benchmark.checks;
+
+import com.visiblaze.model.CISCheckResult;
+import com.visiblaze.model.InventorySnapshot;
+import com.visiblaze.service.benchmark.CISCheck;
+import com.visiblaze.service.benchmark.InventoryType;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.iam.model.SummaryKeyType;
+
+import java.util.Set;
+
+/**
+ * CIS 1.5: Ensure IAM root account has MFA enabled
+ */
+@Component
+@Order(30)
+public class IamRootMfaCheck implements CISCheck {
+
+    @Override
+    public String getCheckId() {
+        return "CIS-1.5";
+    }
+
+    @Override
+    public String getCheckName() {
+        return "IAM Root Account MFA Enabled";
+    }
+
+    @Override
+    public Set<InventoryType> requires() {
+        return Set.of(InventoryType.IAM);
+    }
+
+    @Override
+    public CISCheckResult run(InventorySnapshot snapshot) {
+        Integer mfaDevices = snapshot.getIamAccountSummary().get(SummaryKeyType.ACCOUNT_MFA_ENABLED.toString());
+        boolean mfaEnabled = mfaDevices != null && mfaDevices > 0;
+
+        if (mfaEnabled) {
+            return CISCheckResult.builder()
+                    .checkId(getCheckId())
+                    .checkName(getCheckName())
+                    .description("Ensure MFA is enabled for the root account")
+                    .status("PASS")
+                    .evidence("MFA is enabled for the root account")
+                    .recommendation("N/A")
+                    .severity("HIGH")
+                    .scanTimestamp(System.currentTimeMillis())
+                    .build();
+        } else {
+            return CISCheckResult.builder()
+                    .checkId(getCheckId())
+                    .checkName(getCheckName())
+                    .description("Ensure MFA is enabled for the root account")
+                    .status("FAIL")
+                    .evidence("MFA is NOT enabled for the root account")
+                    .recommendation(
+                            "Enable MFA for the root account immediately. Use virtual MFA or hardware MFA device.")
+                    .severity("HIGH")
+                    .scanTimestamp(System.currentTimeMillis())
+                    .build();
+        }
+    }
+}
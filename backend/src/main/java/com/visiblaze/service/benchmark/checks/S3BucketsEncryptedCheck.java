@@ -0,0 +1,74 @@
+package com.visiblaze.service.benchmark.checks;
+
+import com.visiblaze.model.CISCheckResult;
+import com.visiblaze.model.InventorySnapshot;
+import com.visiblaze.model.S3BucketInfo;
+import com.visiblaze.service.benchmark.CISCheck;
+import com.visiblaze.service.benchmark.InventoryType;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * CIS 2.1.1: Ensure all S3 buckets have encryption enabled
+ */
+@Component
+@Order(20)
+public class S3BucketsEncryptedCheck implements CISCheck {
+
+    @Override
+    public String getCheckId() {
+        return "CIS-2.1.1";
+    }
+
+    @Override
+    public String getCheckName() {
+        return "S3 Bucket Encryption Enabled";
+    }
+
+    @Override
+    public Set<InventoryType> requires() {
+        return Set.of(InventoryType.S3_BUCKETS);
+    }
+
+    @Override
+    public CISCheckResult run(InventorySnapshot snapshot) {
+        List<S3BucketInfo> buckets = snapshot.getS3Buckets();
+        List<String> unencryptedBuckets = new ArrayList<>();
+
+        for (S3BucketInfo bucket : buckets) {
+            if (!bucket.isEncryptionEnabled()) {
+                unencryptedBuckets.add(bucket.getBucketName());
+            }
+        }
+
+        if (unencryptedBuckets.isEmpty()) {
+            return CISCheckResult.builder()
+                    .checkId(getCheckId())
+                    .checkName(getCheckName())
+                    .description("Ensure S3 bucket encryption is enabled")
+                    .status("PASS")
+                    .evidence(String.format("All %d S3 buckets have encryption enabled", buckets.size()))
+                    .recommendation("N/A")
+                    .severity("MEDIUM")
+                    .scanTimestamp(System.currentTimeMillis())
+                    .build();
+        } else {
+            return CISCheckResult.builder()
+                    .checkId(getCheckId())
+                    .checkName(getCheckName())
+                    .description("Ensure S3 bucket encryption is enabled")
+                    .status("FAIL")
+                    .evidence(String.format("Found %d unencrypted buckets: %s",
+                            unencryptedBuckets.size(), String.join(", ", unencryptedBuckets)))
+                    .recommendation("Enable default encryption (AES-256 or AWS-KMS) for all S3 buckets")
+                    .severity("MEDIUM")
+                    .resourceId(String.join(",", unencryptedBuckets))
+                    .scanTimestamp(System.currentTimeMillis())
+                    .build();
+        }
+    }
+}
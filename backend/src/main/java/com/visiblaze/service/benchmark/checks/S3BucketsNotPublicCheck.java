@@ -0,0 +1,75 @@
+package com.visiblaze.service.benchmark.checks;
+
+import com.visiblaze.model.CISCheckResult;
+import com.visiblaze.model.InventorySnapshot;
+import com.visiblaze.model.S3BucketInfo;
+import com.visiblaze.service.benchmark.CISCheck;
+import com.visiblaze.service.benchmark.InventoryType;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * CIS 2.1.5: Ensure no S3 buckets are publicly accessible
+ */
+@Component
+@Order(10)
+public class S3BucketsNotPublicCheck implements CISCheck {
+
+    @Override
+    public String getCheckId() {
+        return "CIS-2.1.5";
+    }
+
+    @Override
+    public String getCheckName() {
+        return "S3 Buckets Not Publicly Accessible";
+    }
+
+    @Override
+    public Set<InventoryType> requires() {
+        return Set.of(InventoryType.S3_BUCKETS);
+    }
+
+    @Override
+    public CISCheckResult run(InventorySnapshot snapshot) {
+        List<S3BucketInfo> buckets = snapshot.getS3Buckets();
+        List<String> publicBuckets = new ArrayList<>();
+
+        for (S3BucketInfo bucket : buckets) {
+            if ("PUBLIC".equals(bucket.getAccessPolicy()) || !bucket.isBlockPublicAccess()) {
+                publicBuckets.add(bucket.getBucketName());
+            }
+        }
+
+        if (publicBuckets.isEmpty()) {
+            return CISCheckResult.builder()
+                    .checkId(getCheckId())
+                    .checkName(getCheckName())
+                    .description("Ensure that S3 buckets are not publicly accessible")
+                    .status("PASS")
+                    .evidence(String.format("All %d S3 buckets are private", buckets.size()))
+                    .recommendation("N/A")
+                    .severity("HIGH")
+                    .scanTimestamp(System.currentTimeMillis())
+                    .build();
+        } else {
+            return CISCheckResult.builder()
+                    .checkId(getCheckId())
+                    .checkName(getCheckName())
+                    .description("Ensure that S3 buckets are not publicly accessible")
+                    .status("FAIL")
+                    .evidence(String.format("Found %d public buckets: %s",
+                            publicBuckets.size(), String.join(", ", publicBuckets)))
+                    .recommendation(
+                            "Enable S3 Block Public Access for all buckets and remove public bucket policies")
+                    .severity("HIGH")
+                    .resourceId(String.join(",", publicBuckets))
+                    .scanTimestamp(System.currentTimeMillis())
+                    .build();
+        }
+    }
+}
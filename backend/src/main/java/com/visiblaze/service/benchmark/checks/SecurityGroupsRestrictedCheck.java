@@ -0,0 +1,95 @@
+package com.visiblaze.service.benchmark.checks;
+
+import com.visiblaze.model.CISCheckResult;
+import com.visiblaze.model.InventorySnapshot;
+import com.visiblaze.service.benchmark.CISCheck;
+import com.visiblaze.service.benchmark.InventoryType;
+import com.visiblaze.service.benchmark.SecurityGroupExposureIndex;
+import com.visiblaze.service.benchmark.SecurityGroupExposureIndex.Exposure;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.ec2.model.SecurityGroup;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * CIS 5.2: Ensure security groups don't allow unrestricted access
+ * (0.0.0.0/0 or ::/0) to SSH (22) or RDP (3389), including through port ranges
+ * and all-traffic rules
+ */
+@Slf4j
+@Component
+@Order(50)
+public class SecurityGroupsRestrictedCheck implements CISCheck {
+
+    private static final Map<Integer, String> ADMIN_PORTS = Map.of(
+            22, "22 (SSH)",
+            3389, "3389 (RDP)");
+    private static final List<String> WORLD = List.of("0.0.0.0/0", "::/0");
+
+    @Override
+    public String getCheckId() {
+        return "CIS-5.2";
+    }
+
+    @Override
+    public String getCheckName() {
+        return "Security Groups Restricted Access";
+    }
+
+    @Override
+    public Set<InventoryType> requires() {
+        return Set.of(InventoryType.SECURITY_GROUPS);
+    }
+
+    @Override
+    public CISCheckResult run(InventorySnapshot snapshot) {
+        List<SecurityGroup> securityGroups = snapshot.getSecurityGroups();
+        SecurityGroupExposureIndex index = SecurityGroupExposureIndex.build(securityGroups);
+        log.debug("Indexed {} ingress rules across {} security groups", index.size(), securityGroups.size());
+
+        // One entry per group and port, however many rules or CIDRs open it
+        Set<String> offending = new LinkedHashSet<>();
+        for (String world : WORLD) {
+            for (Map.Entry<Integer, List<Exposure>> entry : index.exposing(ADMIN_PORTS.keySet(), world).entrySet()) {
+                for (Exposure exposure : entry.getValue()) {
+                    offending.add(String.format("%s (Port %s)", exposure.groupId(), ADMIN_PORTS.get(entry.getKey())));
+                }
+            }
+        }
+        List<String> offendingSGs = new ArrayList<>(offending);
+
+        if (offendingSGs.isEmpty()) {
+            return CISCheckResult.builder()
+                    .checkId(getCheckId())
+                    .checkName(getCheckName())
+                    .description("Ensure no security groups allow unrestricted access on SSH or RDP")
+                    .status("PASS")
+                    .evidence(
+                            String.format("All %d security groups are properly restricted", securityGroups.size()))
+                    .recommendation("N/A")
+                    .severity("HIGH")
+                    .scanTimestamp(System.currentTimeMillis())
+                    .build();
+        } else {
+            return CISCheckResult.builder()
+                    .checkId(getCheckId())
+                    .checkName(getCheckName())
+                    .description("Ensure no security groups allow unrestricted access on SSH or RDP")
+                    .status("FAIL")
+                    .evidence(String.format("Found %d security group(s) with unrestricted access: %s",
+                            offendingSGs.size(), String.join(", ", offendingSGs)))
+                    .recommendation(
+                            "Restrict security group rules to specific IP addresses. Never use 0.0.0.0/0 or ::/0 for SSH or RDP")
+                    .severity("HIGH")
+                    .resourceId(String.join(",", offendingSGs))
+                    .scanTimestamp(System.currentTimeMillis())
+                    .build();
+        }
+    }
+}
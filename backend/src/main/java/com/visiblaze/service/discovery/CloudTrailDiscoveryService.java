@@ -0,0 +1,47 @@
+package com.visiblaze.service.discovery;
+
+import com.visiblaze.config.AwsClientPool;
+import com.visiblaze.model.AwsAccount;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.cloudtrail.model.DescribeTrailsRequest;
+import software.amazon.awssdk.services.cloudtrail.model.Trail;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CloudTrailDiscoveryService {
+
+    private final AwsClientPool clientPool;
+    private final RegionFanOut regionFanOut;
+
+    /**
+     * ARNs of the trails covering each scan region. DescribeTrails includes multi-region
+     * trails whose home is another region.
+     *
+     * @throws RuntimeException if the trails could not be described in any region
+     */
+    public RegionResults<List<String>> getTrailsByRegion(AwsAccount account) {
+        log.info("Starting CloudTrail discovery in account {}...", account);
+        return regionFanOut.forEachRegion("describe CloudTrail trails",
+                region -> clientPool.cloudTrail(account, region)
+                        .describeTrails(DescribeTrailsRequest.builder().build())
+                        .trailList().stream()
+                        .map(Trail::trailARN)
+                        .toList());
+    }
+
+    /**
+     * Trail ARNs keyed by region id, as kept in the inventory snapshot.
+     */
+    public static Map<String, List<String>> byRegionId(RegionResults<List<String>> trails) {
+        Map<String, List<String>> trailsByRegion = new LinkedHashMap<>();
+        trails.results().forEach((region, arns) -> trailsByRegion.put(region.id(), arns));
+        return trailsByRegion;
+    }
+}
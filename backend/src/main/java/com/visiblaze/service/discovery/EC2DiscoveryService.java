@@ -1,14 +1,20 @@
 package com.visiblaze.service.discovery;
 
+import com.visiblaze.config.AwsClientPool;
+import com.visiblaze.model.AwsAccount;
 import com.visiblaze.model.EC2InstanceInfo;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.ec2.Ec2Client;
 import software.amazon.awssdk.services.ec2.model.*;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -16,42 +22,84 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class EC2DiscoveryService {
 
-    private final Ec2Client ec2Client;
+    private final AwsClientPool clientPool;
+    private final RegionFanOut regionFanOut;
 
-    public List<EC2InstanceInfo> discoverInstances() {
-        log.info("Starting EC2 instance discovery...");
-        List<EC2InstanceInfo> instances = new ArrayList<>();
+    @Value("${app.discovery.ec2.page-size:1000}")
+    private int pageSize;
 
+    public List<EC2InstanceInfo> discoverInstances(AwsAccount account) {
+        List<EC2InstanceInfo> instances = Collections.synchronizedList(new ArrayList<>());
+        discoverInstances(account, instances::addAll);
+        return instances;
+    }
+
+    /**
+     * Pages through DescribeInstances in every scan region and hands each page to
+     * {@code pageConsumer} as soon as it arrives, so callers never have to hold the whole
+     * fleet in memory. Regions are scanned concurrently, so the consumer must be thread-safe.
+     *
+     * @return the number of instances discovered per region, and the regions that failed
+     * @throws RuntimeException if discovery failed in every region
+     */
+    public RegionResults<Integer> discoverInstances(AwsAccount account, Consumer<List<EC2InstanceInfo>> pageConsumer) {
+        log.info("Starting EC2 instance discovery in account {}...", account);
         try {
-            DescribeInstancesRequest request = DescribeInstancesRequest.builder().build();
-            DescribeInstancesResponse response = ec2Client.describeInstances(request);
+            RegionResults<Integer> discovered = regionFanOut.forEachRegion("discover EC2 instances",
+                    region -> discoverInstances(account, region, pageConsumer));
+            log.info("Discovered {} EC2 instances in {} region(s)", total(discovered), discovered.results().size());
+            return discovered;
+        } catch (Exception e) {
+            log.error("Error discovering EC2 instances", e);
+            throw new RuntimeException("Failed to discover EC2 instances: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Sum of per-region counts returned by the paging methods.
+     */
+    public static int total(RegionResults<Integer> counts) {
+        return counts.results().values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    private int discoverInstances(AwsAccount account, Region region, Consumer<List<EC2InstanceInfo>> pageConsumer) {
+        Ec2Client ec2Client = clientPool.ec2(account, region);
+        int total = 0;
+
+        DescribeInstancesRequest request = DescribeInstancesRequest.builder()
+                .maxResults(pageSize)
+                .build();
 
-            for (Reservation reservation : response.reservations()) {
+        for (DescribeInstancesResponse page : ec2Client.describeInstancesPaginator(request)) {
+            List<EC2InstanceInfo> instances = new ArrayList<>();
+            for (Reservation reservation : page.reservations()) {
                 for (Instance instance : reservation.instances()) {
-                    EC2InstanceInfo instanceInfo = buildInstanceInfo(instance);
+                    EC2InstanceInfo instanceInfo = buildInstanceInfo(instance, account, region);
                     instances.add(instanceInfo);
                     log.debug("Discovered instance: {}", instanceInfo.getInstanceId());
                 }
             }
-
-            log.info("Discovered {} EC2 instances", instances.size());
-        } catch (Exception e) {
-            log.error("Error discovering EC2 instances", e);
-            throw new RuntimeException("Failed to discover EC2 instances: " + e.getMessage(), e);
+            if (!instances.isEmpty()) {
+                pageConsumer.accept(instances);
+                total += instances.size();
+            }
         }
 
-        return instances;
+        log.debug("Discovered {} EC2 instances in {}/{}", total, account, region);
+        return total;
     }
 
-    private EC2InstanceInfo buildInstanceInfo(Instance instance) {
+    // Package-private so the benchmarks module can measure it
+    EC2InstanceInfo buildInstanceInfo(Instance instance, AwsAccount account, Region region) {
         List<String> securityGroups = instance.securityGroups().stream()
                 .map(GroupIdentifier::groupId)
                 .collect(Collectors.toList());
 
         return EC2InstanceInfo.builder()
                 .instanceId(instance.instanceId())
+                .accountId(account.getAccountId())
                 .instanceType(instance.instanceType().toString())
-                .region(getRegionFromAvailabilityZone(instance.placement().availabilityZone()))
+                .region(region.id())
                 .publicIp(instance.publicIpAddress() != null ? instance.publicIpAddress() : "N/A")
                 .privateIp(instance.privateIpAddress() != null ? instance.privateIpAddress() : "N/A")
                 .state(instance.state().name().toString())
@@ -62,24 +110,44 @@ public class EC2DiscoveryService {
                 .build();
     }
 
-    private String getRegionFromAvailabilityZone(String availabilityZone) {
-        if (availabilityZone == null || availabilityZone.isEmpty()) {
-            return "unknown";
-        }
-        // Remove the last character (zone letter) to get region
-        return availabilityZone.substring(0, availabilityZone.length() - 1);
+    public List<SecurityGroup> getSecurityGroups(AwsAccount account) {
+        List<SecurityGroup> securityGroups = Collections.synchronizedList(new ArrayList<>());
+        getSecurityGroups(account, securityGroups::addAll);
+        return securityGroups;
     }
 
-    public List<SecurityGroup> getSecurityGroups() {
-        log.info("Retrieving all security groups...");
+    /**
+     * Pages through DescribeSecurityGroups in every scan region, handing each page to
+     * {@code pageConsumer}. The consumer must be thread-safe.
+     *
+     * @return the number of security groups retrieved per region, and the regions that failed
+     * @throws RuntimeException if retrieval failed in every region
+     */
+    public RegionResults<Integer> getSecurityGroups(AwsAccount account, Consumer<List<SecurityGroup>> pageConsumer) {
+        log.info("Retrieving all security groups in account {}...", account);
         try {
-            DescribeSecurityGroupsRequest request = DescribeSecurityGroupsRequest.builder().build();
-            DescribeSecurityGroupsResponse response = ec2Client.describeSecurityGroups(request);
-            log.info("Retrieved {} security groups", response.securityGroups().size());
-            return response.securityGroups();
+            RegionResults<Integer> retrieved = regionFanOut.forEachRegion("retrieve security groups",
+                    region -> getSecurityGroups(account, region, pageConsumer));
+            log.info("Retrieved {} security groups in {} region(s)", total(retrieved), retrieved.results().size());
+            return retrieved;
         } catch (Exception e) {
             log.error("Error retrieving security groups", e);
             throw new RuntimeException("Failed to retrieve security groups: " + e.getMessage(), e);
         }
     }
+
+    private int getSecurityGroups(AwsAccount account, Region region, Consumer<List<SecurityGroup>> pageConsumer) {
+        int total = 0;
+        DescribeSecurityGroupsRequest request = DescribeSecurityGroupsRequest.builder()
+                .maxResults(pageSize)
+                .build();
+
+        for (DescribeSecurityGroupsResponse page : clientPool.ec2(account, region).describeSecurityGroupsPaginator(request)) {
+            if (page.hasSecurityGroups() && !page.securityGroups().isEmpty()) {
+                pageConsumer.accept(page.securityGroups());
+                total += page.securityGroups().size();
+            }
+        }
+        return total;
+    }
 }
@@ -0,0 +1,37 @@
+package com.visiblaze.service.discovery;
+
+import com.visiblaze.config.AwsClientPool;
+import com.visiblaze.model.AwsAccount;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.iam.model.GetAccountSummaryRequest;
+
+import java.util.Map;
+
+/**
+ * Reads the account-level IAM settings the CIS checks need. IAM is global, so this is one
+ * call per account rather than one per region.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IamDiscoveryService {
+
+    private final AwsClientPool clientPool;
+
+    /**
+     * The IAM account summary, e.g. {@code AccountMFAEnabled}, keyed by summary key name.
+     */
+    public Map<String, Integer> getAccountSummary(AwsAccount account) {
+        log.info("Reading IAM account summary in account {}...", account);
+        try {
+            return Map.copyOf(clientPool.iam(account)
+                    .getAccountSummary(GetAccountSummaryRequest.builder().build())
+                    .summaryMapAsStrings());
+        } catch (Exception e) {
+            log.error("Error reading IAM account summary", e);
+            throw new RuntimeException("Failed to read IAM account summary: " + e.getMessage(), e);
+        }
+    }
+}
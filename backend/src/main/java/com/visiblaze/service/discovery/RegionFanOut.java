@@ -0,0 +1,160 @@
+package com.visiblaze.service.discovery;
+
+import com.visiblaze.config.AwsClientPool;
+import com.visiblaze.model.AwsAccount;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.ec2.model.DescribeRegionsResponse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves the regions to scan and runs regional work across them concurrently. Each call
+ * to {@link #forEachRegion} has its own budget of {@code app.discovery.max-concurrent-regions}
+ * regions in flight, so concurrent discovery branches never wait on each other's regions.
+ * <p>
+ * {@code aws.scan-regions} takes a comma-separated list of regions, or {@code all} for every
+ * region enabled in the application's own account. When it is empty only {@code aws.region}
+ * is scanned. The same regions are used for every scanned account.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RegionFanOut {
+
+    private final AwsClientPool clientPool;
+
+    @Value("${aws.region:us-east-1}")
+    private String homeRegion;
+
+    @Value("${aws.scan-regions:}")
+    private String scanRegions;
+
+    @Value("${app.discovery.max-concurrent-regions:4}")
+    private int maxConcurrentRegions;
+
+    private volatile List<Region> resolvedRegions;
+    private ExecutorService executor;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "region-discovery-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    public List<Region> regions() {
+        List<Region> regions = resolvedRegions;
+        if (regions == null) {
+            regions = resolveRegions();
+            resolvedRegions = regions;
+            log.info("Scanning {} region(s): {}", regions.size(), regions);
+        }
+        return regions;
+    }
+
+    /**
+     * Runs {@code task} once per scan region, at most {@code max-concurrent-regions} at a time,
+     * and waits for all of them. Regions that succeed keep their results even if others fail;
+     * the failed regions are returned alongside. If the calling thread is interrupted, e.g. by
+     * a phase timeout, the regions still running are interrupted and the rest never start.
+     *
+     * @throws RuntimeException if every region failed, so there is nothing to use, or the
+     *                          caller was interrupted
+     */
+    public <T> RegionResults<T> forEachRegion(String description, Function<Region, T> task) {
+        List<Region> regions = regions();
+        Map<Region, CompletableFuture<T>> futures = new LinkedHashMap<>();
+        regions.forEach(region -> futures.put(region, new CompletableFuture<>()));
+
+        // Each worker takes the next region until none are left
+        Queue<Region> pending = new ConcurrentLinkedQueue<>(regions);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < Math.min(Math.max(1, maxConcurrentRegions), regions.size()); i++) {
+            workers.add(executor.submit(() -> {
+                Region region;
+                while ((region = pending.poll()) != null) {
+                    try {
+                        futures.get(region).complete(task.apply(region));
+                    } catch (Throwable e) {
+                        futures.get(region).completeExceptionally(e);
+                    }
+                }
+            }));
+        }
+
+        Map<Region, T> results = new LinkedHashMap<>();
+        Map<Region, String> failures = new LinkedHashMap<>();
+        Throwable firstFailure = null;
+        for (Map.Entry<Region, CompletableFuture<T>> entry : futures.entrySet()) {
+            try {
+                results.put(entry.getKey(), entry.getValue().get());
+            } catch (InterruptedException e) {
+                pending.clear();
+                workers.forEach(worker -> worker.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while trying to " + description, e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                log.error("Failed to {} in {}", description, entry.getKey(), cause);
+                failures.put(entry.getKey(), cause.getMessage());
+                if (firstFailure == null) {
+                    firstFailure = cause;
+                }
+            }
+        }
+
+        RegionResults<T> outcome = new RegionResults<>(description, results, failures);
+        if (results.isEmpty() && !failures.isEmpty()) {
+            throw new RuntimeException(outcome.failureMessage(), firstFailure);
+        }
+        return outcome;
+    }
+
+    private List<Region> resolveRegions() {
+        if (scanRegions == null || scanRegions.isBlank()) {
+            return List.of(Region.of(homeRegion));
+        }
+        if ("all".equalsIgnoreCase(scanRegions.trim())) {
+            // DescribeRegions only returns regions that are enabled for the account
+            DescribeRegionsResponse response = clientPool.ec2(AwsAccount.SELF, Region.of(homeRegion)).describeRegions();
+            return response.regions().stream()
+                    .map(region -> Region.of(region.regionName()))
+                    .sorted((a, b) -> a.id().compareTo(b.id()))
+                    .collect(Collectors.toList());
+        }
+        return Arrays.stream(scanRegions.split(","))
+                .map(String::trim)
+                .filter(region -> !region.isEmpty())
+                .distinct()
+                .map(Region::of)
+                .collect(Collectors.toList());
+    }
+}
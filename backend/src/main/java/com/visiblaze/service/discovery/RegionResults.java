@@ -0,0 +1,46 @@
+package com.visiblaze.service.discovery;
+
+import software.amazon.awssdk.regions.Region;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of running regional work with {@link RegionFanOut}: the results of the regions that
+ * succeeded, in region order, and the error of each region that failed. Callers use the
+ * partial results and report the failures; only a {@link #complete()} run saw every region.
+ */
+public record RegionResults<T>(String description, Map<Region, T> results, Map<Region, String> failures) {
+
+    public RegionResults {
+        results = Collections.unmodifiableMap(new LinkedHashMap<>(results));
+        failures = Collections.unmodifiableMap(new LinkedHashMap<>(failures));
+    }
+
+    /**
+     * Whether every scan region succeeded.
+     */
+    public boolean complete() {
+        return failures.isEmpty();
+    }
+
+    /**
+     * Regions whose results are present.
+     */
+    public List<Region> succeeded() {
+        return new ArrayList<>(results.keySet());
+    }
+
+    /**
+     * A one-line description of the failed regions, e.g. for a scan's error list.
+     */
+    public String failureMessage() {
+        List<String> failed = new ArrayList<>();
+        failures.forEach((region, error) -> failed.add(region + " (" + error + ")"));
+        return String.format("Failed to %s in %d of %d region(s): %s", description, failures.size(),
+                results.size() + failures.size(), String.join("; ", failed));
+    }
+}
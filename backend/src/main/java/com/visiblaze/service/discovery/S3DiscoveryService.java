@@ -1,39 +1,60 @@
 package com.visiblaze.service.discovery;
 
+import com.visiblaze.config.AwsClientPool;
+import com.visiblaze.config.AwsRateLimiter;
+import com.visiblaze.model.AwsAccount;
 import com.visiblaze.model.S3BucketInfo;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class S3DiscoveryService {
 
-    private final S3Client s3Client;
+    private final AwsClientPool clientPool;
 
-    public List<S3BucketInfo> discoverBuckets() {
-        log.info("Starting S3 bucket discovery...");
-        List<S3BucketInfo> buckets = new ArrayList<>();
+    @Value("${app.discovery.s3.concurrent:true}")
+    private boolean concurrentDiscovery;
+
+    @Value("${app.discovery.s3.max-concurrency:32}")
+    private int maxConcurrency;
+
+    /**
+     * Discovers every bucket of {@code account}. A bucket whose attributes cannot be read is
+     * left out and named in {@link BucketDiscovery#failedBuckets()} instead.
+     */
+    public BucketDiscovery discoverBuckets(AwsAccount account) {
+        log.info("Starting S3 bucket discovery in account {}...", account);
+        List<S3BucketInfo> buckets;
+        Set<String> failedBuckets = new HashSet<>();
 
         try {
-            ListBucketsResponse response = s3Client.listBuckets();
+            ListBucketsResponse response = clientPool.s3(account).listBuckets();
 
-            for (Bucket bucket : response.buckets()) {
-                try {
-                    S3BucketInfo bucketInfo = buildBucketInfo(bucket);
-                    buckets.add(bucketInfo);
-                    log.debug("Discovered bucket: {}", bucketInfo.getBucketName());
-                } catch (Exception e) {
-                    log.warn("Error processing bucket {}: {}", bucket.name(), e.getMessage());
-                    // Continue processing other buckets
-                }
+            if (concurrentDiscovery) {
+                buckets = discoverBucketsConcurrently(clientPool.s3Async(account), response.buckets());
+            } else {
+                buckets = discoverBucketsSequentially(clientPool.s3(account), response.buckets());
             }
+            buckets.forEach(bucket -> bucket.setAccountId(account.getAccountId()));
+            response.buckets().forEach(bucket -> failedBuckets.add(bucket.name()));
+            buckets.forEach(bucket -> failedBuckets.remove(bucket.getBucketName()));
 
             log.info("Discovered {} S3 buckets", buckets.size());
         } catch (Exception e) {
@@ -41,23 +62,114 @@ public class S3DiscoveryService {
             throw new RuntimeException("Failed to discover S3 buckets: " + e.getMessage(), e);
         }
 
+        return new BucketDiscovery(buckets, failedBuckets);
+    }
+
+    private List<S3BucketInfo> discoverBucketsSequentially(S3Client s3Client, List<Bucket> bucketList) {
+        List<S3BucketInfo> buckets = new ArrayList<>();
+        for (Bucket bucket : bucketList) {
+            try {
+                S3BucketInfo bucketInfo = buildBucketInfo(s3Client, bucket);
+                buckets.add(bucketInfo);
+                log.debug("Discovered bucket: {}", bucketInfo.getBucketName());
+            } catch (Exception e) {
+                log.warn("Error processing bucket {}: {}", bucket.name(), e.getMessage());
+                // Continue processing other buckets
+            }
+        }
         return buckets;
     }
 
-    private S3BucketInfo buildBucketInfo(Bucket bucket) {
+    /**
+     * Fetches the attributes of up to {@code maxConcurrency} buckets at a time through the
+     * async client. Results keep the order returned by ListBuckets. If the calling thread is
+     * interrupted, e.g. when the scan's phase timeout gives up on S3, the requests in flight
+     * are cancelled and no more are sent.
+     */
+    private List<S3BucketInfo> discoverBucketsConcurrently(S3AsyncClient s3AsyncClient, List<Bucket> bucketList) {
+        log.debug("Fetching attributes for {} buckets with concurrency {}", bucketList.size(), maxConcurrency);
+        Semaphore permits = new Semaphore(Math.max(1, maxConcurrency));
+        List<CompletableFuture<S3BucketInfo>> futures = new ArrayList<>(bucketList.size());
+        Set<CompletableFuture<?>> requests = ConcurrentHashMap.newKeySet();
+
+        try {
+            for (Bucket bucket : bucketList) {
+                permits.acquire();
+                CompletableFuture<S3BucketInfo> future;
+                try {
+                    future = buildBucketInfoAsync(s3AsyncClient, bucket, requests);
+                } catch (Exception e) {
+                    future = CompletableFuture.failedFuture(e);
+                }
+                futures.add(future.whenComplete((info, error) -> permits.release()));
+            }
+
+            List<S3BucketInfo> buckets = new ArrayList<>(bucketList.size());
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    S3BucketInfo bucketInfo = futures.get(i).get();
+                    buckets.add(bucketInfo);
+                    log.debug("Discovered bucket: {}", bucketInfo.getBucketName());
+                } catch (ExecutionException e) {
+                    log.warn("Error processing bucket {}: {}", bucketList.get(i).name(), unwrap(e.getCause()).getMessage());
+                    // Continue processing other buckets
+                }
+            }
+            return buckets;
+        } catch (InterruptedException e) {
+            requests.forEach(request -> request.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while discovering S3 buckets", e);
+        }
+    }
+
+    private S3BucketInfo buildBucketInfo(S3Client s3Client, Bucket bucket) {
         String bucketName = bucket.name();
-        String region = getBucketRegion(bucketName);
-        boolean encryptionEnabled = isBucketEncrypted(bucketName);
-        String encryptionType = getEncryptionType(bucketName);
-        String accessPolicy = getBucketAccessPolicy(bucketName);
-        boolean blockPublicAccess = isPublicAccessBlocked(bucketName);
-        boolean versioningEnabled = isVersioningEnabled(bucketName);
+        String region = getBucketRegion(s3Client, bucketName);
+        EncryptionStatus encryption = getEncryptionStatus(s3Client, bucketName);
+        String accessPolicy = getBucketAccessPolicy(s3Client, bucketName);
+        boolean blockPublicAccess = isPublicAccessBlocked(s3Client, bucketName);
+        boolean versioningEnabled = isVersioningEnabled(s3Client, bucketName);
 
+        return toBucketInfo(bucket, region, encryption, accessPolicy, blockPublicAccess, versioningEnabled);
+    }
+
+    /**
+     * Sends the five attribute requests of {@code bucket}, keeping each in {@code requests}
+     * until it completes so it can be cancelled (cancelling a dependent stage would not abort it).
+     */
+    private CompletableFuture<S3BucketInfo> buildBucketInfoAsync(S3AsyncClient s3AsyncClient, Bucket bucket,
+                                                                 Set<CompletableFuture<?>> requests) {
+        String bucketName = bucket.name();
+
+        CompletableFuture<String> region = sent(requests, s3AsyncClient.getBucketLocation(locationRequest(bucketName)))
+                .thenApply(this::regionOf)
+                .exceptionally(e -> regionOnError(bucketName, unwrap(e)));
+        CompletableFuture<EncryptionStatus> encryption = sent(requests, s3AsyncClient.getBucketEncryption(encryptionRequest(bucketName)))
+                .thenApply(this::encryptionOf)
+                .exceptionally(e -> encryptionOnError(bucketName, unwrap(e)));
+        CompletableFuture<String> accessPolicy = sent(requests, s3AsyncClient.getBucketPolicyStatus(policyStatusRequest(bucketName)))
+                .thenApply(this::accessPolicyOf)
+                .exceptionally(e -> accessPolicyOnError(bucketName, unwrap(e)));
+        CompletableFuture<Boolean> blockPublicAccess = sent(requests, s3AsyncClient.getPublicAccessBlock(publicAccessBlockRequest(bucketName)))
+                .thenApply(this::publicAccessBlockedOf)
+                .exceptionally(e -> publicAccessBlockOnError(bucketName, unwrap(e)));
+        CompletableFuture<Boolean> versioning = sent(requests, s3AsyncClient.getBucketVersioning(versioningRequest(bucketName)))
+                .thenApply(this::versioningOf)
+                .exceptionally(e -> versioningOnError(bucketName, unwrap(e)));
+
+        return CompletableFuture.allOf(region, encryption, accessPolicy, blockPublicAccess, versioning)
+                .thenApply(ignored -> toBucketInfo(bucket, region.join(), encryption.join(), accessPolicy.join(),
+                        blockPublicAccess.join(), versioning.join()));
+    }
+
+    private S3BucketInfo toBucketInfo(Bucket bucket, String region, EncryptionStatus encryption,
+                                      String accessPolicy, boolean blockPublicAccess, boolean versioningEnabled) {
         return S3BucketInfo.builder()
-                .bucketName(bucketName)
+                .bucketName(bucket.name())
                 .region(region)
-                .encryptionEnabled(encryptionEnabled)
-                .encryptionType(encryptionType)
+                .encryptionEnabled(encryption.enabled())
+                .encryptionType(encryption.type())
                 .accessPolicy(accessPolicy)
                 .blockPublicAccess(blockPublicAccess)
                 .versioningEnabled(versioningEnabled)
@@ -66,96 +178,207 @@ public class S3DiscoveryService {
                 .build();
     }
 
-    private String getBucketRegion(String bucketName) {
+    private String getBucketRegion(S3Client s3Client, String bucketName) {
         try {
-            GetBucketLocationRequest request = GetBucketLocationRequest.builder()
-                    .bucket(bucketName)
-                    .build();
-            GetBucketLocationResponse response = s3Client.getBucketLocation(request);
-            String region = response.locationConstraintAsString();
-            return (region == null || region.isEmpty()) ? "us-east-1" : region;
+            return regionOf(s3Client.getBucketLocation(locationRequest(bucketName)));
         } catch (Exception e) {
-            log.warn("Could not get region for bucket {}: {}", bucketName, e.getMessage());
-            return "unknown";
+            return regionOnError(bucketName, e);
         }
     }
 
-    private boolean isBucketEncrypted(String bucketName) {
+    private GetBucketLocationRequest locationRequest(String bucketName) {
+        return GetBucketLocationRequest.builder()
+                .bucket(bucketName)
+                .build();
+    }
+
+    private String regionOf(GetBucketLocationResponse response) {
+        String region = response.locationConstraintAsString();
+        return (region == null || region.isEmpty()) ? "us-east-1" : region;
+    }
+
+    private String regionOnError(String bucketName, Throwable e) {
+        failIfThrottled(e);
+        log.warn("Could not get region for bucket {}: {}", bucketName, e.getMessage());
+        return "unknown";
+    }
+
+    /**
+     * Encryption state and algorithm both come from a single GetBucketEncryption call.
+     */
+    private EncryptionStatus getEncryptionStatus(S3Client s3Client, String bucketName) {
         try {
-            GetBucketEncryptionRequest request = GetBucketEncryptionRequest.builder()
-                    .bucket(bucketName)
-                    .build();
-            s3Client.getBucketEncryption(request);
-            return true;
-        } catch (S3Exception e) {
-            if (e.statusCode() == 404) {
-                return false; // No encryption configured
-            }
+            return encryptionOf(s3Client.getBucketEncryption(encryptionRequest(bucketName)));
+        } catch (Exception e) {
+            return encryptionOnError(bucketName, e);
+        }
+    }
+
+    private GetBucketEncryptionRequest encryptionRequest(String bucketName) {
+        return GetBucketEncryptionRequest.builder()
+                .bucket(bucketName)
+                .build();
+    }
+
+    private EncryptionStatus encryptionOf(GetBucketEncryptionResponse response) {
+        if (response.serverSideEncryptionConfiguration().rules().isEmpty()) {
+            return new EncryptionStatus(true, "NONE");
+        }
+        return new EncryptionStatus(true, response.serverSideEncryptionConfiguration().rules().get(0)
+                .applyServerSideEncryptionByDefault().sseAlgorithmAsString());
+    }
+
+    private EncryptionStatus encryptionOnError(String bucketName, Throwable e) {
+        failIfThrottled(e);
+        if (!(e instanceof S3Exception s3Exception)) {
+            throw propagate(e);
+        }
+        if (s3Exception.statusCode() != 404) {
             log.warn("Error checking encryption for bucket {}: {}", bucketName, e.getMessage());
-            return false;
         }
+        return EncryptionStatus.NONE; // 404 means no encryption configured
     }
 
-    private String getEncryptionType(String bucketName) {
+    private String getBucketAccessPolicy(S3Client s3Client, String bucketName) {
         try {
-            GetBucketEncryptionRequest request = GetBucketEncryptionRequest.builder()
-                    .bucket(bucketName)
-                    .build();
-            GetBucketEncryptionResponse response = s3Client.getBucketEncryption(request);
-            if (response.serverSideEncryptionConfiguration().rules().isEmpty()) {
-                return "NONE";
-            }
-            return response.serverSideEncryptionConfiguration().rules().get(0)
-                    .applyServerSideEncryptionByDefault().sseAlgorithmAsString();
+            return accessPolicyOf(s3Client.getBucketPolicyStatus(policyStatusRequest(bucketName)));
         } catch (Exception e) {
-            return "NONE";
+            return accessPolicyOnError(bucketName, e);
         }
     }
 
-    private String getBucketAccessPolicy(String bucketName) {
-        try {
-            GetBucketPolicyStatusRequest request = GetBucketPolicyStatusRequest.builder()
-                    .bucket(bucketName)
-                    .build();
-            GetBucketPolicyStatusResponse response = s3Client.getBucketPolicyStatus(request);
-            return response.policyStatus().isPublic() ? "PUBLIC" : "PRIVATE";
-        } catch (S3Exception e) {
-            if (e.statusCode() == 404) {
-                return "PRIVATE"; // No policy means private
-            }
-            log.warn("Error checking policy for bucket {}: {}", bucketName, e.getMessage());
-            return "UNKNOWN";
+    private GetBucketPolicyStatusRequest policyStatusRequest(String bucketName) {
+        return GetBucketPolicyStatusRequest.builder()
+                .bucket(bucketName)
+                .build();
+    }
+
+    private String accessPolicyOf(GetBucketPolicyStatusResponse response) {
+        return response.policyStatus().isPublic() ? "PUBLIC" : "PRIVATE";
+    }
+
+    private String accessPolicyOnError(String bucketName, Throwable e) {
+        failIfThrottled(e);
+        if (!(e instanceof S3Exception s3Exception)) {
+            throw propagate(e);
         }
+        if (s3Exception.statusCode() == 404) {
+            return "PRIVATE"; // No policy means private
+        }
+        log.warn("Error checking policy for bucket {}: {}", bucketName, e.getMessage());
+        return "UNKNOWN";
     }
 
-    private boolean isPublicAccessBlocked(String bucketName) {
+    private boolean isPublicAccessBlocked(S3Client s3Client, String bucketName) {
         try {
-            GetPublicAccessBlockRequest request = GetPublicAccessBlockRequest.builder()
-                    .bucket(bucketName)
-                    .build();
-            GetPublicAccessBlockResponse response = s3Client.getPublicAccessBlock(request);
-            PublicAccessBlockConfiguration config = response.publicAccessBlockConfiguration();
-            return config.blockPublicAcls() && config.blockPublicPolicy() &&
-                    config.ignorePublicAcls() && config.restrictPublicBuckets();
-        } catch (S3Exception e) {
-            if (e.statusCode() == 404) {
-                return false; // No public access block configured
-            }
+            return publicAccessBlockedOf(s3Client.getPublicAccessBlock(publicAccessBlockRequest(bucketName)));
+        } catch (Exception e) {
+            return publicAccessBlockOnError(bucketName, e);
+        }
+    }
+
+    private GetPublicAccessBlockRequest publicAccessBlockRequest(String bucketName) {
+        return GetPublicAccessBlockRequest.builder()
+                .bucket(bucketName)
+                .build();
+    }
+
+    private boolean publicAccessBlockedOf(GetPublicAccessBlockResponse response) {
+        PublicAccessBlockConfiguration config = response.publicAccessBlockConfiguration();
+        return config.blockPublicAcls() && config.blockPublicPolicy() &&
+                config.ignorePublicAcls() && config.restrictPublicBuckets();
+    }
+
+    private boolean publicAccessBlockOnError(String bucketName, Throwable e) {
+        failIfThrottled(e);
+        if (!(e instanceof S3Exception s3Exception)) {
+            throw propagate(e);
+        }
+        if (s3Exception.statusCode() != 404) {
             log.warn("Error checking public access block for bucket {}: {}", bucketName, e.getMessage());
-            return false;
         }
+        return false; // 404 means no public access block configured
     }
 
-    private boolean isVersioningEnabled(String bucketName) {
+    private boolean isVersioningEnabled(S3Client s3Client, String bucketName) {
         try {
-            GetBucketVersioningRequest request = GetBucketVersioningRequest.builder()
-                    .bucket(bucketName)
-                    .build();
-            GetBucketVersioningResponse response = s3Client.getBucketVersioning(request);
-            return response.status() == BucketVersioningStatus.ENABLED;
+            return versioningOf(s3Client.getBucketVersioning(versioningRequest(bucketName)));
         } catch (Exception e) {
-            log.warn("Error checking versioning for bucket {}: {}", bucketName, e.getMessage());
-            return false;
+            return versioningOnError(bucketName, e);
+        }
+    }
+
+    private GetBucketVersioningRequest versioningRequest(String bucketName) {
+        return GetBucketVersioningRequest.builder()
+                .bucket(bucketName)
+                .build();
+    }
+
+    private boolean versioningOf(GetBucketVersioningResponse response) {
+        return response.status() == BucketVersioningStatus.ENABLED;
+    }
+
+    private boolean versioningOnError(String bucketName, Throwable e) {
+        failIfThrottled(e);
+        log.warn("Error checking versioning for bucket {}: {}", bucketName, e.getMessage());
+        return false;
+    }
+
+    /**
+     * A throttled call never saw the bucket's configuration, so it must not be read as
+     * "not configured". Failing instead drops the bucket into
+     * {@link BucketDiscovery#failedBuckets()}, so the scan reports its S3 inventory as
+     * partial rather than recording a false finding for it.
+     */
+    private static void failIfThrottled(Throwable e) {
+        if (AwsRateLimiter.isThrottling(e)) {
+            throw propagate(e);
+        }
+    }
+
+    private static <T> CompletableFuture<T> sent(Set<CompletableFuture<?>> requests, CompletableFuture<T> request) {
+        requests.add(request);
+        request.whenComplete((response, error) -> requests.remove(request));
+        return request;
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    private static RuntimeException propagate(Throwable e) {
+        return e instanceof RuntimeException runtimeException ? runtimeException : new CompletionException(e);
+    }
+
+    private record EncryptionStatus(boolean enabled, String type) {
+        static final EncryptionStatus NONE = new EncryptionStatus(false, "NONE");
+    }
+
+    /**
+     * @param buckets       buckets whose attributes were read
+     * @param failedBuckets names of listed buckets whose attributes could not be read
+     */
+    public record BucketDiscovery(List<S3BucketInfo> buckets, Set<String> failedBuckets) {
+
+        private static final int MAX_NAMED_BUCKETS = 10;
+
+        /**
+         * Whether every listed bucket was read.
+         */
+        public boolean complete() {
+            return failedBuckets.isEmpty();
+        }
+
+        /**
+         * A one-line description of the buckets that could not be read, e.g. for a scan's
+         * error list. At most {@value #MAX_NAMED_BUCKETS} are named.
+         */
+        public String failureMessage() {
+            List<String> named = failedBuckets.stream().sorted().limit(MAX_NAMED_BUCKETS).toList();
+            String more = failedBuckets.size() > named.size()
+                    ? " and " + (failedBuckets.size() - named.size()) + " more" : "";
+            return String.format("Failed to read %d of %d bucket(s): %s%s", failedBuckets.size(),
+                    buckets.size() + failedBuckets.size(), String.join(", ", named), more);
         }
     }
 }
@@ -0,0 +1,41 @@
+package com.visiblaze.service.storage;
+
+import lombok.ToString;
+import lombok.Value;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of a bulk write: how many items DynamoDB accepted, and the items that were given
+ * up on after the retry budget ran out.
+ */
+@Value
+public class BatchWriteResult {
+    int written;
+    /**
+     * The items, or for deletes the keys, that were not written. Records that could not be
+     * mapped to an item at all appear with just their key attributes.
+     */
+    @ToString.Exclude
+    List<Map<String, AttributeValue>> failedItems;
+
+    public static BatchWriteResult empty() {
+        return new BatchWriteResult(0, List.of());
+    }
+
+    public int getFailed() {
+        return failedItems.size();
+    }
+
+    public BatchWriteResult plus(BatchWriteResult other) {
+        if (other.failedItems.isEmpty()) {
+            return new BatchWriteResult(written + other.written, failedItems);
+        }
+        List<Map<String, AttributeValue>> failed = new ArrayList<>(failedItems);
+        failed.addAll(other.failedItems);
+        return new BatchWriteResult(written + other.written, failed);
+    }
+}
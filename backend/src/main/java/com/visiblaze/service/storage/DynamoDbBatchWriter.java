@@ -0,0 +1,169 @@
+package com.visiblaze.service.storage;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.DeleteRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes items in 25-item BatchWriteItem requests, sending several batches at once and
+ * retrying UnprocessedItems with exponential backoff and jitter.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DynamoDbBatchWriter {
+
+    static final int MAX_BATCH_SIZE = 25;
+
+    private final DynamoDbClient dynamoDbClient;
+
+    @Value("${aws.dynamodb.batch.parallelism:4}")
+    private int parallelism;
+
+    @Value("${aws.dynamodb.batch.max-retries:8}")
+    private int maxRetries;
+
+    @Value("${aws.dynamodb.batch.base-backoff-ms:50}")
+    private long baseBackoffMs;
+
+    @Value("${aws.dynamodb.batch.max-backoff-ms:5000}")
+    private long maxBackoffMs;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(Math.max(1, parallelism), runnable -> {
+            Thread thread = new Thread(runnable, "dynamodb-batch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdown();
+    }
+
+    public BatchWriteResult putAll(String tableName, List<Map<String, AttributeValue>> items) {
+        List<WriteRequest> requests = new ArrayList<>(items.size());
+        for (Map<String, AttributeValue> item : items) {
+            requests.add(WriteRequest.builder()
+                    .putRequest(PutRequest.builder().item(item).build())
+                    .build());
+        }
+        return writeAll(tableName, requests);
+    }
+
+    public BatchWriteResult deleteAll(String tableName, List<Map<String, AttributeValue>> keys) {
+        List<WriteRequest> requests = new ArrayList<>(keys.size());
+        for (Map<String, AttributeValue> key : keys) {
+            requests.add(WriteRequest.builder()
+                    .deleteRequest(DeleteRequest.builder().key(key).build())
+                    .build());
+        }
+        return writeAll(tableName, requests);
+    }
+
+    /**
+     * Writes {@code requests} and reports how many were written and how many failed.
+     *
+     * @throws ResourceNotFoundException if the table does not exist
+     */
+    public BatchWriteResult writeAll(String tableName, List<WriteRequest> requests) {
+        if (requests.isEmpty()) {
+            return BatchWriteResult.empty();
+        }
+
+        List<CompletableFuture<BatchWriteResult>> batches = new ArrayList<>();
+        for (int from = 0; from < requests.size(); from += MAX_BATCH_SIZE) {
+            List<WriteRequest> batch = requests.subList(from, Math.min(from + MAX_BATCH_SIZE, requests.size()));
+            batches.add(CompletableFuture.supplyAsync(() -> writeBatch(tableName, batch), executor));
+        }
+
+        BatchWriteResult result = BatchWriteResult.empty();
+        for (CompletableFuture<BatchWriteResult> batch : batches) {
+            try {
+                result = result.plus(batch.join());
+            } catch (CompletionException e) {
+                // Only a missing table escapes writeBatch; the caller decides whether to provision it
+                throw e.getCause() instanceof ResourceNotFoundException missing ? missing : e;
+            }
+        }
+
+        log.debug("Batch write to {}: {} written, {} failed in {} batches",
+                tableName, result.getWritten(), result.getFailed(), batches.size());
+        return result;
+    }
+
+    private BatchWriteResult writeBatch(String tableName, List<WriteRequest> batch) {
+        List<WriteRequest> pending = batch;
+        int attempt = 0;
+
+        try {
+            while (true) {
+                BatchWriteItemResponse response = dynamoDbClient.batchWriteItem(BatchWriteItemRequest.builder()
+                        .requestItems(Map.of(tableName, pending))
+                        .build());
+
+                List<WriteRequest> unprocessed = response.hasUnprocessedItems()
+                        ? response.unprocessedItems().getOrDefault(tableName, List.of())
+                        : List.of();
+                if (unprocessed.isEmpty()) {
+                    return new BatchWriteResult(batch.size(), List.of());
+                }
+                if (attempt >= maxRetries) {
+                    log.error("Giving up on {} unprocessed items for table {} after {} retries",
+                            unprocessed.size(), tableName, attempt);
+                    return new BatchWriteResult(batch.size() - unprocessed.size(), itemsOf(unprocessed));
+                }
+
+                pending = unprocessed;
+                backoff(attempt++);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new BatchWriteResult(batch.size() - pending.size(), itemsOf(pending));
+        } catch (ResourceNotFoundException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Error writing batch of {} items to {}: {}", pending.size(), tableName, e.getMessage());
+            return new BatchWriteResult(batch.size() - pending.size(), itemsOf(pending));
+        }
+    }
+
+    private static List<Map<String, AttributeValue>> itemsOf(List<WriteRequest> requests) {
+        List<Map<String, AttributeValue>> items = new ArrayList<>(requests.size());
+        for (WriteRequest request : requests) {
+            items.add(request.putRequest() != null ? request.putRequest().item() : request.deleteRequest().key());
+        }
+        return items;
+    }
+
+    private void backoff(int attempt) throws InterruptedException {
+        long ceiling = Math.min(maxBackoffMs, baseBackoffMs << Math.min(attempt, 20));
+        Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+    }
+}
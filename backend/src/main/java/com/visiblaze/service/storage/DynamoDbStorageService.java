@@ -1,26 +1,71 @@
 package com.visiblaze.service.storage;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.visiblaze.model.CISCheckResult;
+import com.visiblaze.model.DashboardSummary;
 import com.visiblaze.model.EC2InstanceInfo;
+import com.visiblaze.model.InventoryPage;
 import com.visiblaze.model.S3BucketInfo;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.*;
+import software.amazon.awssdk.services.dynamodb.waiters.DynamoDbWaiter;
 
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class DynamoDbStorageService {
 
+    private static final String CIS_SCAN_INDEX = "scanId-index";
+    private static final String LATEST_SCAN_RECORD = "LATEST_SCAN";
+    private static final String LATEST_RESULTS_RECORD = "LATEST_RESULTS";
+    private static final String DASHBOARD_SUMMARY_RECORD = "DASHBOARD_SUMMARY";
+    private static final String ACCOUNT_KEY_SEPARATOR = "#";
+    private static final String NOT_AVAILABLE = "N/A";
+    // Order of the fields in packed items; only ever append
+    private static final List<String> PACKED_INSTANCE_FIELDS =
+            List.of("publicIp", "privateIp", "securityGroups", "availabilityZone", "launchTime");
+    private static final List<String> PACKED_BUCKET_FIELDS =
+            List.of("encryptionType", "blockPublicAccess", "versioningEnabled", "creationDate");
+    public static final String EXPOSURE_PUBLIC = "PUBLIC";
+    public static final String EXPOSURE_PRIVATE = "PRIVATE";
+    public static final String ENCRYPTION_ENABLED = "ENABLED";
+    public static final String ENCRYPTION_DISABLED = "DISABLED";
+    // Filters of the inventory listings. Only the rare values worth finding fast have a
+    // (sparse) index; everything else is a filtered Scan
+    private static final List<ListingFilter> EC2_FILTERS = List.of(
+            new ListingFilter("exposure", "exposure", EXPOSURE_PUBLIC),
+            new ListingFilter("region", null, null),
+            new ListingFilter("state", null, null));
+    private static final List<ListingFilter> S3_FILTERS = List.of(
+            new ListingFilter("accessPolicy", "exposure", EXPOSURE_PUBLIC),
+            new ListingFilter("encryption", "encryption", ENCRYPTION_DISABLED),
+            new ListingFilter("region", null, null));
+    // Dense indexes of earlier releases, dropped from existing tables
+    private static final Set<String> OBSOLETE_EC2_INDEXES = Set.of("region-index", "state-index");
+    private static final Set<String> OBSOLETE_S3_INDEXES = Set.of("accessPolicy-index", "region-index");
+    // Reads a filtered page may take to fill up before it is returned short, with a cursor
+    private static final int MAX_READS_PER_PAGE = 10;
+    private static final int MAX_ITEMS_PER_READ = 1000;
+    // Keeps each pointer update well under DynamoDB's 4 KB expression limit
+    private static final int MAX_POINTERS_PER_UPDATE = 100;
+    // Stale keys collected before a sweep deletes them
+    private static final int SWEEP_DELETE_CHUNK = 1000;
+
     private final DynamoDbClient dynamoDbClient;
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final DynamoDbBatchWriter batchWriter;
+    private final DynamoDbTableScanner tableScanner;
 
     @Value("${aws.dynamodb.table.ec2-instances}")
     private String ec2TableName;
@@ -31,19 +76,100 @@ public class DynamoDbStorageService {
     @Value("${aws.dynamodb.table.cis-results}")
     private String cisTableName;
 
-    public void createTablesIfNotExist() {
-        createEC2Table();
-        createS3Table();
-        createCISTable();
+    @Value("${aws.dynamodb.table.scan-metadata:CloudPosture_ScanMetadata}")
+    private String metadataTableName;
+
+    /**
+     * {@code attributes} stores every field as its own attribute; {@code packed} keeps keys
+     * and filterable fields as attributes and packs the rest into {@link PackedAttributes}.
+     * Items in either format are always readable.
+     */
+    @Value("${aws.dynamodb.item-format:attributes}")
+    private String itemFormat;
+
+    private final Object provisioningLock = new Object();
+    private volatile boolean tablesReady;
+    private boolean indexesRequested;
+    private final Set<String> activeIndexes = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Provisions the tables once at startup so scans never pay for schema checks. If DynamoDB
+     * is unreachable here, the first scan provisions them instead.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void provisionTablesOnStartup() {
+        try {
+            ensureTablesReady();
+        } catch (Exception e) {
+            log.error("Could not provision DynamoDB tables at startup: {}", e.getMessage());
+        }
     }
 
-    private void createEC2Table() {
+    /**
+     * Creates any missing table and waits for it to become ACTIVE. After the first success this
+     * is a no-op until a request reports a missing table. Indexes DynamoDB would not add yet
+     * are requested again on each call until all of them have been.
+     */
+    public void ensureTablesReady() {
+        if (tablesReady) {
+            return;
+        }
+        synchronized (provisioningLock) {
+            if (!tablesReady) {
+                indexesRequested = true;
+                createTablesIfNotExist();
+                tablesReady = indexesRequested;
+            }
+        }
+    }
+
+    private void tableMissing(String tableName) {
+        log.warn("Table {} does not exist; tables will be provisioned again", tableName);
+        tablesReady = false;
+        activeIndexes.removeIf(index -> index.startsWith(tableName + "/"));
+    }
+
+    private void createTablesIfNotExist() {
+        List<String> created = new ArrayList<>();
+        if (createEC2Table()) {
+            created.add(ec2TableName);
+        }
+        if (createS3Table()) {
+            created.add(s3TableName);
+        }
+        if (createCISTable()) {
+            created.add(cisTableName);
+        }
+        if (createMetadataTable()) {
+            created.add(metadataTableName);
+        }
+        if (created.isEmpty()) {
+            return;
+        }
+
+        try (DynamoDbWaiter waiter = DynamoDbWaiter.builder().client(dynamoDbClient).build()) {
+            for (String tableName : created) {
+                waiter.waitUntilTableExists(DescribeTableRequest.builder().tableName(tableName).build())
+                        .matched()
+                        .exception()
+                        .ifPresent(e -> {
+                            throw new IllegalStateException("Table " + tableName + " did not become ACTIVE", e);
+                        });
+                log.info("Table {} is ACTIVE", tableName);
+            }
+        }
+    }
+
+    private boolean createEC2Table() {
         try {
             DescribeTableRequest describeRequest = DescribeTableRequest.builder()
                     .tableName(ec2TableName)
                     .build();
-            dynamoDbClient.describeTable(describeRequest);
+            TableDescription table = dynamoDbClient.describeTable(describeRequest).table();
             log.info("EC2 table already exists: {}", ec2TableName);
+            addMissingIndexes(ec2TableName, table, filterIndexes(EC2_FILTERS, "instanceId"));
+            dropIndexes(ec2TableName, table, OBSOLETE_EC2_INDEXES);
+            return false;
         } catch (ResourceNotFoundException e) {
             log.info("Creating EC2 table: {}", ec2TableName);
             CreateTableRequest request = CreateTableRequest.builder()
@@ -53,26 +179,28 @@ public class DynamoDbStorageService {
                                     .attributeName("instanceId")
                                     .keyType(KeyType.HASH)
                                     .build())
-                    .attributeDefinitions(
-                            AttributeDefinition.builder()
-                                    .attributeName("instanceId")
-                                    .attributeType(ScalarAttributeType.S)
-                                    .build())
+                    .attributeDefinitions(stringAttributes(
+                            concat("instanceId", indexAttributes(EC2_FILTERS))))
+                    .globalSecondaryIndexes(filterIndexes(EC2_FILTERS, "instanceId"))
                     .billingMode(BillingMode.PAY_PER_REQUEST)
                     .build();
 
             dynamoDbClient.createTable(request);
             log.info("Created EC2 table: {}", ec2TableName);
+            return true;
         }
     }
 
-    private void createS3Table() {
+    private boolean createS3Table() {
         try {
             DescribeTableRequest describeRequest = DescribeTableRequest.builder()
                     .tableName(s3TableName)
                     .build();
-            dynamoDbClient.describeTable(describeRequest);
+            TableDescription table = dynamoDbClient.describeTable(describeRequest).table();
             log.info("S3 table already exists: {}", s3TableName);
+            addMissingIndexes(s3TableName, table, filterIndexes(S3_FILTERS, "bucketName"));
+            dropIndexes(s3TableName, table, OBSOLETE_S3_INDEXES);
+            return false;
         } catch (ResourceNotFoundException e) {
             log.info("Creating S3 table: {}", s3TableName);
             CreateTableRequest request = CreateTableRequest.builder()
@@ -82,26 +210,149 @@ public class DynamoDbStorageService {
                                     .attributeName("bucketName")
                                     .keyType(KeyType.HASH)
                                     .build())
-                    .attributeDefinitions(
-                            AttributeDefinition.builder()
-                                    .attributeName("bucketName")
-                                    .attributeType(ScalarAttributeType.S)
-                                    .build())
+                    .attributeDefinitions(stringAttributes(
+                            concat("bucketName", indexAttributes(S3_FILTERS))))
+                    .globalSecondaryIndexes(filterIndexes(S3_FILTERS, "bucketName"))
                     .billingMode(BillingMode.PAY_PER_REQUEST)
                     .build();
 
             dynamoDbClient.createTable(request);
             log.info("Created S3 table: {}", s3TableName);
+            return true;
+        }
+    }
+
+    /**
+     * One sparse index per indexed filter attribute, sorted by the table key. Only items with
+     * the indexed value carry the attribute, so the index holds just those items and writing
+     * any other item costs nothing extra.
+     */
+    private static List<GlobalSecondaryIndex> filterIndexes(List<ListingFilter> filters, String tableKey) {
+        return indexAttributes(filters).stream()
+                .map(attribute -> GlobalSecondaryIndex.builder()
+                        .indexName(indexName(attribute))
+                        .keySchema(
+                                KeySchemaElement.builder()
+                                        .attributeName(attribute)
+                                        .keyType(KeyType.HASH)
+                                        .build(),
+                                KeySchemaElement.builder()
+                                        .attributeName(tableKey)
+                                        .keyType(KeyType.RANGE)
+                                        .build())
+                        .projection(Projection.builder().projectionType(ProjectionType.ALL).build())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> indexAttributes(List<ListingFilter> filters) {
+        return filters.stream()
+                .map(ListingFilter::indexAttribute)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
+    private static String indexName(String attribute) {
+        return attribute + "-index";
+    }
+
+    private static List<String> concat(String first, List<String> rest) {
+        List<String> names = new ArrayList<>(rest.size() + 1);
+        names.add(first);
+        names.addAll(rest);
+        return names;
+    }
+
+    private static List<AttributeDefinition> stringAttributes(Collection<String> names) {
+        return names.stream()
+                .map(name -> AttributeDefinition.builder()
+                        .attributeName(name)
+                        .attributeType(ScalarAttributeType.S)
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Adds the indexes an existing table lacks. DynamoDB backfills a new index in the
+     * background and builds only one per table at a time, so the rest are requested by a
+     * later {@link #ensureTablesReady()}. Every index key here is a string attribute.
+     */
+    private void addMissingIndexes(String tableName, TableDescription table, List<GlobalSecondaryIndex> indexes) {
+        Set<String> existing = table.hasGlobalSecondaryIndexes()
+                ? table.globalSecondaryIndexes().stream()
+                        .map(GlobalSecondaryIndexDescription::indexName)
+                        .collect(Collectors.toSet())
+                : Set.of();
+        for (GlobalSecondaryIndex index : indexes) {
+            if (existing.contains(index.indexName())) {
+                continue;
+            }
+            log.info("Adding index {} to table {}", index.indexName(), tableName);
+            UpdateTableRequest request = UpdateTableRequest.builder()
+                    .tableName(tableName)
+                    .attributeDefinitions(stringAttributes(index.keySchema().stream()
+                            .map(KeySchemaElement::attributeName)
+                            .collect(Collectors.toList())))
+                    .globalSecondaryIndexUpdates(GlobalSecondaryIndexUpdate.builder()
+                            .create(CreateGlobalSecondaryIndexAction.builder()
+                                    .indexName(index.indexName())
+                                    .keySchema(index.keySchema())
+                                    .projection(index.projection())
+                                    .build())
+                            .build())
+                    .build();
+            try {
+                dynamoDbClient.updateTable(request);
+                log.info("Requested index {} on table {}", index.indexName(), tableName);
+            } catch (LimitExceededException | ResourceInUseException e) {
+                log.info("Index {} on table {} will be requested when the next scan starts: {}",
+                        index.indexName(), tableName, e.getMessage());
+                indexesRequested = false;
+                return;
+            }
         }
     }
 
-    private void createCISTable() {
+    /**
+     * Deletes those of {@code obsolete} that an existing table still has, one per call like
+     * {@link #addMissingIndexes}, since each keeps costing a write per item.
+     */
+    private void dropIndexes(String tableName, TableDescription table, Set<String> obsolete) {
+        if (!indexesRequested || !table.hasGlobalSecondaryIndexes()) {
+            return;
+        }
+        table.globalSecondaryIndexes().stream()
+                .map(GlobalSecondaryIndexDescription::indexName)
+                .filter(obsolete::contains)
+                .findFirst()
+                .ifPresent(indexName -> {
+                    log.info("Dropping index {} from table {}", indexName, tableName);
+                    try {
+                        dynamoDbClient.updateTable(UpdateTableRequest.builder()
+                                .tableName(tableName)
+                                .globalSecondaryIndexUpdates(GlobalSecondaryIndexUpdate.builder()
+                                        .delete(DeleteGlobalSecondaryIndexAction.builder().indexName(indexName).build())
+                                        .build())
+                                .build());
+                    } catch (LimitExceededException | ResourceInUseException e) {
+                        log.info("Index {} on table {} will be dropped when the next scan starts: {}",
+                                indexName, tableName, e.getMessage());
+                    }
+                    // Any other obsolete index is dropped by a later call
+                    indexesRequested = false;
+                });
+    }
+
+    private boolean createCISTable() {
         try {
             DescribeTableRequest describeRequest = DescribeTableRequest.builder()
                     .tableName(cisTableName)
                     .build();
-            dynamoDbClient.describeTable(describeRequest);
+            TableDescription table = dynamoDbClient.describeTable(describeRequest).table();
             log.info("CIS table already exists: {}", cisTableName);
+            addMissingIndexes(cisTableName, table, List.of(cisScanIndex()));
+            return false;
         } catch (ResourceNotFoundException e) {
             log.info("Creating CIS table: {}", cisTableName);
             CreateTableRequest request = CreateTableRequest.builder()
@@ -123,213 +374,1015 @@ public class DynamoDbStorageService {
                             AttributeDefinition.builder()
                                     .attributeName("scanTimestamp")
                                     .attributeType(ScalarAttributeType.N)
+                                    .build(),
+                            AttributeDefinition.builder()
+                                    .attributeName("scanId")
+                                    .attributeType(ScalarAttributeType.S)
                                     .build())
+                    .globalSecondaryIndexes(cisScanIndex())
                     .billingMode(BillingMode.PAY_PER_REQUEST)
                     .build();
 
             dynamoDbClient.createTable(request);
             log.info("Created CIS table: {}", cisTableName);
+            return true;
+        }
+    }
+
+    /**
+     * Index of CIS results by scan, so the latest scan can be read with a single Query
+     * no matter how much history the table holds.
+     */
+    private GlobalSecondaryIndex cisScanIndex() {
+        return GlobalSecondaryIndex.builder()
+                .indexName(CIS_SCAN_INDEX)
+                .keySchema(
+                        KeySchemaElement.builder()
+                                .attributeName("scanId")
+                                .keyType(KeyType.HASH)
+                                .build(),
+                        KeySchemaElement.builder()
+                                .attributeName("checkId")
+                                .keyType(KeyType.RANGE)
+                                .build())
+                .projection(Projection.builder().projectionType(ProjectionType.ALL).build())
+                .build();
+    }
+
+    private boolean createMetadataTable() {
+        try {
+            DescribeTableRequest describeRequest = DescribeTableRequest.builder()
+                    .tableName(metadataTableName)
+                    .build();
+            dynamoDbClient.describeTable(describeRequest);
+            log.info("Scan metadata table already exists: {}", metadataTableName);
+            return false;
+        } catch (ResourceNotFoundException e) {
+            log.info("Creating scan metadata table: {}", metadataTableName);
+            CreateTableRequest request = CreateTableRequest.builder()
+                    .tableName(metadataTableName)
+                    .keySchema(
+                            KeySchemaElement.builder()
+                                    .attributeName("recordId")
+                                    .keyType(KeyType.HASH)
+                                    .build())
+                    .attributeDefinitions(
+                            AttributeDefinition.builder()
+                                    .attributeName("recordId")
+                                    .attributeType(ScalarAttributeType.S)
+                                    .build())
+                    .billingMode(BillingMode.PAY_PER_REQUEST)
+                    .build();
+
+            dynamoDbClient.createTable(request);
+            log.info("Created scan metadata table: {}", metadataTableName);
+            return true;
         }
     }
 
-    public void storeEC2Instances(List<EC2InstanceInfo> instances) {
+    public BatchWriteResult storeEC2Instances(List<EC2InstanceInfo> instances) {
         log.info("Storing {} EC2 instances to DynamoDB", instances.size());
+        List<Map<String, AttributeValue>> items = new ArrayList<>(instances.size());
+        List<Map<String, AttributeValue>> unmapped = new ArrayList<>();
         for (EC2InstanceInfo instance : instances) {
             try {
-                Map<String, AttributeValue> item = new HashMap<>();
-                item.put("instanceId", AttributeValue.builder().s(instance.getInstanceId()).build());
-                item.put("instanceType", AttributeValue.builder().s(instance.getInstanceType()).build());
-                item.put("region", AttributeValue.builder().s(instance.getRegion()).build());
-                item.put("publicIp", AttributeValue.builder().s(instance.getPublicIp()).build());
-                item.put("privateIp", AttributeValue.builder().s(instance.getPrivateIp()).build());
-                item.put("state", AttributeValue.builder().s(instance.getState()).build());
-                item.put("securityGroups",
-                        AttributeValue.builder().s(String.join(",", instance.getSecurityGroups())).build());
-                item.put("availabilityZone", AttributeValue.builder().s(instance.getAvailabilityZone()).build());
-                item.put("launchTime", AttributeValue.builder().s(instance.getLaunchTime()).build());
-                item.put("scanTimestamp",
-                        AttributeValue.builder().n(String.valueOf(instance.getScanTimestamp())).build());
-
-                PutItemRequest request = PutItemRequest.builder()
-                        .tableName(ec2TableName)
-                        .item(item)
-                        .build();
-
-                dynamoDbClient.putItem(request);
+                items.add(toItem(instance));
             } catch (Exception e) {
                 log.error("Error storing EC2 instance {}: {}", instance.getInstanceId(), e.getMessage());
+                unmapped.add(keyOf("instanceId", instance.getInstanceId()));
             }
         }
-        log.info("Successfully stored EC2 instances");
+        BatchWriteResult result = putAll(ec2TableName, items).plus(new BatchWriteResult(0, unmapped));
+        log.info("Stored EC2 instances: {} written, {} failed", result.getWritten(), result.getFailed());
+        return result;
     }
 
-    public void storeS3Buckets(List<S3BucketInfo> buckets) {
+    public BatchWriteResult storeS3Buckets(List<S3BucketInfo> buckets) {
         log.info("Storing {} S3 buckets to DynamoDB", buckets.size());
+        List<Map<String, AttributeValue>> items = new ArrayList<>(buckets.size());
+        List<Map<String, AttributeValue>> unmapped = new ArrayList<>();
         for (S3BucketInfo bucket : buckets) {
             try {
-                Map<String, AttributeValue> item = new HashMap<>();
-                item.put("bucketName", AttributeValue.builder().s(bucket.getBucketName()).build());
-                item.put("region", AttributeValue.builder().s(bucket.getRegion()).build());
-                item.put("encryptionEnabled", AttributeValue.builder().bool(bucket.isEncryptionEnabled()).build());
-                item.put("encryptionType", AttributeValue.builder().s(bucket.getEncryptionType()).build());
-                item.put("accessPolicy", AttributeValue.builder().s(bucket.getAccessPolicy()).build());
-                item.put("blockPublicAccess", AttributeValue.builder().bool(bucket.isBlockPublicAccess()).build());
-                item.put("versioningEnabled", AttributeValue.builder().bool(bucket.isVersioningEnabled()).build());
-                item.put("creationDate", AttributeValue.builder().s(bucket.getCreationDate()).build());
-                item.put("scanTimestamp",
-                        AttributeValue.builder().n(String.valueOf(bucket.getScanTimestamp())).build());
-
-                PutItemRequest request = PutItemRequest.builder()
-                        .tableName(s3TableName)
-                        .item(item)
-                        .build();
-
-                dynamoDbClient.putItem(request);
+                items.add(toItem(bucket));
             } catch (Exception e) {
                 log.error("Error storing S3 bucket {}: {}", bucket.getBucketName(), e.getMessage());
+                unmapped.add(keyOf("bucketName", bucket.getBucketName()));
             }
         }
-        log.info("Successfully stored S3 buckets");
+        BatchWriteResult result = putAll(s3TableName, items).plus(new BatchWriteResult(0, unmapped));
+        log.info("Stored S3 buckets: {} written, {} failed", result.getWritten(), result.getFailed());
+        return result;
     }
 
-    public void storeCISResults(List<CISCheckResult> results) {
+    public BatchWriteResult storeCISResults(List<CISCheckResult> results) {
         log.info("Storing {} CIS check results to DynamoDB", results.size());
+        List<Map<String, AttributeValue>> items = new ArrayList<>(results.size());
+        List<Map<String, AttributeValue>> unmapped = new ArrayList<>();
         for (CISCheckResult result : results) {
             try {
-                Map<String, AttributeValue> item = new HashMap<>();
-                item.put("checkId", AttributeValue.builder().s(result.getCheckId()).build());
-                item.put("scanTimestamp",
-                        AttributeValue.builder().n(String.valueOf(result.getScanTimestamp())).build());
-                item.put("checkName", AttributeValue.builder().s(result.getCheckName()).build());
-                item.put("description", AttributeValue.builder().s(result.getDescription()).build());
-                item.put("status", AttributeValue.builder().s(result.getStatus()).build());
-                item.put("evidence", AttributeValue.builder().s(result.getEvidence()).build());
-                item.put("recommendation", AttributeValue.builder().s(result.getRecommendation()).build());
-                item.put("severity", AttributeValue.builder().s(result.getSeverity()).build());
-                if (result.getResourceId() != null) {
-                    item.put("resourceId", AttributeValue.builder().s(result.getResourceId()).build());
-                }
-
-                PutItemRequest request = PutItemRequest.builder()
-                        .tableName(cisTableName)
-                        .item(item)
-                        .build();
-
-                dynamoDbClient.putItem(request);
+                items.add(toItem(result));
             } catch (Exception e) {
                 log.error("Error storing CIS result {}: {}", result.getCheckId(), e.getMessage());
+                unmapped.add(Map.of("checkId", AttributeValue.builder().s(checkKey(result)).build(),
+                        "scanTimestamp", AttributeValue.builder().n(String.valueOf(result.getScanTimestamp())).build()));
             }
         }
-        log.info("Successfully stored CIS results");
+        BatchWriteResult result = putAll(cisTableName, items).plus(new BatchWriteResult(0, unmapped));
+        log.info("Stored CIS results: {} written, {} failed", result.getWritten(), result.getFailed());
+        return result;
     }
 
-    public List<EC2InstanceInfo> getEC2Instances() {
-        log.info("Retrieving EC2 instances from DynamoDB");
-        List<EC2InstanceInfo> instances = new ArrayList<>();
-
+    private BatchWriteResult putAll(String tableName, List<Map<String, AttributeValue>> items) {
         try {
-            ScanRequest request = ScanRequest.builder()
-                    .tableName(ec2TableName)
-                    .build();
+            return batchWriter.putAll(tableName, items);
+        } catch (ResourceNotFoundException e) {
+            tableMissing(tableName);
+            ensureTablesReady();
+            return batchWriter.putAll(tableName, items);
+        }
+    }
 
-            ScanResponse response = dynamoDbClient.scan(request);
-
-            for (Map<String, AttributeValue> item : response.items()) {
-                EC2InstanceInfo instance = EC2InstanceInfo.builder()
-                        .instanceId(item.get("instanceId").s())
-                        .instanceType(item.get("instanceType").s())
-                        .region(item.get("region").s())
-                        .publicIp(item.get("publicIp").s())
-                        .privateIp(item.get("privateIp").s())
-                        .state(item.get("state").s())
-                        .securityGroups(Arrays.asList(item.get("securityGroups").s().split(",")))
-                        .availabilityZone(item.get("availabilityZone").s())
-                        .launchTime(item.get("launchTime").s())
-                        .scanTimestamp(Long.parseLong(item.get("scanTimestamp").n()))
-                        .build();
-                instances.add(instance);
+    /**
+     * Deletes the stored EC2 instances of {@code accountId} in {@code regions} that scan
+     * {@code scanId} did not see: those stamped by another scan, or by none, and written
+     * before {@code startedAt}. Call it only once the scan has discovered and stored every
+     * instance in those regions, or live instances are deleted too. Records written by a
+     * scan running at the same time are newer than {@code startedAt} and are kept.
+     *
+     * @return the number of records deleted
+     */
+    public long sweepEC2Instances(String accountId, String scanId, long startedAt, Collection<String> regions) {
+        return sweep(ec2TableName, "instanceId", accountId, scanId, startedAt, regions, Set.of());
+    }
+
+    /**
+     * Deletes the stored S3 buckets of {@code accountId} that scan {@code scanId} did not see,
+     * as {@link #sweepEC2Instances} does, except for the {@code spared} buckets: ones that
+     * were listed but whose attributes could not be read, so were not stored again.
+     *
+     * @return the number of records deleted
+     */
+    public long sweepS3Buckets(String accountId, String scanId, long startedAt, Set<String> spared) {
+        return sweep(s3TableName, "bucketName", accountId, scanId, startedAt, null, spared);
+    }
+
+    /**
+     * Finds the stale records with a filtered, key-only parallel Scan and deletes them in
+     * batches as they are found.
+     */
+    private long sweep(String tableName, String tableKey, String accountId, String scanId, long startedAt,
+                       Collection<String> regions, Set<String> spared) {
+        Map<String, String> names = new HashMap<>();
+        Map<String, AttributeValue> values = new HashMap<>();
+        names.put("#key", tableKey);
+        names.put("#scanId", "scanId");
+        names.put("#scanTimestamp", "scanTimestamp");
+        names.put("#accountId", "accountId");
+        values.put(":scanId", AttributeValue.builder().s(scanId).build());
+        values.put(":startedAt", AttributeValue.builder().n(String.valueOf(startedAt)).build());
+
+        List<String> conditions = new ArrayList<>();
+        conditions.add("(attribute_not_exists(#scanId) OR #scanId <> :scanId)");
+        conditions.add("#scanTimestamp < :startedAt");
+        if (accountId != null) {
+            values.put(":accountId", AttributeValue.builder().s(accountId).build());
+            conditions.add("#accountId = :accountId");
+        } else {
+            conditions.add("attribute_not_exists(#accountId)");
+        }
+        if (regions != null) {
+            if (regions.isEmpty()) {
+                return 0;
             }
-        } catch (ResourceNotFoundException e) {
-            log.info("EC2 table does not exist yet: {}", ec2TableName);
+            List<String> placeholders = new ArrayList<>();
+            for (String region : regions) {
+                String placeholder = ":region" + placeholders.size();
+                values.put(placeholder, AttributeValue.builder().s(region).build());
+                placeholders.add(placeholder);
+            }
+            names.put("#region", "region");
+            conditions.add("#region IN (" + String.join(", ", placeholders) + ")");
+        }
+
+        ScanRequest request = ScanRequest.builder()
+                .tableName(tableName)
+                .projectionExpression("#key")
+                .filterExpression(String.join(" AND ", conditions))
+                .expressionAttributeNames(names)
+                .expressionAttributeValues(values)
+                .build();
+
+        long deleted = 0;
+        List<Map<String, AttributeValue>> stale = new ArrayList<>(SWEEP_DELETE_CHUNK);
+        try (Stream<Map<String, AttributeValue>> keys = tableScanner.scan(request)) {
+            Iterator<Map<String, AttributeValue>> iterator = keys.iterator();
+            while (iterator.hasNext()) {
+                Map<String, AttributeValue> key = iterator.next();
+                if (!spared.contains(key.get(tableKey).s())) {
+                    stale.add(key);
+                }
+                if (stale.size() == SWEEP_DELETE_CHUNK || (!iterator.hasNext() && !stale.isEmpty())) {
+                    deleted += batchWriter.deleteAll(tableName, stale).getWritten();
+                    stale = new ArrayList<>(SWEEP_DELETE_CHUNK);
+                }
+            }
+        }
+        log.info("Swept {} stale records of account {} from {}", deleted, accountId != null ? accountId : "self",
+                tableName);
+        return deleted;
+    }
+
+    /**
+     * The results among {@code results} that {@link #storeCISResults} wrote, i.e. those the
+     * latest-result pointers may move to.
+     */
+    public List<CISCheckResult> writtenResults(List<CISCheckResult> results, BatchWriteResult stored) {
+        if (stored.getFailed() == 0) {
+            return results;
+        }
+        Set<String> failed = new HashSet<>();
+        stored.getFailedItems().forEach(item -> failed.add(item.get("checkId").s()));
+        return results.stream()
+                .filter(result -> !failed.contains(checkKey(result)))
+                .toList();
+    }
+
+    private static Map<String, AttributeValue> keyOf(String attribute, String value) {
+        return Map.of(attribute, AttributeValue.builder().s(String.valueOf(value)).build());
+    }
+
+    // The item mappers are package-private so the benchmarks module can measure them
+    Map<String, AttributeValue> toItem(EC2InstanceInfo instance) {
+        Map<String, AttributeValue> item = new HashMap<>();
+        item.put("instanceId", AttributeValue.builder().s(instance.getInstanceId()).build());
+        putString(item, "accountId", instance.getAccountId());
+        putString(item, "region", instance.getRegion());
+        putString(item, "state", instance.getState());
+        putString(item, "instanceType", instance.getInstanceType());
+        // Sparse index key: only public instances are indexed
+        if (available(instance.getPublicIp()) != null) {
+            putString(item, "exposure", EXPOSURE_PUBLIC);
+        }
+        putNumber(item, "scanTimestamp", instance.getScanTimestamp());
+        putString(item, "scanId", instance.getScanId());
+        if (packItems()) {
+            item.put(PackedAttributes.ATTRIBUTE, PackedAttributes.pack(
+                    available(instance.getPublicIp()),
+                    available(instance.getPrivateIp()),
+                    instance.getSecurityGroups(),
+                    instance.getAvailabilityZone(),
+                    epochSecondsOrText(instance.getLaunchTime())));
+        } else {
+            putString(item, "publicIp", instance.getPublicIp());
+            putString(item, "privateIp", instance.getPrivateIp());
+            putString(item, "securityGroups", instance.getSecurityGroups() != null
+                    ? String.join(",", instance.getSecurityGroups()) : null);
+            putString(item, "availabilityZone", instance.getAvailabilityZone());
+            putString(item, "launchTime", instance.getLaunchTime());
+        }
+        return item;
+    }
+
+    Map<String, AttributeValue> toItem(S3BucketInfo bucket) {
+        Map<String, AttributeValue> item = new HashMap<>();
+        item.put("bucketName", AttributeValue.builder().s(bucket.getBucketName()).build());
+        putString(item, "accountId", bucket.getAccountId());
+        putString(item, "region", bucket.getRegion());
+        putString(item, "accessPolicy", bucket.getAccessPolicy());
+        item.put("encryptionEnabled", AttributeValue.builder().bool(bucket.isEncryptionEnabled()).build());
+        // Sparse index keys: only public and unencrypted buckets are indexed
+        if (EXPOSURE_PUBLIC.equalsIgnoreCase(bucket.getAccessPolicy())) {
+            putString(item, "exposure", EXPOSURE_PUBLIC);
+        }
+        if (!bucket.isEncryptionEnabled()) {
+            putString(item, "encryption", ENCRYPTION_DISABLED);
+        }
+        putNumber(item, "scanTimestamp", bucket.getScanTimestamp());
+        putString(item, "scanId", bucket.getScanId());
+        if (packItems()) {
+            item.put(PackedAttributes.ATTRIBUTE, PackedAttributes.pack(
+                    bucket.getEncryptionType(),
+                    bucket.isBlockPublicAccess(),
+                    bucket.isVersioningEnabled(),
+                    epochSecondsOrText(bucket.getCreationDate())));
+        } else {
+            putString(item, "encryptionType", bucket.getEncryptionType());
+            item.put("blockPublicAccess", AttributeValue.builder().bool(bucket.isBlockPublicAccess()).build());
+            item.put("versioningEnabled", AttributeValue.builder().bool(bucket.isVersioningEnabled()).build());
+            putString(item, "creationDate", bucket.getCreationDate());
+        }
+        return item;
+    }
+
+    private boolean packItems() {
+        return "packed".equalsIgnoreCase(itemFormat);
+    }
+
+    private static void putString(Map<String, AttributeValue> item, String name, String value) {
+        if (value != null) {
+            item.put(name, AttributeValue.builder().s(value).build());
+        }
+    }
+
+    private static void putNumber(Map<String, AttributeValue> item, String name, Long value) {
+        if (value != null) {
+            item.put(name, AttributeValue.builder().n(String.valueOf(value)).build());
+        }
+    }
+
+    /**
+     * Packed items leave out placeholders; readers restore them.
+     */
+    private static String available(String value) {
+        return NOT_AVAILABLE.equals(value) ? null : value;
+    }
+
+    /**
+     * A whole-second ISO-8601 timestamp packs as epoch seconds, a quarter of its size as text.
+     */
+    private static Object epochSecondsOrText(String timestamp) {
+        if (timestamp == null || NOT_AVAILABLE.equals(timestamp)) {
+            return null;
+        }
+        try {
+            Instant instant = Instant.parse(timestamp);
+            return instant.getNano() == 0 ? (Object) instant.getEpochSecond() : timestamp;
+        } catch (DateTimeParseException e) {
+            return timestamp;
+        }
+    }
+
+    Map<String, AttributeValue> toItem(CISCheckResult result) {
+        Map<String, AttributeValue> item = new HashMap<>();
+        item.put("checkId", AttributeValue.builder().s(checkKey(result)).build());
+        item.put("scanTimestamp",
+                AttributeValue.builder().n(String.valueOf(result.getScanTimestamp())).build());
+        item.put("checkName", AttributeValue.builder().s(result.getCheckName()).build());
+        item.put("description", AttributeValue.builder().s(result.getDescription()).build());
+        item.put("status", AttributeValue.builder().s(result.getStatus()).build());
+        item.put("evidence", AttributeValue.builder().s(result.getEvidence()).build());
+        item.put("recommendation", AttributeValue.builder().s(result.getRecommendation()).build());
+        item.put("severity", AttributeValue.builder().s(result.getSeverity()).build());
+        if (result.getResourceId() != null) {
+            item.put("resourceId", AttributeValue.builder().s(result.getResourceId()).build());
+        }
+        if (result.getScanId() != null) {
+            item.put("scanId", AttributeValue.builder().s(result.getScanId()).build());
+        }
+        if (result.getAccountId() != null) {
+            item.put("accountId", AttributeValue.builder().s(result.getAccountId()).build());
+        }
+        if (result.getDurationMs() != null) {
+            item.put("durationMs", AttributeValue.builder().n(String.valueOf(result.getDurationMs())).build());
+        }
+        return item;
+    }
+
+    /**
+     * The same check runs in every account, so the account is part of the key.
+     */
+    private static String checkKey(CISCheckResult result) {
+        return result.getAccountId() != null
+                ? result.getAccountId() + ACCOUNT_KEY_SEPARATOR + result.getCheckId()
+                : result.getCheckId();
+    }
+
+    public List<EC2InstanceInfo> getEC2Instances() {
+        log.info("Retrieving EC2 instances from DynamoDB");
+        try (Stream<EC2InstanceInfo> instances = streamEC2Instances()) {
+            return instances.collect(Collectors.toList());
         } catch (Exception e) {
             log.error("Error retrieving EC2 instances from DynamoDB", e);
+            return new ArrayList<>();
         }
+    }
+
+    /**
+     * Streams every stored EC2 instance page by page. The caller must close the stream.
+     */
+    public Stream<EC2InstanceInfo> streamEC2Instances() {
+        return tableScanner.scan(ec2TableName).map(this::toEC2InstanceInfo);
+    }
+
+    /**
+     * One page of EC2 instances matching {@code filters}, keyed by {@code exposure},
+     * {@code region} or {@code state}; only {@code exposure=PUBLIC} has an index. See
+     * {@link #page}.
+     */
+    public InventoryPage<EC2InstanceInfo> getEC2InstancePage(Map<String, String> filters, int limit,
+                                                            String cursor, boolean descending) {
+        InventoryPage<Map<String, AttributeValue>> page =
+                page(ec2TableName, "instanceId", EC2_FILTERS, filters, limit, cursor, descending);
+        return InventoryPage.<EC2InstanceInfo>builder()
+                .items(page.getItems().stream().map(this::toEC2InstanceInfo).collect(Collectors.toList()))
+                .nextCursor(page.getNextCursor())
+                .build();
+    }
 
-        return instances;
+    public long countEC2Instances() {
+        return tableScanner.count(ec2TableName);
     }
 
     public List<S3BucketInfo> getS3Buckets() {
         log.info("Retrieving S3 buckets from DynamoDB");
-        List<S3BucketInfo> buckets = new ArrayList<>();
+        try (Stream<S3BucketInfo> buckets = streamS3Buckets()) {
+            return buckets.collect(Collectors.toList());
+        } catch (Exception e) {
+            log.error("Error retrieving S3 buckets from DynamoDB", e);
+            return new ArrayList<>();
+        }
+    }
 
+    /**
+     * Streams every stored S3 bucket page by page. The caller must close the stream.
+     */
+    public Stream<S3BucketInfo> streamS3Buckets() {
+        return tableScanner.scan(s3TableName).map(this::toS3BucketInfo);
+    }
+
+    /**
+     * One page of S3 buckets matching {@code filters}, keyed by {@code accessPolicy},
+     * {@code encryption} or {@code region}; {@code accessPolicy=PUBLIC} and
+     * {@code encryption=DISABLED} have indexes. See {@link #page}.
+     */
+    public InventoryPage<S3BucketInfo> getS3BucketPage(Map<String, String> filters, int limit,
+                                                      String cursor, boolean descending) {
+        InventoryPage<Map<String, AttributeValue>> page =
+                page(s3TableName, "bucketName", S3_FILTERS, filters, limit, cursor, descending);
+        return InventoryPage.<S3BucketInfo>builder()
+                .items(page.getItems().stream().map(this::toS3BucketInfo).collect(Collectors.toList()))
+                .nextCursor(page.getNextCursor())
+                .build();
+    }
+
+    /**
+     * Reads one page of up to {@code limit} items, sorted by {@code tableKey} when a filter
+     * value has an index. That is a Query on the first such index, with the other filters
+     * applied to the items it reads. Otherwise the page is a Scan in table order, with every
+     * filter applied to the items it reads, and cannot be sorted.
+     * <p>
+     * A filtered page may come back short, with a cursor, when the filters discard most of
+     * what was read.
+     *
+     * @throws IllegalArgumentException for an unknown filter, a cursor from another listing,
+     *                                  or descending order without an indexed filter
+     * @throws IllegalStateException    if the index the filters need is still being built
+     */
+    private InventoryPage<Map<String, AttributeValue>> page(String tableName, String tableKey,
+                                                            List<ListingFilter> listingFilters, Map<String, String> filters,
+                                                            int limit, String cursor, boolean descending) {
+        Map<String, ListingFilter> known = new HashMap<>();
+        listingFilters.forEach(filter -> known.put(filter.name(), filter));
+        for (String name : filters.keySet()) {
+            if (!known.containsKey(name)) {
+                throw new IllegalArgumentException("Cannot filter on " + name);
+            }
+        }
+        ListingFilter indexed = listingFilters.stream()
+                .filter(filter -> filter.indexes(filters.get(filter.name())))
+                .findFirst()
+                .orElse(null);
+        if (indexed == null && descending) {
+            throw new IllegalArgumentException("Descending order requires a filter with an index");
+        }
+        Set<String> keyAttributes = indexed == null ? Set.of(tableKey) : Set.of(tableKey, indexed.indexAttribute());
+        Map<String, AttributeValue> startKey = cursor == null || cursor.isEmpty()
+                ? null : PageCursor.decode(cursor, keyAttributes, indexed == null
+                        ? Map.of() : Map.of(indexed.indexAttribute(), indexed.indexedValue()));
+
+        // Conditions for every filter the index key does not already cover
+        Map<String, String> names = new HashMap<>();
+        Map<String, AttributeValue> values = new HashMap<>();
+        List<String> conditions = new ArrayList<>();
+        filters.forEach((name, value) -> {
+            if (known.get(name) != indexed) {
+                conditions.add(known.get(name).condition(value, "f" + conditions.size(), names, values));
+            }
+        });
+        String filterExpression = conditions.isEmpty() ? null : String.join(" AND ", conditions);
+
+        List<Map<String, AttributeValue>> items = new ArrayList<>(limit);
+        boolean resumed = startKey != null;
         try {
-            ScanRequest request = ScanRequest.builder()
-                    .tableName(s3TableName)
-                    .build();
+            if (indexed != null && !isIndexActive(tableName, indexName(indexed.indexAttribute()))) {
+                // The index was added to an existing table and is still being built
+                throw new IllegalStateException("Index " + indexName(indexed.indexAttribute()) + " is not available yet");
+            }
+            for (int reads = 1; ; reads++) {
+                // Most of what is read may be filtered out, so read more each time
+                int readLimit = filterExpression != null
+                        ? Math.min(limit << Math.min(reads - 1, 10), MAX_ITEMS_PER_READ) : limit;
+                List<Map<String, AttributeValue>> read;
+                Map<String, AttributeValue> lastKey;
+                if (indexed == null) {
+                    ScanResponse response = dynamoDbClient.scan(
+                            ScanRequest.builder()
+                                    .tableName(tableName)
+                                    .filterExpression(filterExpression)
+                                    .expressionAttributeNames(names.isEmpty() ? null : names)
+                                    .expressionAttributeValues(values.isEmpty() ? null : values)
+                                    .limit(readLimit)
+                                    .exclusiveStartKey(startKey)
+                                    .build());
+                    read = response.items();
+                    lastKey = response.hasLastEvaluatedKey() ? response.lastEvaluatedKey() : null;
+                } else {
+                    QueryResponse response = dynamoDbClient.query(indexQuery(tableName, indexed,
+                            filterExpression, names, values, readLimit, startKey, descending));
+                    read = response.items();
+                    lastKey = response.hasLastEvaluatedKey() ? response.lastEvaluatedKey() : null;
+                }
 
-            ScanResponse response = dynamoDbClient.scan(request);
-
-            for (Map<String, AttributeValue> item : response.items()) {
-                S3BucketInfo bucket = S3BucketInfo.builder()
-                        .bucketName(item.get("bucketName").s())
-                        .region(item.get("region").s())
-                        .encryptionEnabled(item.get("encryptionEnabled").bool())
-                        .encryptionType(item.get("encryptionType").s())
-                        .accessPolicy(item.get("accessPolicy").s())
-                        .blockPublicAccess(item.get("blockPublicAccess").bool())
-                        .versioningEnabled(item.get("versioningEnabled").bool())
-                        .creationDate(item.get("creationDate").s())
-                        .scanTimestamp(Long.parseLong(item.get("scanTimestamp").n()))
-                        .build();
-                buckets.add(bucket);
+                int take = Math.min(read.size(), limit - items.size());
+                items.addAll(read.subList(0, take));
+                if (take < read.size()) {
+                    // Resume right after the last item returned, not after the last one read
+                    lastKey = keyOf(items.get(items.size() - 1), keyAttributes);
+                }
+                startKey = lastKey == null || lastKey.isEmpty() ? null : lastKey;
+                if (startKey == null || items.size() == limit || reads == MAX_READS_PER_PAGE) {
+                    break;
+                }
             }
         } catch (ResourceNotFoundException e) {
-            log.info("S3 table does not exist yet: {}", s3TableName);
-        } catch (Exception e) {
-            log.error("Error retrieving S3 buckets from DynamoDB", e);
+            tableMissing(tableName);
+            return InventoryPage.<Map<String, AttributeValue>>builder().items(List.of()).build();
+        } catch (DynamoDbException e) {
+            if (resumed && e.awsErrorDetails() != null
+                    && "ValidationException".equals(e.awsErrorDetails().errorCode())) {
+                // A well-formed cursor whose key DynamoDB still rejects, e.g. one edited by hand
+                throw new IllegalArgumentException("Invalid cursor", e);
+            }
+            throw e;
+        }
+        return InventoryPage.<Map<String, AttributeValue>>builder()
+                .items(items)
+                .nextCursor(PageCursor.encode(startKey))
+                .build();
+    }
+
+    private static QueryRequest indexQuery(String tableName, ListingFilter indexed, String filterExpression,
+                                           Map<String, String> filterNames, Map<String, AttributeValue> filterValues,
+                                           int limit, Map<String, AttributeValue> startKey, boolean descending) {
+        Map<String, String> names = new HashMap<>(filterNames);
+        Map<String, AttributeValue> values = new HashMap<>(filterValues);
+        names.put("#key", indexed.indexAttribute());
+        values.put(":key", AttributeValue.builder().s(indexed.indexedValue()).build());
+        return QueryRequest.builder()
+                .tableName(tableName)
+                .indexName(indexName(indexed.indexAttribute()))
+                .keyConditionExpression("#key = :key")
+                .filterExpression(filterExpression)
+                .expressionAttributeNames(names)
+                .expressionAttributeValues(values)
+                .scanIndexForward(!descending)
+                .limit(limit)
+                .exclusiveStartKey(startKey)
+                .build();
+    }
+
+    /**
+     * A filter of an inventory listing. Items with {@code indexedValue} carry
+     * {@code indexAttribute}, the key of a sparse index, so those are found with a Query. When
+     * the filter's own attribute is that index key, it is written only for the indexed value,
+     * and its other value matches items without it (or items written before it was sparse).
+     */
+    private record ListingFilter(String name, String indexAttribute, String indexedValue) {
+
+        boolean indexes(String value) {
+            return indexAttribute != null && indexedValue.equals(value);
+        }
+
+        String condition(String value, String placeholder, Map<String, String> names,
+                         Map<String, AttributeValue> values) {
+            names.put("#" + placeholder, name);
+            values.put(":" + placeholder, AttributeValue.builder().s(value).build());
+            String equals = "#" + placeholder + " = :" + placeholder;
+            return name.equals(indexAttribute) && !indexedValue.equals(value)
+                    ? "(attribute_not_exists(#" + placeholder + ") OR " + equals + ")"
+                    : equals;
+        }
+    }
+
+    private static Map<String, AttributeValue> keyOf(Map<String, AttributeValue> item, Set<String> keyAttributes) {
+        Map<String, AttributeValue> key = new LinkedHashMap<>();
+        keyAttributes.forEach(name -> key.put(name, item.get(name)));
+        return key;
+    }
+
+    public long countS3Buckets() {
+        return tableScanner.count(s3TableName);
+    }
+
+    /**
+     * Points the dashboard at a completed scan. Written after that scan's CIS results so
+     * readers never follow the pointer to a half-written scan.
+     */
+    public void markLatestScan(String scanId, long completedAt) {
+        Map<String, AttributeValue> item = new HashMap<>();
+        item.put("recordId", AttributeValue.builder().s(LATEST_SCAN_RECORD).build());
+        item.put("scanId", AttributeValue.builder().s(scanId).build());
+        item.put("completedAt", AttributeValue.builder().n(String.valueOf(completedAt)).build());
+
+        PutItemRequest request = PutItemRequest.builder()
+                .tableName(metadataTableName)
+                .item(item)
+                .build();
+        try {
+            dynamoDbClient.putItem(request);
+        } catch (ResourceNotFoundException e) {
+            tableMissing(metadataTableName);
+            ensureTablesReady();
+            dynamoDbClient.putItem(request);
+        }
+        log.info("Marked scan {} as latest", scanId);
+    }
+
+    public Optional<String> getLatestScanId() {
+        try {
+            GetItemResponse response = dynamoDbClient.getItem(GetItemRequest.builder()
+                    .tableName(metadataTableName)
+                    .key(Map.of("recordId", AttributeValue.builder().s(LATEST_SCAN_RECORD).build()))
+                    .consistentRead(true)
+                    .build());
+            if (!response.hasItem() || !response.item().containsKey("scanId")) {
+                return Optional.empty();
+            }
+            return Optional.of(response.item().get("scanId").s());
+        } catch (ResourceNotFoundException e) {
+            tableMissing(metadataTableName);
+            return Optional.empty();
+        }
+    }
+
+    public void storeDashboardSummary(DashboardSummary summary) {
+        Map<String, AttributeValue> item = new HashMap<>();
+        item.put("recordId", AttributeValue.builder().s(DASHBOARD_SUMMARY_RECORD).build());
+        if (summary.getScanId() != null) {
+            item.put("scanId", AttributeValue.builder().s(summary.getScanId()).build());
+        }
+        item.put("generatedAt", AttributeValue.builder().n(String.valueOf(summary.getGeneratedAt())).build());
+        item.put("totalEC2Instances", AttributeValue.builder().n(String.valueOf(summary.getTotalEC2Instances())).build());
+        item.put("totalS3Buckets", AttributeValue.builder().n(String.valueOf(summary.getTotalS3Buckets())).build());
+        item.put("totalCISChecks", AttributeValue.builder().n(String.valueOf(summary.getTotalCISChecks())).build());
+        item.put("checksPassedCount", AttributeValue.builder().n(String.valueOf(summary.getChecksPassedCount())).build());
+        item.put("checksFailedCount", AttributeValue.builder().n(String.valueOf(summary.getChecksFailedCount())).build());
+        item.put("complianceRate", AttributeValue.builder().n(String.valueOf(summary.getComplianceRate())).build());
+
+        PutItemRequest request = PutItemRequest.builder()
+                .tableName(metadataTableName)
+                .item(item)
+                .build();
+        try {
+            dynamoDbClient.putItem(request);
+        } catch (ResourceNotFoundException e) {
+            tableMissing(metadataTableName);
+            ensureTablesReady();
+            dynamoDbClient.putItem(request);
+        }
+        log.info("Stored dashboard summary for scan {}", summary.getScanId());
+    }
+
+    /**
+     * Reads the materialized dashboard summary with a single GetItem.
+     */
+    public Optional<DashboardSummary> getDashboardSummary() {
+        try {
+            GetItemResponse response = dynamoDbClient.getItem(GetItemRequest.builder()
+                    .tableName(metadataTableName)
+                    .key(Map.of("recordId", AttributeValue.builder().s(DASHBOARD_SUMMARY_RECORD).build()))
+                    .build());
+            if (!response.hasItem() || response.item().isEmpty()) {
+                return Optional.empty();
+            }
+            Map<String, AttributeValue> item = response.item();
+            return Optional.of(DashboardSummary.builder()
+                    .scanId(item.containsKey("scanId") ? item.get("scanId").s() : null)
+                    .generatedAt(Long.parseLong(item.get("generatedAt").n()))
+                    .totalEC2Instances(Long.parseLong(item.get("totalEC2Instances").n()))
+                    .totalS3Buckets(Long.parseLong(item.get("totalS3Buckets").n()))
+                    .totalCISChecks(Long.parseLong(item.get("totalCISChecks").n()))
+                    .checksPassedCount(Long.parseLong(item.get("checksPassedCount").n()))
+                    .checksFailedCount(Long.parseLong(item.get("checksFailedCount").n()))
+                    .complianceRate(Long.parseLong(item.get("complianceRate").n()))
+                    .build());
+        } catch (ResourceNotFoundException e) {
+            tableMissing(metadataTableName);
+            return Optional.empty();
         }
+    }
 
-        return buckets;
+    /**
+     * Records {@code results} as the latest result of their check in their account. Scans
+     * covering only some inventory types run only some checks, so each check's latest
+     * result can come from a different scan. The pointers live in one metadata item, a map
+     * from check key to scan id, and each pointer is set on its own so concurrent scans do
+     * not overwrite each other's. Up to {@value #MAX_POINTERS_PER_UPDATE} pointers are set
+     * per update, so a scan of many accounts takes several.
+     */
+    public void markLatestResults(List<CISCheckResult> results) {
+        if (results.isEmpty()) {
+            return;
+        }
+        Map<String, AttributeValue> key =
+                Map.of("recordId", AttributeValue.builder().s(LATEST_RESULTS_RECORD).build());
+        try {
+            if (getLatestResultScans().isEmpty()) {
+                seedLatestResults(key);
+            }
+            for (int from = 0; from < results.size(); from += MAX_POINTERS_PER_UPDATE) {
+                setLatestResults(key, results.subList(from, Math.min(from + MAX_POINTERS_PER_UPDATE, results.size())));
+            }
+        } catch (ResourceNotFoundException e) {
+            tableMissing(metadataTableName);
+            throw e;
+        }
     }
 
+    private void setLatestResults(Map<String, AttributeValue> key, List<CISCheckResult> results) {
+        Map<String, String> names = new HashMap<>();
+        Map<String, AttributeValue> values = new HashMap<>();
+        List<String> assignments = new ArrayList<>();
+        names.put("#checks", "checks");
+        for (CISCheckResult result : results) {
+            String placeholder = "c" + assignments.size();
+            names.put("#" + placeholder, checkKey(result));
+            values.put(":" + placeholder, AttributeValue.builder().s(result.getScanId()).build());
+            assignments.add("#checks.#" + placeholder + " = :" + placeholder);
+        }
+        dynamoDbClient.updateItem(UpdateItemRequest.builder()
+                .tableName(metadataTableName)
+                .key(key)
+                .updateExpression("SET " + String.join(", ", assignments))
+                .expressionAttributeNames(names)
+                .expressionAttributeValues(values)
+                .build());
+    }
+
+    /**
+     * Creates the pointer item, starting from the results of the latest scan so results
+     * stored before per-check pointers existed stay visible. A no-op if another scan just
+     * created it.
+     */
+    private void seedLatestResults(Map<String, AttributeValue> key) {
+        Map<String, AttributeValue> checks = new HashMap<>();
+        getLatestScanId().ifPresent(scanId -> scanResultItems(Set.of(scanId)).forEach(item ->
+                checks.put(item.get("checkId").s(), AttributeValue.builder().s(scanId).build())));
+        Map<String, AttributeValue> item = new HashMap<>(key);
+        item.put("checks", AttributeValue.builder().m(checks).build());
+        try {
+            dynamoDbClient.putItem(PutItemRequest.builder()
+                    .tableName(metadataTableName)
+                    .item(item)
+                    .conditionExpression("attribute_not_exists(recordId)")
+                    .build());
+        } catch (ConditionalCheckFailedException e) {
+            log.debug("Latest results pointer already exists");
+        }
+    }
+
+    /**
+     * Scan id of the latest result of each check, by check key.
+     */
+    private Map<String, String> getLatestResultScans() {
+        GetItemResponse response = dynamoDbClient.getItem(GetItemRequest.builder()
+                .tableName(metadataTableName)
+                .key(Map.of("recordId", AttributeValue.builder().s(LATEST_RESULTS_RECORD).build()))
+                .consistentRead(true)
+                .build());
+        if (!response.hasItem() || !response.item().containsKey("checks")) {
+            return Map.of();
+        }
+        Map<String, String> scans = new HashMap<>();
+        response.item().get("checks").m().forEach((checkKey, scanId) -> scans.put(checkKey, scanId.s()));
+        return scans;
+    }
+
+    /**
+     * Returns the latest result of every check, read with one Query on the scan index per
+     * scan that produced one. Before any per-check pointer exists this is the latest
+     * completed scan's results, and results stored before scans were tagged with an id
+     * fall back to a full-history read.
+     */
     public List<CISCheckResult> getCISResults() {
         log.info("Retrieving CIS results from DynamoDB");
         List<CISCheckResult> results = new ArrayList<>();
 
         try {
-            ScanRequest request = ScanRequest.builder()
-                    .tableName(cisTableName)
-                    .build();
-
-            ScanResponse response = dynamoDbClient.scan(request);
-
-            for (Map<String, AttributeValue> item : response.items()) {
-                CISCheckResult result = CISCheckResult.builder()
-                        .checkId(item.get("checkId").s())
-                        .checkName(item.get("checkName").s())
-                        .description(item.get("description").s())
-                        .status(item.get("status").s())
-                        .evidence(item.get("evidence").s())
-                        .recommendation(item.get("recommendation").s())
-                        .severity(item.get("severity").s())
-                        .scanTimestamp(Long.parseLong(item.get("scanTimestamp").n()))
-                        .build();
+            Map<String, String> latestScans = getLatestResultScans();
+            if (!latestScans.isEmpty()) {
+                List<Map<String, AttributeValue>> items = new ArrayList<>();
+                scanResultItems(new TreeSet<>(latestScans.values())).stream()
+                        .filter(item -> item.get("scanId").s().equals(latestScans.get(item.get("checkId").s())))
+                        .forEach(items::add);
+                items.sort(Comparator.comparing(item -> item.get("checkId").s()));
+                return items.stream().map(this::toCISCheckResult).collect(Collectors.toList());
+            }
 
-                if (item.containsKey("resourceId")) {
-                    result.setResourceId(item.get("resourceId").s());
-                }
+            Optional<String> latestScanId = getLatestScanId();
+            if (latestScanId.isPresent()) {
+                return getCISResults(latestScanId.get());
+            }
 
-                results.add(result);
+            try (Stream<Map<String, AttributeValue>> items = tableScanner.scan(cisTableName)) {
+                items.map(this::toCISCheckResult).forEach(results::add);
             }
 
             // Sort by timestamp descending to get latest results first
             results.sort((a, b) -> Long.compare(b.getScanTimestamp(), a.getScanTimestamp()));
         } catch (ResourceNotFoundException e) {
-            log.info("CIS results table does not exist yet: {}", cisTableName);
+            tableMissing(metadataTableName);
         } catch (Exception e) {
             log.error("Error retrieving CIS results from DynamoDB", e);
         }
 
         return results;
     }
+
+    public List<CISCheckResult> getCISResults(String scanId) {
+        return scanResultItems(Set.of(scanId)).stream().map(this::toCISCheckResult).collect(Collectors.toList());
+    }
+
+    /**
+     * The stored results of {@code scanIds}, with one Query on the scan index per scan. While
+     * that index is still being built, e.g. just after it was added to an existing table,
+     * they are read from the full history instead.
+     */
+    private List<Map<String, AttributeValue>> scanResultItems(Set<String> scanIds) {
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        try {
+            if (!isIndexActive(cisTableName, CIS_SCAN_INDEX)) {
+                log.info("Index {} on {} is not active yet; reading results from the full history",
+                        CIS_SCAN_INDEX, cisTableName);
+                try (Stream<Map<String, AttributeValue>> history = tableScanner.scan(cisTableName)) {
+                    history.filter(item -> item.containsKey("scanId") && scanIds.contains(item.get("scanId").s()))
+                            .forEach(items::add);
+                }
+                return items;
+            }
+            for (String scanId : scanIds) {
+                QueryRequest request = QueryRequest.builder()
+                        .tableName(cisTableName)
+                        .indexName(CIS_SCAN_INDEX)
+                        .keyConditionExpression("scanId = :scanId")
+                        .expressionAttributeValues(Map.of(":scanId", AttributeValue.builder().s(scanId).build()))
+                        .build();
+
+                dynamoDbClient.queryPaginator(request).items().forEach(items::add);
+            }
+        } catch (ResourceNotFoundException e) {
+            tableMissing(cisTableName);
+        }
+        return items;
+    }
+
+    /**
+     * Whether {@code indexName} on {@code tableName} can be queried: ACTIVE and not
+     * backfilling. Once it is, that is remembered; until then every call describes the table.
+     */
+    private boolean isIndexActive(String tableName, String indexName) {
+        if (activeIndexes.contains(tableName + "/" + indexName)) {
+            return true;
+        }
+        TableDescription table = dynamoDbClient.describeTable(DescribeTableRequest.builder()
+                .tableName(tableName)
+                .build()).table();
+        boolean active = table.hasGlobalSecondaryIndexes() && table.globalSecondaryIndexes().stream()
+                .anyMatch(index -> index.indexName().equals(indexName)
+                        && index.indexStatus() == IndexStatus.ACTIVE
+                        && !Boolean.TRUE.equals(index.backfilling()));
+        if (active) {
+            activeIndexes.add(tableName + "/" + indexName);
+        }
+        return active;
+    }
+
+    EC2InstanceInfo toEC2InstanceInfo(Map<String, AttributeValue> item) {
+        StoredItem stored = new StoredItem(item, PACKED_INSTANCE_FIELDS);
+        return EC2InstanceInfo.builder()
+                .instanceId(stored.string("instanceId", null))
+                .instanceType(stored.string("instanceType", null))
+                .region(stored.string("region", null))
+                .publicIp(stored.string("publicIp", NOT_AVAILABLE))
+                .privateIp(stored.string("privateIp", NOT_AVAILABLE))
+                .state(stored.string("state", null))
+                .securityGroups(stored.list("securityGroups"))
+                .availabilityZone(stored.string("availabilityZone", null))
+                .launchTime(stored.timestamp("launchTime", NOT_AVAILABLE))
+                .scanTimestamp(stored.number("scanTimestamp"))
+                .scanId(stored.string("scanId", null))
+                .accountId(stored.string("accountId", null))
+                .build();
+    }
+
+    S3BucketInfo toS3BucketInfo(Map<String, AttributeValue> item) {
+        StoredItem stored = new StoredItem(item, PACKED_BUCKET_FIELDS);
+        return S3BucketInfo.builder()
+                .bucketName(stored.string("bucketName", null))
+                .region(stored.string("region", null))
+                .encryptionEnabled(stored.bool("encryptionEnabled"))
+                .encryptionType(stored.string("encryptionType", null))
+                .accessPolicy(stored.string("accessPolicy", null))
+                .blockPublicAccess(stored.bool("blockPublicAccess"))
+                .versioningEnabled(stored.bool("versioningEnabled"))
+                .creationDate(stored.timestamp("creationDate", NOT_AVAILABLE))
+                .scanTimestamp(stored.number("scanTimestamp"))
+                .scanId(stored.string("scanId", null))
+                .accountId(stored.string("accountId", null))
+                .build();
+    }
+
+    CISCheckResult toCISCheckResult(Map<String, AttributeValue> item) {
+        StoredItem stored = new StoredItem(item, List.of());
+        String checkKey = stored.string("checkId", "");
+        return CISCheckResult.builder()
+                .checkId(checkKey.substring(checkKey.indexOf(ACCOUNT_KEY_SEPARATOR) + 1))
+                .checkName(stored.string("checkName", null))
+                .description(stored.string("description", null))
+                .status(stored.string("status", null))
+                .evidence(stored.string("evidence", null))
+                .recommendation(stored.string("recommendation", null))
+                .severity(stored.string("severity", null))
+                .scanTimestamp(stored.number("scanTimestamp"))
+                .resourceId(stored.string("resourceId", null))
+                .scanId(stored.string("scanId", null))
+                .accountId(stored.string("accountId", null))
+                .durationMs(stored.number("durationMs"))
+                .build();
+    }
+
+    /**
+     * Reads an item field by field whether it was stored as plain attributes or packed, with
+     * missing fields read as a default instead of failing.
+     */
+    private static final class StoredItem {
+
+        private final Map<String, AttributeValue> item;
+        private final List<String> packedFields;
+        private List<Object> packed;
+
+        StoredItem(Map<String, AttributeValue> item, List<String> packedFields) {
+            this.item = item;
+            this.packedFields = packedFields;
+        }
+
+        String string(String name, String missing) {
+            AttributeValue value = item.get(name);
+            if (value != null && value.s() != null) {
+                return value.s();
+            }
+            Object packedValue = packed(name);
+            return packedValue != null ? packedValue.toString() : missing;
+        }
+
+        /**
+         * An ISO-8601 timestamp, stored as text or packed as epoch seconds.
+         */
+        String timestamp(String name, String missing) {
+            return packed(name) instanceof Number epochSeconds
+                    ? Instant.ofEpochSecond(epochSeconds.longValue()).toString()
+                    : string(name, missing);
+        }
+
+        boolean bool(String name) {
+            AttributeValue value = item.get(name);
+            if (value != null && value.bool() != null) {
+                return value.bool();
+            }
+            return Boolean.TRUE.equals(packed(name));
+        }
+
+        Long number(String name) {
+            AttributeValue value = item.get(name);
+            if (value != null && value.n() != null) {
+                return Long.parseLong(value.n());
+            }
+            return packed(name) instanceof Number number ? number.longValue() : null;
+        }
+
+        /**
+         * A list packed as such, or stored as a comma-separated string.
+         */
+        List<String> list(String name) {
+            AttributeValue value = item.get(name);
+            if (value != null && value.s() != null) {
+                return value.s().isEmpty() ? new ArrayList<>() : Arrays.asList(value.s().split(","));
+            }
+            if (packed(name) instanceof List<?> values) {
+                return values.stream().map(String::valueOf).collect(Collectors.toList());
+            }
+            return new ArrayList<>();
+        }
+
+        private Object packed(String name) {
+            int position = packedFields.indexOf(name);
+            if (position < 0) {
+                return null;
+            }
+            if (packed == null) {
+                packed = PackedAttributes.unpack(item);
+            }
+            return position < packed.size() ? packed.get(position) : null;
+        }
+    }
 }
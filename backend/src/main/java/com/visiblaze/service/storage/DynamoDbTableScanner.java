@@ -0,0 +1,255 @@
+package com.visiblaze.service.storage;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.Select;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads whole tables by following LastEvaluatedKey on every page. Large tables can be split
+ * into {@code aws.dynamodb.scan.segments} parallel segments; pages from all segments are
+ * handed to the caller through a bounded queue as they arrive, so nothing is collected in full.
+ * Callers must close the returned stream.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DynamoDbTableScanner {
+
+    // Identity-compared marker, so it must not be a shared empty-list singleton
+    private static final List<Map<String, AttributeValue>> END_OF_SEGMENT = Collections.unmodifiableList(new ArrayList<>());
+
+    private final DynamoDbClient dynamoDbClient;
+
+    @Value("${aws.dynamodb.scan.segments:4}")
+    private int totalSegments;
+
+    @Value("${aws.dynamodb.scan.buffered-pages:8}")
+    private int bufferedPages;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "dynamodb-scan-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    public Stream<Map<String, AttributeValue>> scan(String tableName) {
+        return scan(ScanRequest.builder().tableName(tableName).build());
+    }
+
+    public Stream<Map<String, AttributeValue>> scan(ScanRequest request) {
+        return scan(request, totalSegments);
+    }
+
+    public Stream<Map<String, AttributeValue>> scan(ScanRequest request, int segments) {
+        if (segments <= 1) {
+            Iterator<Map<String, AttributeValue>> items = segmentItems(request, 0, 1);
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(items, Spliterator.NONNULL), false);
+        }
+        return parallelScan(request, segments);
+    }
+
+    /**
+     * Counts the items in a table with Select.COUNT, so no attributes are transferred.
+     */
+    public long count(String tableName) {
+        ScanRequest request = ScanRequest.builder()
+                .tableName(tableName)
+                .select(Select.COUNT)
+                .build();
+        int segments = Math.max(1, totalSegments);
+        List<CompletableFuture<Long>> counts = IntStream.range(0, segments)
+                .mapToObj(segment -> CompletableFuture.supplyAsync(
+                        () -> countSegment(request, segment, segments), executor))
+                .toList();
+        return counts.stream().mapToLong(CompletableFuture::join).sum();
+    }
+
+    private long countSegment(ScanRequest request, int segment, int segments) {
+        long count = 0;
+        try {
+            for (ScanResponse page : dynamoDbClient.scanPaginator(segmentRequest(request, segment, segments))) {
+                count += page.count();
+            }
+        } catch (ResourceNotFoundException e) {
+            log.info("Table does not exist yet: {}", request.tableName());
+        }
+        return count;
+    }
+
+    private Stream<Map<String, AttributeValue>> parallelScan(ScanRequest request, int segments) {
+        BlockingQueue<List<Map<String, AttributeValue>>> pages = new ArrayBlockingQueue<>(Math.max(segments, bufferedPages));
+        AtomicBoolean cancelled = new AtomicBoolean();
+        PageFailure failure = new PageFailure();
+
+        for (int segment = 0; segment < segments; segment++) {
+            int current = segment;
+            executor.execute(() -> produceSegment(request, current, segments, pages, cancelled, failure));
+        }
+
+        Spliterator<Map<String, AttributeValue>> spliterator =
+                new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.NONNULL) {
+                    private Iterator<Map<String, AttributeValue>> page = Collections.emptyIterator();
+                    private int finishedSegments;
+
+                    @Override
+                    public boolean tryAdvance(Consumer<? super Map<String, AttributeValue>> action) {
+                        while (!page.hasNext()) {
+                            if (finishedSegments == segments) {
+                                return false;
+                            }
+                            List<Map<String, AttributeValue>> next = take(pages);
+                            if (next == END_OF_SEGMENT) {
+                                finishedSegments++;
+                                failure.rethrowIfFailed();
+                            } else {
+                                page = next.iterator();
+                            }
+                        }
+                        action.accept(page.next());
+                        return true;
+                    }
+                };
+
+        return StreamSupport.stream(spliterator, false).onClose(() -> cancelled.set(true));
+    }
+
+    private void produceSegment(ScanRequest request, int segment, int segments,
+                                BlockingQueue<List<Map<String, AttributeValue>>> pages,
+                                AtomicBoolean cancelled, PageFailure failure) {
+        try {
+            for (ScanResponse page : dynamoDbClient.scanPaginator(segmentRequest(request, segment, segments))) {
+                if (page.hasItems() && !page.items().isEmpty() && !offer(pages, page.items(), cancelled)) {
+                    return;
+                }
+            }
+        } catch (ResourceNotFoundException e) {
+            log.info("Table does not exist yet: {}", request.tableName());
+        } catch (Exception e) {
+            log.error("Error scanning segment {} of {} in {}", segment, segments, request.tableName(), e);
+            failure.record(e);
+        }
+        offer(pages, END_OF_SEGMENT, cancelled);
+    }
+
+    private Iterator<Map<String, AttributeValue>> segmentItems(ScanRequest request, int segment, int segments) {
+        Iterator<Map<String, AttributeValue>> items =
+                dynamoDbClient.scanPaginator(segmentRequest(request, segment, segments)).items().iterator();
+
+        return new Iterator<>() {
+            private boolean exhausted;
+
+            @Override
+            public boolean hasNext() {
+                if (exhausted) {
+                    return false;
+                }
+                try {
+                    return items.hasNext();
+                } catch (ResourceNotFoundException e) {
+                    log.info("Table does not exist yet: {}", request.tableName());
+                    exhausted = true;
+                    return false;
+                }
+            }
+
+            @Override
+            public Map<String, AttributeValue> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return items.next();
+            }
+        };
+    }
+
+    private ScanRequest segmentRequest(ScanRequest request, int segment, int segments) {
+        if (segments <= 1) {
+            return request;
+        }
+        return request.toBuilder()
+                .segment(segment)
+                .totalSegments(segments)
+                .build();
+    }
+
+    private static boolean offer(BlockingQueue<List<Map<String, AttributeValue>>> pages,
+                                 List<Map<String, AttributeValue>> page, AtomicBoolean cancelled) {
+        try {
+            while (!cancelled.get()) {
+                if (pages.offer(page, 100, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    private static List<Map<String, AttributeValue>> take(BlockingQueue<List<Map<String, AttributeValue>>> pages) {
+        try {
+            return pages.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for DynamoDB scan pages", e);
+        }
+    }
+
+    private static final class PageFailure {
+        private volatile Exception error;
+
+        void record(Exception e) {
+            error = e;
+        }
+
+        void rethrowIfFailed() {
+            Exception e = error;
+            if (e != null) {
+                throw e instanceof RuntimeException runtimeException
+                        ? runtimeException
+                        : new IllegalStateException(e.getMessage(), e);
+            }
+        }
+    }
+}
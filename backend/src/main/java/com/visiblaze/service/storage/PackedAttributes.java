@@ -0,0 +1,142 @@
+package com.visiblaze.service.storage;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The fields of an item that are only ever read back whole, packed into one binary
+ * {@value #ATTRIBUTE} attribute as a CBOR array. Fields are identified by position, so field
+ * names are not repeated in every item. The array is deflated once it is large enough for that
+ * to pay off, and the first byte says which. Keys and the fields worth filtering on stay
+ * plain attributes.
+ */
+final class PackedAttributes {
+
+    static final String ATTRIBUTE = "payload";
+
+    private static final byte CBOR = 0;
+    private static final byte DEFLATED_CBOR = 1;
+    private static final int DEFLATE_ABOVE_BYTES = 256;
+    private static final CBORFactory CBOR_FACTORY = new CBORFactory();
+
+    private PackedAttributes() {
+    }
+
+    /**
+     * Packs {@code values} in order: strings, booleans, whole numbers, lists of strings or
+     * nulls.
+     */
+    static AttributeValue pack(Object... values) {
+        try {
+            ByteArrayOutputStream cbor = new ByteArrayOutputStream(128);
+            try (JsonGenerator generator = CBOR_FACTORY.createGenerator(cbor)) {
+                generator.writeStartArray(null, values.length);
+                for (Object value : values) {
+                    writeValue(generator, value);
+                }
+                generator.writeEndArray();
+            }
+            ByteArrayOutputStream packed = new ByteArrayOutputStream(cbor.size() + 1);
+            if (cbor.size() > DEFLATE_ABOVE_BYTES) {
+                packed.write(DEFLATED_CBOR);
+                Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+                try (DeflaterOutputStream out = new DeflaterOutputStream(packed, deflater)) {
+                    cbor.writeTo(out);
+                } finally {
+                    deflater.end();
+                }
+            } else {
+                packed.write(CBOR);
+                cbor.writeTo(packed);
+            }
+            return AttributeValue.builder().b(SdkBytes.fromByteArrayUnsafe(packed.toByteArray())).build();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to pack item attributes: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * The values packed into {@code item} in order, or none if it was stored as plain
+     * attributes.
+     */
+    static List<Object> unpack(Map<String, AttributeValue> item) {
+        AttributeValue payload = item.get(ATTRIBUTE);
+        if (payload == null || payload.b() == null) {
+            return Collections.emptyList();
+        }
+        byte[] packed = payload.b().asByteArrayUnsafe();
+        try (JsonParser parser = packed[0] == DEFLATED_CBOR
+                ? CBOR_FACTORY.createParser(new InflaterInputStream(
+                        new ByteArrayInputStream(packed, 1, packed.length - 1)))
+                : CBOR_FACTORY.createParser(packed, 1, packed.length - 1)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a CBOR array");
+            }
+            List<Object> values = new ArrayList<>(8);
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                values.add(readValue(parser, token));
+            }
+            return values;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to unpack item attributes: " + e.getMessage(), e);
+        }
+    }
+
+    private static void writeValue(JsonGenerator generator, Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof String string) {
+            generator.writeString(string);
+        } else if (value instanceof Boolean bool) {
+            generator.writeBoolean(bool);
+        } else if (value instanceof Number number) {
+            generator.writeNumber(number.longValue());
+        } else if (value instanceof List<?> list) {
+            generator.writeStartArray(list, list.size());
+            for (Object element : list) {
+                generator.writeString(String.valueOf(element));
+            }
+            generator.writeEndArray();
+        } else {
+            throw new IOException("Cannot pack " + value.getClass().getSimpleName());
+        }
+    }
+
+    private static Object readValue(JsonParser parser, JsonToken token) throws IOException {
+        switch (token) {
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_NUMBER_INT:
+                return parser.getLongValue();
+            case START_ARRAY:
+                List<String> values = new ArrayList<>();
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    values.add(parser.getText());
+                }
+                return values;
+            default:
+                parser.skipChildren();
+                return null;
+        }
+    }
+}
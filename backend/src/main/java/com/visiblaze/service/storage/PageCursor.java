@@ -0,0 +1,70 @@
+package com.visiblaze.service.storage;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Opaque pagination cursor: a DynamoDB {@code LastEvaluatedKey} as URL-safe base64 JSON.
+ * Every key attribute of the inventory tables and their indexes is a string.
+ */
+final class PageCursor {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final TypeReference<Map<String, String>> KEY_TYPE = new TypeReference<>() {
+    };
+
+    private PageCursor() {
+    }
+
+    static String encode(Map<String, AttributeValue> key) {
+        if (key == null || key.isEmpty()) {
+            return null;
+        }
+        Map<String, String> values = new LinkedHashMap<>();
+        key.forEach((name, value) -> values.put(name, value.s()));
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(JSON.writeValueAsBytes(values));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to encode page cursor: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Decodes a cursor issued for a listing keyed by {@code keyAttributes}, where the index key
+     * attributes in {@code indexKey} must hold the listed values.
+     *
+     * @throws IllegalArgumentException if the cursor is malformed or was issued for a listing
+     *                                  with different filters
+     */
+    static Map<String, AttributeValue> decode(String cursor, Set<String> keyAttributes,
+                                              Map<String, String> indexKey) {
+        Map<String, String> values;
+        try {
+            values = JSON.readValue(Base64.getUrlDecoder().decode(cursor), KEY_TYPE);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        if (values == null || !values.keySet().equals(keyAttributes) || values.containsValue(null)) {
+            throw new IllegalArgumentException("Cursor does not belong to this listing");
+        }
+        if (values.containsValue("")) {
+            // DynamoDB rejects empty key values
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        indexKey.forEach((name, value) -> {
+            if (!value.equals(values.get(name))) {
+                throw new IllegalArgumentException("Cursor does not belong to this listing");
+            }
+        });
+        Map<String, AttributeValue> key = new LinkedHashMap<>();
+        values.forEach((name, value) -> key.put(name, AttributeValue.builder().s(value).build()));
+        return key;
+    }
+}
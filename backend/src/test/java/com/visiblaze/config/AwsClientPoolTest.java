@@ -0,0 +1,162 @@
+package com.visiblaze.config;
+
+import com.sun.net.httpserver.HttpServer;
+import com.visiblaze.model.AwsAccount;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.services.sts.auth.StsAssumeRoleCredentialsProvider;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AwsClientPoolTest {
+
+    private static final AwsAccount ACCOUNT =
+            new AwsAccount("111111111111", "arn:aws:iam::111111111111:role/ScannerRole");
+    private static final AwsAccount OTHER_ACCOUNT =
+            new AwsAccount("222222222222", "arn:aws:iam::222222222222:role/ScannerRole");
+
+    private final List<String> assumeRoleRequests = new CopyOnWriteArrayList<>();
+    private final AtomicInteger issued = new AtomicInteger();
+    private final StaticCredentialsProvider baseCredentials =
+            StaticCredentialsProvider.create(AwsBasicCredentials.create("AKIDBASE", "base-secret"));
+    private HttpServer sts;
+    private AwsHttpClients httpClients;
+    private AwsClientPool pool;
+
+    @BeforeEach
+    void startSts() throws IOException {
+        sts = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        sts.createContext("/", exchange -> {
+            assumeRoleRequests.add(URLDecoder.decode(
+                    new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8), StandardCharsets.UTF_8));
+            byte[] body = assumeRoleResponse("ASIA" + issued.incrementAndGet(), Instant.now().plus(Duration.ofHours(1)));
+            exchange.getResponseHeaders().add("Content-Type", "text/xml");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        sts.start();
+
+        httpClients = new AwsHttpClients();
+        ReflectionTestUtils.setField(httpClients, "maxConnections", 4);
+        ReflectionTestUtils.setField(httpClients, "asyncMaxConcurrency", 4);
+        ReflectionTestUtils.setField(httpClients, "asyncMaxPendingAcquires", 4);
+        ReflectionTestUtils.setField(httpClients, "connectionTimeoutMs", 2000L);
+        ReflectionTestUtils.setField(httpClients, "connectionAcquisitionTimeoutMs", 2000L);
+        ReflectionTestUtils.setField(httpClients, "socketTimeoutMs", 5000L);
+        ReflectionTestUtils.setField(httpClients, "connectionTtlSeconds", 60L);
+        ReflectionTestUtils.setField(httpClients, "connectionMaxIdleSeconds", 60L);
+        httpClients.start();
+    }
+
+    @AfterEach
+    void stop() {
+        if (pool != null) {
+            pool.close();
+        }
+        httpClients.stop();
+        sts.stop(0);
+    }
+
+    @Test
+    void ownAccountUsesTheApplicationCredentials() {
+        pool = pool(300);
+
+        assertThat(pool.credentials(AwsAccount.SELF)).isSameAs(baseCredentials);
+        assertThat(assumeRoleRequests).isEmpty();
+    }
+
+    @Test
+    void assumedRoleCredentialsAreCachedPerAccount() {
+        pool = pool(300);
+
+        AwsCredentialsProvider provider = pool.credentials(ACCOUNT);
+        AwsCredentials first = provider.resolveCredentials();
+        AwsCredentials second = pool.credentials(ACCOUNT).resolveCredentials();
+
+        assertThat(pool.credentials(ACCOUNT)).isSameAs(provider);
+        assertThat(second.accessKeyId()).isEqualTo(first.accessKeyId()).isEqualTo("ASIA1");
+        assertThat(assumeRoleRequests).hasSize(1);
+        assertThat(assumeRoleRequests.get(0))
+                .contains("Action=AssumeRole")
+                .contains("RoleArn=arn:aws:iam::111111111111:role/ScannerRole")
+                .contains("RoleSessionName=scanner-test")
+                .contains("ExternalId=external-1")
+                .contains("DurationSeconds=3600");
+
+        assertThat(pool.credentials(OTHER_ACCOUNT)).isNotSameAs(provider);
+        assertThat(pool.credentials(OTHER_ACCOUNT).resolveCredentials().accessKeyId()).isEqualTo("ASIA2");
+        assertThat(assumeRoleRequests).hasSize(2);
+    }
+
+    @Test
+    void credentialsAreRefreshedBeforeTheyExpire() {
+        // The SDK jitters when a refresh actually runs, so check the windows it is given
+        pool = pool(900);
+        assertThat(pool.credentials(ACCOUNT)).isInstanceOfSatisfying(StsAssumeRoleCredentialsProvider.class,
+                provider -> {
+                    assertThat(provider.prefetchTime()).isEqualTo(Duration.ofSeconds(900));
+                    assertThat(provider.staleTime()).isEqualTo(Duration.ofSeconds(450));
+                });
+        pool.close();
+
+        pool = pool(60);
+        assertThat(pool.credentials(ACCOUNT)).isInstanceOfSatisfying(StsAssumeRoleCredentialsProvider.class,
+                provider -> assertThat(provider.staleTime()).isEqualTo(Duration.ofSeconds(60)));
+    }
+
+    private AwsClientPool pool(int refreshBeforeExpirySeconds) {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AwsClientPool clientPool = new AwsClientPool(baseCredentials, new AwsRateLimiter(registry),
+                new AwsMetricsInterceptor(registry), httpClients, new AwsHttpPoolMetrics(registry), Optional.empty());
+        ReflectionTestUtils.setField(clientPool, "homeRegion", "us-east-1");
+        ReflectionTestUtils.setField(clientPool, "stsEndpoint", "http://127.0.0.1:" + sts.getAddress().getPort());
+        ReflectionTestUtils.setField(clientPool, "externalId", "external-1");
+        ReflectionTestUtils.setField(clientPool, "roleSessionName", "scanner-test");
+        ReflectionTestUtils.setField(clientPool, "roleDurationSeconds", 3600);
+        ReflectionTestUtils.setField(clientPool, "refreshBeforeExpirySeconds", refreshBeforeExpirySeconds);
+        return clientPool;
+    }
+
+    private static byte[] assumeRoleResponse(String accessKeyId, Instant expiration) {
+        return ("""
+                <AssumeRoleResponse xmlns="https://sts.amazonaws.com/doc/2011-06-15/">
+                  <AssumeRoleResult>
+                    <Credentials>
+                      <AccessKeyId>%s</AccessKeyId>
+                      <SecretAccessKey>secret</SecretAccessKey>
+                      <SessionToken>token</SessionToken>
+                      <Expiration>%s</Expiration>
+                    </Credentials>
+                    <AssumedRoleUser>
+                      <AssumedRoleId>AROATEST:scanner-test</AssumedRoleId>
+                      <Arn>arn:aws:sts::111111111111:assumed-role/ScannerRole/scanner-test</Arn>
+                    </AssumedRoleUser>
+                  </AssumeRoleResult>
+                  <ResponseMetadata>
+                    <RequestId>test</RequestId>
+                  </ResponseMetadata>
+                </AssumeRoleResponse>
+                """.formatted(accessKeyId, expiration)).getBytes(StandardCharsets.UTF_8);
+    }
+}
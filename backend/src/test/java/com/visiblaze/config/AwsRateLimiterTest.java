@@ -0,0 +1,96 @@
+package com.visiblaze.config;
+
+import com.visiblaze.model.AwsAccount;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.core.exception.AbortedException;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.regions.Region;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AwsRateLimiterTest {
+
+    private final AwsRateLimiter rateLimiter = rateLimiter(2);
+
+    @AfterEach
+    void clearInterrupt() {
+        Thread.interrupted();
+    }
+
+    @Test
+    void asyncRetriesTakeTokensWithoutWaiting() {
+        ExecutionInterceptor interceptor = interceptor(true);
+        ExecutionAttributes request = new ExecutionAttributes();
+
+        // The first attempt sends with the token its caller took, the retries go into debt
+        long retries = elapsedMillis(() -> {
+            interceptor.beforeExecution(null, request);
+            interceptor.beforeTransmission(null, request);
+            interceptor.beforeTransmission(null, request);
+            interceptor.beforeTransmission(null, request);
+        });
+        // The retries left the bucket one token in debt, so the next caller waits for two
+        long nextRequest = elapsedMillis(() -> interceptor.beforeExecution(null, new ExecutionAttributes()));
+
+        assertThat(retries).isLessThan(200);
+        assertThat(nextRequest).isBetween(800L, 2000L);
+    }
+
+    @Test
+    void syncClientsWaitBeforeEachAttempt() {
+        ExecutionInterceptor interceptor = interceptor(false);
+        ExecutionAttributes request = new ExecutionAttributes();
+
+        long attempts = elapsedMillis(() -> {
+            interceptor.beforeExecution(null, request);
+            for (int attempt = 0; attempt < 3; attempt++) {
+                interceptor.beforeTransmission(null, request);
+            }
+        });
+
+        assertThat(attempts).isBetween(300L, 1500L);
+    }
+
+    @Test
+    void interruptedCallerIsAbortedBeforeTheRequestStarts() {
+        ExecutionInterceptor interceptor = interceptor(true);
+        interceptor.beforeExecution(null, new ExecutionAttributes());
+        interceptor.beforeExecution(null, new ExecutionAttributes());
+
+        Thread.currentThread().interrupt();
+
+        assertThatThrownBy(() -> interceptor.beforeExecution(null, new ExecutionAttributes()))
+                .isInstanceOf(AbortedException.class);
+        assertThat(Thread.currentThread().isInterrupted()).isTrue();
+    }
+
+    private ExecutionInterceptor interceptor(boolean async) {
+        return rateLimiter.overrides("s3", AwsAccount.SELF, Region.US_EAST_1, async)
+                .executionInterceptors().get(0);
+    }
+
+    private static long elapsedMillis(Runnable work) {
+        long started = System.nanoTime();
+        work.run();
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+    }
+
+    private static AwsRateLimiter rateLimiter(double rate) {
+        AwsRateLimiter limiter = new AwsRateLimiter(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(limiter, "enabled", true);
+        ReflectionTestUtils.setField(limiter, "initialRate", rate);
+        ReflectionTestUtils.setField(limiter, "minRate", rate);
+        ReflectionTestUtils.setField(limiter, "maxRate", rate);
+        ReflectionTestUtils.setField(limiter, "increasePerSecond", 0.0);
+        ReflectionTestUtils.setField(limiter, "decreaseFactor", 0.5);
+        ReflectionTestUtils.setField(limiter, "maxThrottlingRetries", 3);
+        return limiter;
+    }
+}
@@ -0,0 +1,74 @@
+package com.visiblaze.service;
+
+import com.visiblaze.model.AwsAccount;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AccountFanOutTest {
+
+    private AccountFanOut fanOut;
+
+    @AfterEach
+    void stopFanOut() {
+        if (fanOut != null && ReflectionTestUtils.getField(fanOut, "executor") != null) {
+            fanOut.stop();
+        }
+    }
+
+    @Test
+    void noAccountsMeansTheApplicationsOwn() {
+        assertThat(accounts("")).containsExactly(AwsAccount.SELF);
+        assertThat(accounts(" ")).containsExactly(AwsAccount.SELF);
+    }
+
+    @Test
+    void accountIdsAssumeTheConfiguredRole() {
+        assertThat(accounts("111111111111, 222222222222,111111111111")).containsExactly(
+                new AwsAccount("111111111111", "arn:aws:iam::111111111111:role/ScannerRole"),
+                new AwsAccount("222222222222", "arn:aws:iam::222222222222:role/ScannerRole"));
+    }
+
+    @Test
+    void roleArnGivesTheAccountId() {
+        assertThat(accounts("arn:aws:iam::333333333333:role/path/Custom,arn:aws-cn:iam::444444444444:role/Other"))
+                .containsExactly(
+                        new AwsAccount("333333333333", "arn:aws:iam::333333333333:role/path/Custom"),
+                        new AwsAccount("444444444444", "arn:aws-cn:iam::444444444444:role/Other"));
+    }
+
+    @Test
+    void invalidEntriesAreRejected() {
+        assertThatThrownBy(() -> accounts("12345")).isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Invalid account id");
+        assertThatThrownBy(() -> accounts("arn:aws:iam::role/Name")).isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Invalid role ARN");
+        assertThatThrownBy(() -> accounts("arn:aws:iam::not-an-id:role/Name")).isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Invalid role ARN");
+    }
+
+    @Test
+    void forEachAccountKeepsAccountOrder() {
+        List<AwsAccount> accounts = accounts("111111111111,222222222222,333333333333");
+
+        Map<AwsAccount, String> results = fanOut.forEachAccount(AwsAccount::getAccountId);
+
+        assertThat(results.keySet()).containsExactlyElementsOf(accounts);
+        assertThat(results.values()).containsExactly("111111111111", "222222222222", "333333333333");
+    }
+
+    private List<AwsAccount> accounts(String accountList) {
+        fanOut = new AccountFanOut();
+        ReflectionTestUtils.setField(fanOut, "accountList", accountList);
+        ReflectionTestUtils.setField(fanOut, "roleName", "ScannerRole");
+        ReflectionTestUtils.setField(fanOut, "maxConcurrentAccounts", 2);
+        fanOut.start();
+        return fanOut.accounts();
+    }
+}
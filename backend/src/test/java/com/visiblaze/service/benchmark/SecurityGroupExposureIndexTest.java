@@ -0,0 +1,150 @@
+package com.visiblaze.service.benchmark;
+
+import com.visiblaze.service.benchmark.SecurityGroupExposureIndex.Exposure;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.ec2.model.IpPermission;
+import software.amazon.awssdk.services.ec2.model.IpRange;
+import software.amazon.awssdk.services.ec2.model.Ipv6Range;
+import software.amazon.awssdk.services.ec2.model.SecurityGroup;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SecurityGroupExposureIndexTest {
+
+    private static final String WORLD_V4 = "0.0.0.0/0";
+    private static final String WORLD_V6 = "::/0";
+
+    @Test
+    void fullPortRangeExposesEveryPort() {
+        SecurityGroupExposureIndex index = SecurityGroupExposureIndex.build(List.of(
+                group("sg-all", tcp(0, 65535, WORLD_V4))));
+
+        assertThat(groupIds(index.exposing(0, WORLD_V4))).containsExactly("sg-all");
+        assertThat(groupIds(index.exposing(22, WORLD_V4))).containsExactly("sg-all");
+        assertThat(groupIds(index.exposing(65535, WORLD_V4))).containsExactly("sg-all");
+    }
+
+    @Test
+    void portRangeExposesOnlyPortsInside() {
+        SecurityGroupExposureIndex index = SecurityGroupExposureIndex.build(List.of(
+                group("sg-range", tcp(20, 23, WORLD_V4))));
+
+        Map<Integer, List<Exposure>> exposed = index.exposing(List.of(19, 20, 22, 23, 24, 3389), WORLD_V4);
+
+        assertThat(exposed.keySet()).containsExactly(19, 20, 22, 23, 24, 3389);
+        assertThat(exposed.get(19)).isEmpty();
+        assertThat(groupIds(exposed.get(20))).containsExactly("sg-range");
+        assertThat(groupIds(exposed.get(22))).containsExactly("sg-range");
+        assertThat(groupIds(exposed.get(23))).containsExactly("sg-range");
+        assertThat(exposed.get(24)).isEmpty();
+        assertThat(exposed.get(3389)).isEmpty();
+    }
+
+    @Test
+    void allTrafficRuleCoversEveryPort() {
+        SecurityGroupExposureIndex index = SecurityGroupExposureIndex.build(List.of(
+                group("sg-any", permission("-1", null, null, WORLD_V4))));
+
+        Exposure exposure = index.exposing(3389, WORLD_V4).get(0);
+        assertThat(exposure.groupId()).isEqualTo("sg-any");
+        assertThat(exposure.fromPort()).isZero();
+        assertThat(exposure.toPort()).isEqualTo(65535);
+    }
+
+    @Test
+    void tcpRuleWithoutPortsCoversEveryPort() {
+        SecurityGroupExposureIndex index = SecurityGroupExposureIndex.build(List.of(
+                group("sg-null", permission("tcp", null, null, WORLD_V4)),
+                group("sg-minus-one", permission("tcp", -1, -1, WORLD_V4))));
+
+        assertThat(groupIds(index.exposing(22, WORLD_V4))).containsExactlyInAnyOrder("sg-null", "sg-minus-one");
+    }
+
+    @Test
+    void addressFamiliesAreIndexedSeparately() {
+        SecurityGroupExposureIndex index = SecurityGroupExposureIndex.build(List.of(
+                group("sg-v4", tcp(22, 22, WORLD_V4)),
+                SecurityGroup.builder()
+                        .groupId("sg-v6")
+                        .groupName("sg-v6")
+                        .ipPermissions(IpPermission.builder()
+                                .ipProtocol("tcp")
+                                .fromPort(22)
+                                .toPort(22)
+                                .ipv6Ranges(Ipv6Range.builder().cidrIpv6(WORLD_V6).build())
+                                .build())
+                        .build()));
+
+        assertThat(groupIds(index.exposing(22, WORLD_V4))).containsExactly("sg-v4");
+        assertThat(groupIds(index.exposing(22, WORLD_V6))).containsExactly("sg-v6");
+    }
+
+    @Test
+    void narrowerCidrDoesNotExposeToTheWorld() {
+        SecurityGroupExposureIndex index = SecurityGroupExposureIndex.build(List.of(
+                group("sg-office", tcp(22, 22, "203.0.113.0/24")),
+                group("sg-half", tcp(22, 22, "0.0.0.0/1"))));
+
+        assertThat(index.exposing(22, WORLD_V4)).isEmpty();
+        assertThat(groupIds(index.exposing(22, "203.0.113.7/32"))).containsExactly("sg-office");
+        assertThat(groupIds(index.exposing(22, "10.0.0.0/8"))).containsExactly("sg-half");
+        assertThat(index.exposing(22, "198.51.100.0/24")).isEmpty();
+    }
+
+    @Test
+    void icmpRulesAreNotIndexed() {
+        SecurityGroupExposureIndex index = SecurityGroupExposureIndex.build(List.of(
+                group("sg-icmp", permission("icmp", -1, -1, WORLD_V4))));
+
+        assertThat(index.size()).isZero();
+        assertThat(index.exposing(22, WORLD_V4)).isEmpty();
+    }
+
+    @Test
+    void everyRuleOpeningAPortIsReported() {
+        SecurityGroupExposureIndex index = SecurityGroupExposureIndex.build(List.of(
+                group("sg-twice", tcp(22, 22, WORLD_V4), tcp(0, 1024, WORLD_V4))));
+
+        List<Exposure> exposures = index.exposing(22, WORLD_V4);
+
+        assertThat(groupIds(exposures)).containsExactly("sg-twice", "sg-twice");
+        assertThat(exposures).extracting(Exposure::toPort).containsExactlyInAnyOrder(22, 1024);
+    }
+
+    @Test
+    void invalidCidrIsRejected() {
+        SecurityGroupExposureIndex index = SecurityGroupExposureIndex.build(List.of());
+
+        assertThatThrownBy(() -> index.exposing(22, "example.com/0")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> index.exposing(22, "10.0.0.0/33")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    static SecurityGroup group(String groupId, IpPermission... permissions) {
+        return SecurityGroup.builder()
+                .groupId(groupId)
+                .groupName(groupId)
+                .ipPermissions(permissions)
+                .build();
+    }
+
+    static IpPermission tcp(int fromPort, int toPort, String cidr) {
+        return permission("tcp", fromPort, toPort, cidr);
+    }
+
+    static IpPermission permission(String protocol, Integer fromPort, Integer toPort, String cidr) {
+        return IpPermission.builder()
+                .ipProtocol(protocol)
+                .fromPort(fromPort)
+                .toPort(toPort)
+                .ipRanges(IpRange.builder().cidrIp(cidr).build())
+                .build();
+    }
+
+    private static List<String> groupIds(List<Exposure> exposures) {
+        return exposures.stream().map(Exposure::groupId).toList();
+    }
+}
@@ -0,0 +1,57 @@
+package com.visiblaze.service.benchmark.checks;
+
+import com.visiblaze.model.CISCheckResult;
+import com.visiblaze.model.InventorySnapshot;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.ec2.model.IpPermission;
+import software.amazon.awssdk.services.ec2.model.IpRange;
+import software.amazon.awssdk.services.ec2.model.Ipv6Range;
+import software.amazon.awssdk.services.ec2.model.SecurityGroup;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SecurityGroupsRestrictedCheckTest {
+
+    private final SecurityGroupsRestrictedCheck check = new SecurityGroupsRestrictedCheck();
+
+    @Test
+    void groupOpeningAPortThroughSeveralRulesIsReportedOnce() {
+        SecurityGroup group = SecurityGroup.builder()
+                .groupId("sg-open")
+                .ipPermissions(
+                        IpPermission.builder().ipProtocol("tcp").fromPort(22).toPort(22)
+                                .ipRanges(IpRange.builder().cidrIp("0.0.0.0/0").build())
+                                .ipv6Ranges(Ipv6Range.builder().cidrIpv6("::/0").build())
+                                .build(),
+                        IpPermission.builder().ipProtocol("-1")
+                                .ipRanges(IpRange.builder().cidrIp("0.0.0.0/0").build())
+                                .build())
+                .build();
+
+        CISCheckResult result = check.run(snapshot(group));
+
+        assertThat(result.getStatus()).isEqualTo("FAIL");
+        assertThat(result.getResourceId()).isEqualTo("sg-open (Port 22 (SSH)),sg-open (Port 3389 (RDP))");
+    }
+
+    @Test
+    void restrictedGroupsPass() {
+        SecurityGroup group = SecurityGroup.builder()
+                .groupId("sg-office")
+                .ipPermissions(IpPermission.builder().ipProtocol("tcp").fromPort(22).toPort(22)
+                        .ipRanges(IpRange.builder().cidrIp("203.0.113.0/24").build())
+                        .build())
+                .build();
+
+        assertThat(check.run(snapshot(group)).getStatus()).isEqualTo("PASS");
+    }
+
+    private static InventorySnapshot snapshot(SecurityGroup... groups) {
+        return InventorySnapshot.builder()
+                .scanId("scan-1")
+                .securityGroups(List.of(groups))
+                .build();
+    }
+}
@@ -0,0 +1,251 @@
+package com.visiblaze.service.discovery;
+
+import com.visiblaze.config.AwsClientPool;
+import com.visiblaze.model.AwsAccount;
+import com.visiblaze.model.S3BucketInfo;
+import com.visiblaze.service.discovery.S3DiscoveryService.BucketDiscovery;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.Bucket;
+import software.amazon.awssdk.services.s3.model.BucketVersioningStatus;
+import software.amazon.awssdk.services.s3.model.GetBucketEncryptionRequest;
+import software.amazon.awssdk.services.s3.model.GetBucketEncryptionResponse;
+import software.amazon.awssdk.services.s3.model.GetBucketLocationRequest;
+import software.amazon.awssdk.services.s3.model.GetBucketLocationResponse;
+import software.amazon.awssdk.services.s3.model.GetBucketPolicyStatusRequest;
+import software.amazon.awssdk.services.s3.model.GetBucketPolicyStatusResponse;
+import software.amazon.awssdk.services.s3.model.GetBucketVersioningRequest;
+import software.amazon.awssdk.services.s3.model.GetBucketVersioningResponse;
+import software.amazon.awssdk.services.s3.model.GetPublicAccessBlockRequest;
+import software.amazon.awssdk.services.s3.model.GetPublicAccessBlockResponse;
+import software.amazon.awssdk.services.s3.model.ListBucketsResponse;
+import software.amazon.awssdk.services.s3.model.PolicyStatus;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class S3DiscoveryServiceTest {
+
+    private static final String THROTTLED_BUCKET = "bucket-throttled";
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void throttledBucketIsReportedInsteadOfReadAsUnencrypted(boolean concurrent) {
+        S3DiscoveryService discoveryService = new S3DiscoveryService(new StubClientPool());
+        ReflectionTestUtils.setField(discoveryService, "concurrentDiscovery", concurrent);
+        ReflectionTestUtils.setField(discoveryService, "maxConcurrency", 2);
+
+        BucketDiscovery discovery = discoveryService.discoverBuckets(AwsAccount.SELF);
+
+        assertThat(discovery.buckets()).extracting(S3BucketInfo::getBucketName)
+                .containsExactly("bucket-a", "bucket-b");
+        assertThat(discovery.buckets()).allMatch(S3BucketInfo::isEncryptionEnabled);
+        assertThat(discovery.failedBuckets()).containsExactly(THROTTLED_BUCKET);
+        assertThat(discovery.complete()).isFalse();
+        assertThat(discovery.failureMessage()).isEqualTo("Failed to read 1 of 3 bucket(s): bucket-throttled");
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 12})
+    void failureMessageNamesAtMostTenBuckets(int failed) {
+        Set<String> failedBuckets = new TreeSet<>();
+        for (int i = 0; i < failed; i++) {
+            failedBuckets.add(String.format("bucket-%02d", i));
+        }
+
+        BucketDiscovery discovery = new BucketDiscovery(List.of(), failedBuckets);
+
+        assertThat(discovery.complete()).isEqualTo(failed == 0);
+        if (failed > 0) {
+            assertThat(discovery.failureMessage()).startsWith("Failed to read 12 of 12 bucket(s): bucket-00, ")
+                    .endsWith("bucket-09 and 2 more");
+        }
+    }
+
+    @Test
+    void interruptCancelsRequestsInFlightAndSendsNoMore() throws InterruptedException {
+        StubClientPool clientPool = new StubClientPool(true);
+        S3DiscoveryService discoveryService = new S3DiscoveryService(clientPool);
+        ReflectionTestUtils.setField(discoveryService, "concurrentDiscovery", true);
+        ReflectionTestUtils.setField(discoveryService, "maxConcurrency", 1);
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        AtomicBoolean interrupted = new AtomicBoolean();
+
+        Thread discovery = new Thread(() -> {
+            try {
+                discoveryService.discoverBuckets(AwsAccount.SELF);
+            } catch (Throwable e) {
+                thrown.set(e);
+                interrupted.set(Thread.currentThread().isInterrupted());
+            }
+        });
+        discovery.start();
+        // The first bucket's requests never complete, so the second waits for a permit
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (clientPool.sent.size() < 5 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        discovery.interrupt();
+        discovery.join(5_000);
+
+        assertThat(discovery.isAlive()).isFalse();
+        assertThat(thrown.get()).hasRootCauseInstanceOf(InterruptedException.class);
+        assertThat(interrupted).isTrue();
+        assertThat(clientPool.sent).hasSize(5).allMatch(CompletableFuture::isCancelled);
+    }
+
+    private static <T> T unlessThrottled(String bucket, Supplier<T> response) {
+        if (THROTTLED_BUCKET.equals(bucket)) {
+            throw (S3Exception) S3Exception.builder()
+                    .statusCode(503)
+                    .awsErrorDetails(AwsErrorDetails.builder().errorCode("SlowDown").errorMessage("Slow Down").build())
+                    .build();
+        }
+        return response.get();
+    }
+
+    private static GetBucketEncryptionResponse encrypted() {
+        return GetBucketEncryptionResponse.builder()
+                .serverSideEncryptionConfiguration(configuration -> configuration.rules(rule -> rule
+                        .applyServerSideEncryptionByDefault(encryption -> encryption.sseAlgorithm("AES256"))))
+                .build();
+    }
+
+    /**
+     * Serves three buckets; every encryption lookup of one of them is throttled.
+     */
+    private static final class StubClientPool extends AwsClientPool {
+
+        private final boolean hang;
+        private final List<CompletableFuture<?>> sent = new CopyOnWriteArrayList<>();
+
+        StubClientPool() {
+            this(false);
+        }
+
+        /**
+         * @param hang whether async requests never complete, recording them in {@link #sent}
+         */
+        StubClientPool(boolean hang) {
+            super(null, null, null, null, null, Optional.empty());
+            this.hang = hang;
+        }
+
+        @Override
+        public S3Client s3(AwsAccount account) {
+            return new S3Client() {
+                @Override
+                public ListBucketsResponse listBuckets() {
+                    return ListBucketsResponse.builder()
+                            .buckets(Bucket.builder().name("bucket-a").build(),
+                                    Bucket.builder().name(THROTTLED_BUCKET).build(),
+                                    Bucket.builder().name("bucket-b").build())
+                            .build();
+                }
+
+                @Override
+                public GetBucketLocationResponse getBucketLocation(GetBucketLocationRequest request) {
+                    return GetBucketLocationResponse.builder().locationConstraint("eu-west-1").build();
+                }
+
+                @Override
+                public GetBucketEncryptionResponse getBucketEncryption(GetBucketEncryptionRequest request) {
+                    return unlessThrottled(request.bucket(), S3DiscoveryServiceTest::encrypted);
+                }
+
+                @Override
+                public GetBucketPolicyStatusResponse getBucketPolicyStatus(GetBucketPolicyStatusRequest request) {
+                    return GetBucketPolicyStatusResponse.builder()
+                            .policyStatus(PolicyStatus.builder().isPublic(false).build())
+                            .build();
+                }
+
+                @Override
+                public GetPublicAccessBlockResponse getPublicAccessBlock(GetPublicAccessBlockRequest request) {
+                    return GetPublicAccessBlockResponse.builder()
+                            .publicAccessBlockConfiguration(block -> block.blockPublicAcls(true)
+                                    .blockPublicPolicy(true).ignorePublicAcls(true).restrictPublicBuckets(true))
+                            .build();
+                }
+
+                @Override
+                public GetBucketVersioningResponse getBucketVersioning(GetBucketVersioningRequest request) {
+                    return GetBucketVersioningResponse.builder().status(BucketVersioningStatus.ENABLED).build();
+                }
+
+                @Override
+                public String serviceName() {
+                    return "s3";
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+
+        @Override
+        public S3AsyncClient s3Async(AwsAccount account) {
+            S3Client s3 = s3(account);
+            return new S3AsyncClient() {
+                @Override
+                public CompletableFuture<GetBucketLocationResponse> getBucketLocation(GetBucketLocationRequest request) {
+                    return async(() -> s3.getBucketLocation(request));
+                }
+
+                @Override
+                public CompletableFuture<GetBucketEncryptionResponse> getBucketEncryption(GetBucketEncryptionRequest request) {
+                    return async(() -> s3.getBucketEncryption(request));
+                }
+
+                @Override
+                public CompletableFuture<GetBucketPolicyStatusResponse> getBucketPolicyStatus(GetBucketPolicyStatusRequest request) {
+                    return async(() -> s3.getBucketPolicyStatus(request));
+                }
+
+                @Override
+                public CompletableFuture<GetPublicAccessBlockResponse> getPublicAccessBlock(GetPublicAccessBlockRequest request) {
+                    return async(() -> s3.getPublicAccessBlock(request));
+                }
+
+                @Override
+                public CompletableFuture<GetBucketVersioningResponse> getBucketVersioning(GetBucketVersioningRequest request) {
+                    return async(() -> s3.getBucketVersioning(request));
+                }
+
+                @Override
+                public String serviceName() {
+                    return "s3";
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+
+        private <T> CompletableFuture<T> async(Supplier<T> call) {
+            if (hang) {
+                CompletableFuture<T> request = new CompletableFuture<>();
+                sent.add(request);
+                return request;
+            }
+            return CompletableFuture.supplyAsync(call);
+        }
+    }
+}
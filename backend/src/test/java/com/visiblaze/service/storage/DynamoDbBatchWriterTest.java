@@ -0,0 +1,154 @@
+package com.visiblaze.service.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DynamoDbBatchWriterTest {
+
+    private static final String TABLE = "items";
+
+    private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+    private DynamoDbBatchWriter writer;
+
+    @AfterEach
+    void stopWriter() {
+        if (writer != null) {
+            writer.stop();
+        }
+    }
+
+    @Test
+    void splitsIntoBatchesOfTwentyFive() {
+        writer = writer(request -> BatchWriteItemResponse.builder().build(), 3);
+
+        BatchWriteResult result = writer.putAll(TABLE, items(60));
+
+        assertThat(result.getWritten()).isEqualTo(60);
+        assertThat(result.getFailed()).isZero();
+        assertThat(batchSizes).containsExactlyInAnyOrder(25, 25, 10);
+    }
+
+    @Test
+    void retriesUnprocessedItemsUntilAccepted() {
+        // Every batch is only half processed the first time it is sent
+        writer = writer(request -> {
+            List<WriteRequest> sent = request.requestItems().get(TABLE);
+            return sent.size() > 1 ? unprocessed(sent.subList(0, sent.size() / 2)) : BatchWriteItemResponse.builder().build();
+        }, 8);
+
+        BatchWriteResult result = writer.putAll(TABLE, items(25));
+
+        assertThat(result.getWritten()).isEqualTo(25);
+        assertThat(result.getFailed()).isZero();
+        assertThat(batchSizes).containsExactly(25, 12, 6, 3, 1);
+    }
+
+    @Test
+    void reportsItemsStillUnprocessedAfterTheLastRetry() {
+        List<Map<String, AttributeValue>> items = items(30);
+        writer = writer(request -> {
+            List<WriteRequest> sent = request.requestItems().get(TABLE);
+            // The first two items of each batch are never accepted
+            return unprocessed(sent.stream().filter(DynamoDbBatchWriterTest::stuck).toList());
+        }, 2);
+
+        BatchWriteResult result = writer.putAll(TABLE, items);
+
+        assertThat(result.getWritten()).isEqualTo(26);
+        assertThat(result.getFailed()).isEqualTo(4);
+        assertThat(result.getFailedItems()).containsExactlyInAnyOrder(
+                items.get(0), items.get(1), items.get(25), items.get(26));
+        // One attempt and two retries of the stuck items in each batch
+        assertThat(batchSizes).hasSize(6);
+    }
+
+    @Test
+    void countsABatchTheClientRejectsAsFailed() {
+        writer = writer(request -> {
+            throw new IllegalStateException("connection reset");
+        }, 3);
+
+        BatchWriteResult result = writer.deleteAll(TABLE, items(5));
+
+        assertThat(result.getWritten()).isZero();
+        assertThat(result.getFailedItems()).isEqualTo(items(5));
+    }
+
+    @Test
+    void missingTableIsThrown() {
+        writer = writer(request -> {
+            throw ResourceNotFoundException.builder().message("no table").build();
+        }, 3);
+
+        assertThatThrownBy(() -> writer.putAll(TABLE, items(30))).isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void nothingToWriteSendsNothing() {
+        writer = writer(request -> BatchWriteItemResponse.builder().build(), 3);
+
+        assertThat(writer.putAll(TABLE, List.of())).isEqualTo(BatchWriteResult.empty());
+        assertThat(batchSizes).isEmpty();
+    }
+
+    private DynamoDbBatchWriter writer(Function<BatchWriteItemRequest, BatchWriteItemResponse> responder,
+                                       int maxRetries) {
+        DynamoDbClient client = new DynamoDbClient() {
+            @Override
+            public BatchWriteItemResponse batchWriteItem(BatchWriteItemRequest request) {
+                batchSizes.add(request.requestItems().get(TABLE).size());
+                return responder.apply(request);
+            }
+
+            @Override
+            public String serviceName() {
+                return "dynamodb";
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        DynamoDbBatchWriter batchWriter = new DynamoDbBatchWriter(client);
+        ReflectionTestUtils.setField(batchWriter, "parallelism", 4);
+        ReflectionTestUtils.setField(batchWriter, "maxRetries", maxRetries);
+        ReflectionTestUtils.setField(batchWriter, "baseBackoffMs", 1L);
+        ReflectionTestUtils.setField(batchWriter, "maxBackoffMs", 2L);
+        batchWriter.start();
+        return batchWriter;
+    }
+
+    private static List<Map<String, AttributeValue>> items(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> Map.of("id", AttributeValue.builder().s("item-" + i).build()))
+                .toList();
+    }
+
+    private static boolean stuck(WriteRequest request) {
+        String id = request.putRequest().item().get("id").s();
+        return List.of("item-0", "item-1", "item-25", "item-26").contains(id);
+    }
+
+    private static BatchWriteItemResponse unprocessed(List<WriteRequest> requests) {
+        return BatchWriteItemResponse.builder()
+                .unprocessedItems(requests.isEmpty() ? Map.of() : Map.of(TABLE, requests))
+                .build();
+    }
+}
@@ -0,0 +1,93 @@
+package com.visiblaze.service.storage;
+
+import com.visiblaze.model.EC2InstanceInfo;
+import com.visiblaze.model.S3BucketInfo;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ItemFormatTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"attributes", "packed"})
+    void instanceRoundTrips(String itemFormat) {
+        DynamoDbStorageService storage = storage(itemFormat);
+        EC2InstanceInfo instance = EC2InstanceInfo.builder()
+                .instanceId("i-0123456789abcdef0")
+                .accountId("123456789012")
+                .instanceType("t3.micro")
+                .region("eu-west-1")
+                .publicIp("198.51.100.7")
+                .privateIp("10.0.0.7")
+                .state("running")
+                .securityGroups(List.of("sg-1", "sg-2"))
+                .availabilityZone("eu-west-1a")
+                .launchTime("2024-01-02T03:04:05Z")
+                .scanTimestamp(1700000000000L)
+                .scanId("scan-1")
+                .build();
+
+        Map<String, AttributeValue> item = storage.toItem(instance);
+
+        assertThat(item.containsKey(PackedAttributes.ATTRIBUTE)).isEqualTo("packed".equals(itemFormat));
+        assertThat(storage.toEC2InstanceInfo(item)).isEqualTo(instance);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"attributes", "packed"})
+    void bucketRoundTrips(String itemFormat) {
+        DynamoDbStorageService storage = storage(itemFormat);
+        S3BucketInfo bucket = S3BucketInfo.builder()
+                .bucketName("example-bucket")
+                .accountId("123456789012")
+                .region("us-east-1")
+                .encryptionEnabled(true)
+                .encryptionType("AES256")
+                .accessPolicy("PRIVATE")
+                .blockPublicAccess(true)
+                .versioningEnabled(false)
+                .creationDate("2023-05-06T07:08:09Z")
+                .scanTimestamp(1700000000000L)
+                .scanId("scan-1")
+                .build();
+
+        Map<String, AttributeValue> item = storage.toItem(bucket);
+
+        assertThat(item.containsKey(PackedAttributes.ATTRIBUTE)).isEqualTo("packed".equals(itemFormat));
+        assertThat(storage.toS3BucketInfo(item)).isEqualTo(bucket);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"attributes", "packed"})
+    void itemsWrittenInTheOtherFormatStayReadable(String itemFormat) {
+        String otherFormat = "packed".equals(itemFormat) ? "attributes" : "packed";
+        EC2InstanceInfo instance = EC2InstanceInfo.builder()
+                .instanceId("i-1")
+                .instanceType("m5.large")
+                .region("us-east-1")
+                .publicIp("N/A")
+                .privateIp("10.0.0.1")
+                .state("stopped")
+                .securityGroups(List.of())
+                .availabilityZone("us-east-1b")
+                .launchTime("N/A")
+                .build();
+
+        Map<String, AttributeValue> item = storage(otherFormat).toItem(instance);
+
+        assertThat(storage(itemFormat).toEC2InstanceInfo(item)).isEqualTo(instance);
+    }
+
+    private static DynamoDbStorageService storage(String itemFormat) {
+        // The mappers never touch DynamoDB, so no client is needed
+        DynamoDbStorageService storage = new DynamoDbStorageService(null, null, null);
+        ReflectionTestUtils.setField(storage, "itemFormat", itemFormat);
+        return storage;
+    }
+}
@@ -0,0 +1,94 @@
+package com.visiblaze.service.storage;
+
+import com.visiblaze.model.CISCheckResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LatestResultsTest {
+
+    private static final String TABLE = "metadata";
+
+    private final List<UpdateItemRequest> updates = new ArrayList<>();
+
+    @Test
+    void manyResultsAreSplitIntoBoundedUpdates() {
+        // 80 accounts with 5 checks each
+        List<CISCheckResult> results = IntStream.range(0, 400)
+                .mapToObj(i -> CISCheckResult.builder()
+                        .accountId(String.format("%012d", 100000000000L + i / 5))
+                        .checkId("CIS-" + (i % 5 + 1))
+                        .scanId("scan-2")
+                        .build())
+                .toList();
+
+        storage().markLatestResults(results);
+
+        assertThat(updates).hasSize(4);
+        Map<String, String> pointers = new HashMap<>();
+        for (UpdateItemRequest update : updates) {
+            assertThat(update.tableName()).isEqualTo(TABLE);
+            assertThat(update.updateExpression().length()).isLessThan(4096);
+            assertThat(update.expressionAttributeValues()).hasSizeLessThanOrEqualTo(100);
+            update.expressionAttributeValues().forEach((placeholder, scanId) ->
+                    pointers.put(update.expressionAttributeNames().get("#" + placeholder.substring(1)), scanId.s()));
+        }
+        assertThat(pointers).hasSize(400)
+                .containsEntry("100000000000#CIS-1", "scan-2")
+                .containsEntry("100000000079#CIS-5", "scan-2");
+    }
+
+    @Test
+    void fewResultsTakeOneUpdate() {
+        storage().markLatestResults(List.of(CISCheckResult.builder().checkId("CIS-1").scanId("scan-2").build()));
+
+        assertThat(updates).hasSize(1);
+        assertThat(updates.get(0).updateExpression()).isEqualTo("SET #checks.#c0 = :c0");
+        assertThat(updates.get(0).expressionAttributeNames()).containsEntry("#c0", "CIS-1");
+    }
+
+    private DynamoDbStorageService storage() {
+        DynamoDbClient client = new DynamoDbClient() {
+            @Override
+            public GetItemResponse getItem(GetItemRequest request) {
+                // The pointer item already exists, so it is not seeded
+                return GetItemResponse.builder()
+                        .item(Map.of("checks", AttributeValue.builder()
+                                .m(Map.of("CIS-1", AttributeValue.builder().s("scan-1").build()))
+                                .build()))
+                        .build();
+            }
+
+            @Override
+            public UpdateItemResponse updateItem(UpdateItemRequest request) {
+                updates.add(request);
+                return UpdateItemResponse.builder().build();
+            }
+
+            @Override
+            public String serviceName() {
+                return "dynamodb";
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        DynamoDbStorageService storage = new DynamoDbStorageService(client, null, null);
+        ReflectionTestUtils.setField(storage, "metadataTableName", TABLE);
+        return storage;
+    }
+}
@@ -0,0 +1,41 @@
+package com.visiblaze.service.storage;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PackedAttributesTest {
+
+    @Test
+    void smallPayloadRoundTripsAsPlainCbor() {
+        AttributeValue packed = PackedAttributes.pack("t3.micro", true, 1700000000000L, List.of("sg-1", "sg-2"), null);
+
+        assertThat(packed.b().asByteArray()[0]).isEqualTo((byte) 0);
+        assertThat(PackedAttributes.unpack(Map.of(PackedAttributes.ATTRIBUTE, packed)))
+                .containsExactly("t3.micro", true, 1700000000000L, List.of("sg-1", "sg-2"), null);
+    }
+
+    @Test
+    void largePayloadIsDeflatedAndRoundTrips() {
+        String[] groups = new String[64];
+        Arrays.fill(groups, "sg-0123456789abcdef0");
+        AttributeValue packed = PackedAttributes.pack("i-0123456789abcdef0", false, 42, List.of(groups));
+
+        assertThat(packed.b().asByteArray()[0]).isEqualTo((byte) 1);
+        assertThat(packed.b().asByteArray().length).isLessThan(64 * "sg-0123456789abcdef0".length());
+        assertThat(PackedAttributes.unpack(Map.of(PackedAttributes.ATTRIBUTE, packed)))
+                .containsExactly("i-0123456789abcdef0", false, 42L, List.of(groups));
+    }
+
+    @Test
+    void itemStoredAsPlainAttributesUnpacksToNothing() {
+        Map<String, AttributeValue> item = Map.of("instanceId", AttributeValue.builder().s("i-1").build());
+
+        assertThat(PackedAttributes.unpack(item)).isEmpty();
+    }
+}
@@ -0,0 +1,76 @@
+package com.visiblaze.service.storage;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PageCursorTest {
+
+    private static final Map<String, AttributeValue> KEY = Map.of(
+            "instanceId", AttributeValue.builder().s("i-0123456789abcdef0").build(),
+            "region", AttributeValue.builder().s("eu-west-1").build());
+
+    @Test
+    void keyRoundTrips() {
+        String cursor = PageCursor.encode(KEY);
+
+        assertThat(cursor).doesNotContain("=", "+", "/");
+        assertThat(PageCursor.decode(cursor, Set.of("instanceId", "region"), Map.of("region", "eu-west-1")))
+                .isEqualTo(KEY);
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        assertThat(PageCursor.encode(null)).isNull();
+        assertThat(PageCursor.encode(Map.of())).isNull();
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        String notJson = Base64.getUrlEncoder().encodeToString("not json".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> PageCursor.decode("%%%", Set.of("instanceId"), Map.of()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid cursor");
+        assertThatThrownBy(() -> PageCursor.decode(notJson, Set.of("instanceId"), Map.of()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid cursor");
+    }
+
+    @Test
+    void cursorFromAnotherListingIsRejected() {
+        String cursor = PageCursor.encode(KEY);
+
+        assertThatThrownBy(() -> PageCursor.decode(cursor, Set.of("instanceId"), Map.of()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cursor does not belong to this listing");
+        assertThatThrownBy(() -> PageCursor.decode(cursor, Set.of("instanceId", "state"), Map.of()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void cursorForAnotherIndexKeyIsRejected() {
+        String cursor = PageCursor.encode(KEY);
+
+        assertThatThrownBy(() -> PageCursor.decode(cursor, Set.of("instanceId", "region"),
+                Map.of("region", "us-east-1")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cursor does not belong to this listing");
+    }
+
+    @Test
+    void emptyKeyValueIsRejected() {
+        String cursor = PageCursor.encode(Map.of("instanceId", AttributeValue.builder().s("").build()));
+
+        assertThatThrownBy(() -> PageCursor.decode(cursor, Set.of("instanceId"), Map.of()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid cursor");
+    }
+}
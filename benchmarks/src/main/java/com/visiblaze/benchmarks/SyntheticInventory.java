@@ -0,0 +1,161 @@
+package com.visiblaze.benchmarks;
+
+import com.visiblaze.model.CISCheckResult;
+import com.visiblaze.model.EC2InstanceInfo;
+import com.visiblaze.model.S3BucketInfo;
+import software.amazon.awssdk.services.ec2.model.GroupIdentifier;
+import software.amazon.awssdk.services.ec2.model.Instance;
+import software.amazon.awssdk.services.ec2.model.InstanceStateName;
+import software.amazon.awssdk.services.ec2.model.InstanceType;
+import software.amazon.awssdk.services.ec2.model.IpPermission;
+import software.amazon.awssdk.services.ec2.model.IpRange;
+import software.amazon.awssdk.services.ec2.model.Ipv6Range;
+import software.amazon.awssdk.services.ec2.model.SecurityGroup;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic inventory for the benchmarks. The same seed always produces the
+ * same resources, so runs are comparable.
+ */
+public final class SyntheticInventory {
+
+    private static final long SEED = 42;
+    private static final InstanceType[] INSTANCE_TYPES = {
+            InstanceType.T3_MICRO, InstanceType.M5_LARGE, InstanceType.C5_XLARGE, InstanceType.R6_G_2_XLARGE};
+    private static final String[] STATUSES = {"PASS", "PASS", "PASS", "FAIL", "WARNING"};
+
+    private SyntheticInventory() {
+    }
+
+    public static List<Instance> instances(int count) {
+        Random random = new Random(SEED);
+        List<Instance> instances = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            instances.add(Instance.builder()
+                    .instanceId(String.format("i-%017x", i))
+                    .instanceType(INSTANCE_TYPES[random.nextInt(INSTANCE_TYPES.length)])
+                    .publicIpAddress(random.nextBoolean() ? ip(random, 54) : null)
+                    .privateIpAddress(ip(random, 10))
+                    .state(state -> state.name(random.nextInt(10) == 0
+                            ? InstanceStateName.STOPPED : InstanceStateName.RUNNING))
+                    .securityGroups(GroupIdentifier.builder().groupId(groupId(random.nextInt(1000))).build(),
+                            GroupIdentifier.builder().groupId(groupId(random.nextInt(1000))).build())
+                    .placement(placement -> placement.availabilityZone("us-east-1" + (char) ('a' + random.nextInt(6))))
+                    .launchTime(Instant.ofEpochSecond(1_700_000_000L + random.nextInt(10_000_000)))
+                    .build());
+        }
+        return instances;
+    }
+
+    public static List<EC2InstanceInfo> instanceInfos(int count) {
+        Random random = new Random(SEED);
+        List<EC2InstanceInfo> instances = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            instances.add(EC2InstanceInfo.builder()
+                    .instanceId(String.format("i-%017x", i))
+                    .accountId("123456789012")
+                    .instanceType(INSTANCE_TYPES[random.nextInt(INSTANCE_TYPES.length)].toString())
+                    .region("us-east-1")
+                    .publicIp(random.nextBoolean() ? ip(random, 54) : "N/A")
+                    .privateIp(ip(random, 10))
+                    .state("running")
+                    .securityGroups(List.of(groupId(random.nextInt(1000)), groupId(random.nextInt(1000))))
+                    .availabilityZone("us-east-1a")
+                    .launchTime(Instant.ofEpochSecond(1_700_000_000L + random.nextInt(10_000_000)).toString())
+                    .scanTimestamp(1_700_000_000_000L + i)
+                    .build());
+        }
+        return instances;
+    }
+
+    public static List<S3BucketInfo> buckets(int count) {
+        Random random = new Random(SEED);
+        List<S3BucketInfo> buckets = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            boolean encrypted = random.nextInt(4) != 0;
+            buckets.add(S3BucketInfo.builder()
+                    .bucketName("bucket-" + i)
+                    .accountId("123456789012")
+                    .region("us-east-1")
+                    .encryptionEnabled(encrypted)
+                    .encryptionType(encrypted ? "AES256" : "NONE")
+                    .accessPolicy(random.nextInt(20) == 0 ? "PUBLIC" : "PRIVATE")
+                    .blockPublicAccess(random.nextInt(5) != 0)
+                    .versioningEnabled(random.nextBoolean())
+                    .creationDate(Instant.ofEpochSecond(1_600_000_000L + random.nextInt(100_000_000)).toString())
+                    .scanTimestamp(1_700_000_000_000L + i)
+                    .build());
+        }
+        return buckets;
+    }
+
+    /**
+     * Security groups with three ingress rules each. About one group in a hundred opens SSH
+     * or RDP to the world, over IPv4 or IPv6, directly or through a port range.
+     */
+    public static List<SecurityGroup> securityGroups(int count) {
+        Random random = new Random(SEED);
+        List<SecurityGroup> groups = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            List<IpPermission> permissions = new ArrayList<>(3);
+            permissions.add(tcp(443, 443, IpRange.builder().cidrIp("0.0.0.0/0").build()));
+            permissions.add(tcp(22, 22, IpRange.builder().cidrIp("10." + random.nextInt(256) + ".0.0/16").build()));
+            if (random.nextInt(100) == 0) {
+                permissions.add(random.nextBoolean()
+                        ? tcp(3389, 3389, Ipv6Range.builder().cidrIpv6("::/0").build())
+                        : tcp(0, 65535, IpRange.builder().cidrIp("0.0.0.0/0").build()));
+            } else {
+                int port = 1024 + random.nextInt(60000);
+                permissions.add(tcp(port, port + random.nextInt(100),
+                        IpRange.builder().cidrIp("172.16." + random.nextInt(256) + ".0/24").build()));
+            }
+            groups.add(SecurityGroup.builder()
+                    .groupId(groupId(i))
+                    .groupName("group-" + i)
+                    .ipPermissions(permissions)
+                    .build());
+        }
+        return groups;
+    }
+
+    public static List<CISCheckResult> checkResults(int count) {
+        Random random = new Random(SEED);
+        List<CISCheckResult> results = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            results.add(CISCheckResult.builder()
+                    .checkId("CIS-" + (i % 50))
+                    .checkName("Synthetic check " + (i % 50))
+                    .description("Synthetic check for benchmarking")
+                    .status(STATUSES[random.nextInt(STATUSES.length)])
+                    .evidence("Evidence for resource " + i)
+                    .recommendation("N/A")
+                    .severity("HIGH")
+                    .scanTimestamp(1_700_000_000_000L + i)
+                    .scanId("00000000-0000-0000-0000-000000000000")
+                    .accountId(String.format("%012d", i % 20))
+                    .durationMs((long) random.nextInt(1000))
+                    .build());
+        }
+        return results;
+    }
+
+    private static IpPermission tcp(int fromPort, int toPort, IpRange range) {
+        return IpPermission.builder().ipProtocol("tcp").fromPort(fromPort).toPort(toPort).ipRanges(range).build();
+    }
+
+    private static IpPermission tcp(int fromPort, int toPort, Ipv6Range range) {
+        return IpPermission.builder().ipProtocol("tcp").fromPort(fromPort).toPort(toPort).ipv6Ranges(range).build();
+    }
+
+    private static String groupId(int index) {
+        return String.format("sg-%017x", index);
+    }
+
+    private static String ip(Random random, int firstOctet) {
+        return firstOctet + "." + random.nextInt(256) + "." + random.nextInt(256) + "." + random.nextInt(256);
+    }
+}
@@ -0,0 +1,66 @@
+package com.visiblaze.service;
+
+import com.visiblaze.benchmarks.SyntheticInventory;
+import com.visiblaze.model.CISCheckResult;
+import com.visiblaze.model.DashboardSummary;
+import com.visiblaze.service.storage.DynamoDbStorageService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aggregating CIS results into the dashboard summary at the end of a scan. Table counts
+ * and the summary write are stubbed out, so only the aggregation itself is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class DashboardAggregationBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int resources;
+
+    private DashboardService dashboardService;
+    private List<CISCheckResult> checkResults;
+
+    @Setup
+    public void setUp() {
+        long inventorySize = resources;
+        DynamoDbStorageService storage = new DynamoDbStorageService(null, null, null) {
+            @Override
+            public long countEC2Instances() {
+                return inventorySize;
+            }
+
+            @Override
+            public long countS3Buckets() {
+                return inventorySize;
+            }
+
+            @Override
+            public void storeDashboardSummary(DashboardSummary summary) {
+            }
+        };
+        dashboardService = new DashboardService(storage);
+        checkResults = SyntheticInventory.checkResults(resources);
+    }
+
+    @Benchmark
+    public DashboardSummary refreshSummary() {
+        return dashboardService.refresh("benchmark", checkResults);
+    }
+}
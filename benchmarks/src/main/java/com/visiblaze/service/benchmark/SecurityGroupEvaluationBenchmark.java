@@ -0,0 +1,63 @@
+package com.visiblaze.service.benchmark;
+
+import com.visiblaze.benchmarks.SyntheticInventory;
+import com.visiblaze.model.AwsAccount;
+import com.visiblaze.model.CISCheckResult;
+import com.visiblaze.model.InventorySnapshot;
+import com.visiblaze.service.benchmark.checks.SecurityGroupsRestrictedCheck;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.services.ec2.model.SecurityGroup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CIS 5.2 evaluation over a security group inventory, as run by the check engine, and the
+ * exposure index it builds on its own.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class SecurityGroupEvaluationBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int resources;
+
+    private final SecurityGroupsRestrictedCheck check = new SecurityGroupsRestrictedCheck();
+    private List<SecurityGroup> securityGroups;
+    private InventorySnapshot snapshot;
+
+    @Setup
+    public void setUp() {
+        securityGroups = SyntheticInventory.securityGroups(resources);
+        snapshot = InventorySnapshot.builder()
+                .scanId("benchmark")
+                .account(AwsAccount.SELF)
+                .collectedAt(System.currentTimeMillis())
+                .securityGroups(securityGroups)
+                .build();
+    }
+
+    @Benchmark
+    public CISCheckResult securityGroupsRestrictedCheck() {
+        return check.run(snapshot);
+    }
+
+    @Benchmark
+    public SecurityGroupExposureIndex buildExposureIndex() {
+        return SecurityGroupExposureIndex.build(securityGroups);
+    }
+}
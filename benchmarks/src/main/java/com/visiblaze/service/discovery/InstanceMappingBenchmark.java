@@ -0,0 +1,54 @@
+package com.visiblaze.service.discovery;
+
+import com.visiblaze.benchmarks.SyntheticInventory;
+import com.visiblaze.model.AwsAccount;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.ec2.model.Instance;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping DescribeInstances results to {@code EC2InstanceInfo}, as done for every page
+ * during EC2 discovery.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class InstanceMappingBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int resources;
+
+    private EC2DiscoveryService discoveryService;
+    private List<Instance> instances;
+
+    @Setup
+    public void setUp() {
+        // buildInstanceInfo does not touch AWS, so no clients are needed
+        discoveryService = new EC2DiscoveryService(null, null);
+        instances = SyntheticInventory.instances(resources);
+    }
+
+    @Benchmark
+    public void buildInstanceInfo(Blackhole blackhole) {
+        for (Instance instance : instances) {
+            blackhole.consume(discoveryService.buildInstanceInfo(instance, AwsAccount.SELF, Region.US_EAST_1));
+        }
+    }
+}
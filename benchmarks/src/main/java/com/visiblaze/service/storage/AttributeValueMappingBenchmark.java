@@ -0,0 +1,109 @@
+package com.visiblaze.service.storage;
+
+import com.visiblaze.benchmarks.SyntheticInventory;
+import com.visiblaze.model.CISCheckResult;
+import com.visiblaze.model.EC2InstanceInfo;
+import com.visiblaze.model.S3BucketInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Marshalling inventory and CIS results to DynamoDB items, and unmarshalling them again as
+ * the read endpoints do, in both item formats.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class AttributeValueMappingBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int resources;
+
+    @Param({"attributes", "packed"})
+    private String itemFormat;
+
+    private DynamoDbStorageService storageService;
+    private List<EC2InstanceInfo> instances;
+    private List<S3BucketInfo> buckets;
+    private List<CISCheckResult> checkResults;
+    private List<Map<String, AttributeValue>> instanceItems;
+    private List<Map<String, AttributeValue>> bucketItems;
+    private List<Map<String, AttributeValue>> checkResultItems;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        // The mappers never touch DynamoDB, so no client is needed
+        storageService = new DynamoDbStorageService(null, null, null);
+        Field format = DynamoDbStorageService.class.getDeclaredField("itemFormat");
+        format.setAccessible(true);
+        format.set(storageService, itemFormat);
+        instances = SyntheticInventory.instanceInfos(resources);
+        buckets = SyntheticInventory.buckets(resources);
+        checkResults = SyntheticInventory.checkResults(resources);
+        instanceItems = instances.stream().map(storageService::toItem).collect(Collectors.toList());
+        bucketItems = buckets.stream().map(storageService::toItem).collect(Collectors.toList());
+        checkResultItems = checkResults.stream().map(storageService::toItem).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public void marshalInstances(Blackhole blackhole) {
+        for (EC2InstanceInfo instance : instances) {
+            blackhole.consume(storageService.toItem(instance));
+        }
+    }
+
+    @Benchmark
+    public void unmarshalInstances(Blackhole blackhole) {
+        for (Map<String, AttributeValue> item : instanceItems) {
+            blackhole.consume(storageService.toEC2InstanceInfo(item));
+        }
+    }
+
+    @Benchmark
+    public void marshalBuckets(Blackhole blackhole) {
+        for (S3BucketInfo bucket : buckets) {
+            blackhole.consume(storageService.toItem(bucket));
+        }
+    }
+
+    @Benchmark
+    public void unmarshalBuckets(Blackhole blackhole) {
+        for (Map<String, AttributeValue> item : bucketItems) {
+            blackhole.consume(storageService.toS3BucketInfo(item));
+        }
+    }
+
+    @Benchmark
+    public void marshalCheckResults(Blackhole blackhole) {
+        for (CISCheckResult result : checkResults) {
+            blackhole.consume(storageService.toItem(result));
+        }
+    }
+
+    @Benchmark
+    public void unmarshalCheckResults(Blackhole blackhole) {
+        for (Map<String, AttributeValue> item : checkResultItems) {
+            blackhole.consume(storageService.toCISCheckResult(item));
+        }
+    }
+}
@@ -6,8 +6,7 @@ import S3BucketsTable from './components/S3BucketsTable';
 import CISResultsTable from './components/CISResultsTable';
 import {
     triggerScan,
-    getEC2Instances,
-    getS3Buckets,
+    waitForScan,
     getCISResults,
     getDashboardSummary,
 } from './services/api';
@@ -16,9 +15,10 @@ import './index.css';
 function App() {
     const [loading, setLoading] = useState(true);
     const [scanning, setScanning] = useState(false);
+    const [scanProgress, setScanProgress] = useState(null);
     const [summary, setSummary] = useState(null);
-    const [ec2Instances, setEc2Instances] = useState([]);
-    const [s3Buckets, setS3Buckets] = useState([]);
+    // Bumped on every reload so the inventory tables fetch their first page again
+    const [inventoryVersion, setInventoryVersion] = useState(0);
     const [cisResults, setCisResults] = useState([]);
     const [error, setError] = useState(null);
 
@@ -27,17 +27,14 @@ function App() {
             setLoading(true);
             setError(null);
 
-            const [summaryData, instancesData, bucketsData, resultsData] = await Promise.all([
+            const [summaryData, resultsData] = await Promise.all([
                 getDashboardSummary(),
-                getEC2Instances(),
-                getS3Buckets(),
                 getCISResults(),
             ]);
 
             setSummary(summaryData);
-            setEc2Instances(instancesData);
-            setS3Buckets(bucketsData);
             setCisResults(resultsData);
+            setInventoryVersion((version) => version + 1);
         } catch (err) {
             console.error('Error loading dashboard data:', err);
             setError('Failed to load dashboard data. Please ensure the backend is running.');
@@ -51,9 +48,14 @@ function App() {
             setScanning(true);
             setError(null);
 
-            const scanResponse = await triggerScan();
+            const submitted = await triggerScan();
+            const scanResponse = await waitForScan(submitted.scanId, setScanProgress);
             console.log('Scan completed:', scanResponse);
 
+            if (scanResponse.status === 'FAILED') {
+                throw new Error((scanResponse.errors || []).join(', '));
+            }
+
             // Show success message
             alert(`Scan completed successfully!\n\nEC2 Instances: ${scanResponse.ec2InstancesFound}\nS3 Buckets: ${scanResponse.s3BucketsFound}\nChecks Passed: ${scanResponse.checksPassed}/${scanResponse.checksPerformed}`);
 
@@ -65,6 +67,7 @@ function App() {
             alert('Scan failed! Please check the console for details.');
         } finally {
             setScanning(false);
+            setScanProgress(null);
         }
     };
 
@@ -75,7 +78,7 @@ function App() {
     if (loading) {
         return (
             <>
-                <Header onScan={handleScan} isScanning={scanning} />
+                <Header onScan={handleScan} isScanning={scanning} progress={scanProgress} />
                 <div className="loading-container">
                     <div className="loading-spinner"></div>
                     <h3>Loading Dashboard...</h3>
@@ -87,7 +90,7 @@ function App() {
 
     return (
         <>
-            <Header onScan={handleScan} isScanning={scanning} />
+            <Header onScan={handleScan} isScanning={scanning} progress={scanProgress} />
 
             <div className="container">
                 {error && (
@@ -120,7 +123,7 @@ function App() {
                         <h2>EC2 Instances</h2>
                     </div>
                     <div className="card">
-                        <EC2InstancesTable instances={ec2Instances} />
+                        <EC2InstancesTable refreshKey={inventoryVersion} />
                     </div>
                 </section>
 
@@ -129,7 +132,7 @@ function App() {
                         <h2>S3 Buckets</h2>
                     </div>
                     <div className="card">
-                        <S3BucketsTable buckets={s3Buckets} />
+                        <S3BucketsTable refreshKey={inventoryVersion} />
                     </div>
                 </section>
 
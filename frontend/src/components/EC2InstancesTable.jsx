@@ -1,7 +1,71 @@
-import React from 'react';
+import React, { useState, useEffect } from 'react';
+import { getEC2InstancePage } from '../services/api';
 
-const EC2InstancesTable = ({ instances }) => {
-    if (!instances || instances.length === 0) {
+const PAGE_SIZE = 50;
+const NO_FILTERS = { state: '', region: '', publicIp: '' };
+
+// Filtering and paging happen on the server, one page of PAGE_SIZE rows at a time.
+const EC2InstancesTable = ({ refreshKey }) => {
+    const [filters, setFilters] = useState(NO_FILTERS);
+    const [regionInput, setRegionInput] = useState('');
+    const [instances, setInstances] = useState([]);
+    const [nextCursor, setNextCursor] = useState(null);
+    const [loading, setLoading] = useState(false);
+
+    const loadPage = async (cursor) => {
+        try {
+            setLoading(true);
+            const page = await getEC2InstancePage({ ...filters, limit: PAGE_SIZE, cursor });
+            setInstances((current) => (cursor ? [...current, ...page.items] : page.items));
+            setNextCursor(page.nextCursor);
+        } catch (err) {
+            console.error('Error loading EC2 instances:', err);
+        } finally {
+            setLoading(false);
+        }
+    };
+
+    useEffect(() => {
+        loadPage(null);
+    }, [filters, refreshKey]);
+
+    const setFilter = (name, value) => setFilters((current) => ({ ...current, [name]: value }));
+    const filtered = Object.values(filters).some((value) => value !== '');
+
+    const filterBar = (
+        <div className="filter-bar">
+            <label>
+                State
+                <select value={filters.state} onChange={(e) => setFilter('state', e.target.value)}>
+                    <option value="">Any</option>
+                    <option value="running">Running</option>
+                    <option value="stopped">Stopped</option>
+                    <option value="pending">Pending</option>
+                    <option value="terminated">Terminated</option>
+                </select>
+            </label>
+            <label>
+                Region
+                <input
+                    placeholder="e.g. us-east-1"
+                    value={regionInput}
+                    onChange={(e) => setRegionInput(e.target.value)}
+                    onBlur={() => setFilter('region', regionInput.trim())}
+                    onKeyDown={(e) => e.key === 'Enter' && setFilter('region', regionInput.trim())}
+                />
+            </label>
+            <label>
+                Public IP
+                <select value={filters.publicIp} onChange={(e) => setFilter('publicIp', e.target.value)}>
+                    <option value="">Any</option>
+                    <option value="true">Has public IP</option>
+                    <option value="false">No public IP</option>
+                </select>
+            </label>
+        </div>
+    );
+
+    if (!filtered && !loading && instances.length === 0) {
         return (
             <div className="empty-state">
                 <div className="empty-state-icon">💻</div>
@@ -12,59 +76,72 @@ const EC2InstancesTable = ({ instances }) => {
     }
 
     return (
-        <div className="table-container">
-            <table>
-                <thead>
-                    <tr>
-                        <th>Instance ID</th>
-                        <th>Type</th>
-                        <th>Region</th>
-                        <th>Public IP</th>
-                        <th>State</th>
-                        <th>Security Groups</th>
-                    </tr>
-                </thead>
-                <tbody>
-                    {instances.map((instance) => (
-                        <tr key={instance.instanceId}>
-                            <td>
-                                <code style={{ color: 'var(--accent-primary)' }}>
-                                    {instance.instanceId}
-                                </code>
-                            </td>
-                            <td>{instance.instanceType}</td>
-                            <td>
-                                <span className="badge badge-info">{instance.region}</span>
-                            </td>
-                            <td>
-                                {instance.publicIp !== 'N/A' ? (
-                                    <code>{instance.publicIp}</code>
-                                ) : (
-                                    <span className="text-muted">No public IP</span>
-                                )}
-                            </td>
-                            <td>
-                                <span className={`badge ${instance.state === 'RUNNING' ? 'badge-success' :
-                                        instance.state === 'STOPPED' ? 'badge-warning' :
-                                            'badge-error'
-                                    }`}>
-                                    {instance.state}
-                                </span>
-                            </td>
-                            <td>
-                                <div style={{ display: 'flex', flexWrap: 'wrap', gap: '0.5rem' }}>
-                                    {instance.securityGroups.map((sg, index) => (
-                                        <code key={index} style={{ fontSize: '0.75rem', color: 'var(--text-secondary)' }}>
-                                            {sg}
-                                        </code>
-                                    ))}
-                                </div>
-                            </td>
+        <>
+            {filterBar}
+            <div className="table-container">
+                <table>
+                    <thead>
+                        <tr>
+                            <th>Instance ID</th>
+                            <th>Type</th>
+                            <th>Region</th>
+                            <th>Public IP</th>
+                            <th>State</th>
+                            <th>Security Groups</th>
                         </tr>
-                    ))}
-                </tbody>
-            </table>
-        </div>
+                    </thead>
+                    <tbody>
+                        {instances.map((instance) => (
+                            <tr key={instance.instanceId}>
+                                <td>
+                                    <code style={{ color: 'var(--accent-primary)' }}>
+                                        {instance.instanceId}
+                                    </code>
+                                </td>
+                                <td>{instance.instanceType}</td>
+                                <td>
+                                    <span className="badge badge-info">{instance.region}</span>
+                                </td>
+                                <td>
+                                    {instance.publicIp !== 'N/A' ? (
+                                        <code>{instance.publicIp}</code>
+                                    ) : (
+                                        <span className="text-muted">No public IP</span>
+                                    )}
+                                </td>
+                                <td>
+                                    <span className={`badge ${instance.state === 'running' ? 'badge-success' :
+                                            instance.state === 'stopped' ? 'badge-warning' :
+                                                'badge-error'
+                                        }`}>
+                                        {instance.state}
+                                    </span>
+                                </td>
+                                <td>
+                                    <div style={{ display: 'flex', flexWrap: 'wrap', gap: '0.5rem' }}>
+                                        {instance.securityGroups.map((sg, index) => (
+                                            <code key={index} style={{ fontSize: '0.75rem', color: 'var(--text-secondary)' }}>
+                                                {sg}
+                                            </code>
+                                        ))}
+                                    </div>
+                                </td>
+                            </tr>
+                        ))}
+                    </tbody>
+                </table>
+            </div>
+            {filtered && !loading && instances.length === 0 && (
+                <p className="text-muted text-center mt-1">No instances match these filters</p>
+            )}
+            {nextCursor && (
+                <div className="load-more">
+                    <button className="btn btn-primary" onClick={() => loadPage(nextCursor)} disabled={loading}>
+                        {loading ? 'Loading...' : 'Load more'}
+                    </button>
+                </div>
+            )}
+        </>
     );
 };
 
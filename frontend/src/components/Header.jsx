@@ -1,6 +1,8 @@
 import React from 'react';
 
-const Header = ({ onScan, isScanning }) => {
+const formatPhase = (phase) => phase.toLowerCase().replace(/_/g, ' ');
+
+const Header = ({ onScan, isScanning, progress }) => {
     return (
         <header className="header">
             <div className="header-content">
@@ -16,7 +18,9 @@ const Header = ({ onScan, isScanning }) => {
                     {isScanning ? (
                         <>
                             <span className="spinner"></span>
-                            Scanning...
+                            {progress && progress.phase && progress.phase !== 'QUEUED'
+                                ? `Scanning (${formatPhase(progress.phase)})...`
+                                : 'Scanning...'}
                         </>
                     ) : (
                         <>
@@ -1,7 +1,69 @@
-import React from 'react';
+import React, { useState, useEffect } from 'react';
+import { getS3BucketPage } from '../services/api';
 
-const S3BucketsTable = ({ buckets }) => {
-    if (!buckets || buckets.length === 0) {
+const PAGE_SIZE = 50;
+const NO_FILTERS = { region: '', encrypted: '', accessPolicy: '' };
+
+// Filtering and paging happen on the server, one page of PAGE_SIZE rows at a time.
+const S3BucketsTable = ({ refreshKey }) => {
+    const [filters, setFilters] = useState(NO_FILTERS);
+    const [regionInput, setRegionInput] = useState('');
+    const [buckets, setBuckets] = useState([]);
+    const [nextCursor, setNextCursor] = useState(null);
+    const [loading, setLoading] = useState(false);
+
+    const loadPage = async (cursor) => {
+        try {
+            setLoading(true);
+            const page = await getS3BucketPage({ ...filters, limit: PAGE_SIZE, cursor });
+            setBuckets((current) => (cursor ? [...current, ...page.items] : page.items));
+            setNextCursor(page.nextCursor);
+        } catch (err) {
+            console.error('Error loading S3 buckets:', err);
+        } finally {
+            setLoading(false);
+        }
+    };
+
+    useEffect(() => {
+        loadPage(null);
+    }, [filters, refreshKey]);
+
+    const setFilter = (name, value) => setFilters((current) => ({ ...current, [name]: value }));
+    const filtered = Object.values(filters).some((value) => value !== '');
+
+    const filterBar = (
+        <div className="filter-bar">
+            <label>
+                Region
+                <input
+                    placeholder="e.g. us-east-1"
+                    value={regionInput}
+                    onChange={(e) => setRegionInput(e.target.value)}
+                    onBlur={() => setFilter('region', regionInput.trim())}
+                    onKeyDown={(e) => e.key === 'Enter' && setFilter('region', regionInput.trim())}
+                />
+            </label>
+            <label>
+                Encryption
+                <select value={filters.encrypted} onChange={(e) => setFilter('encrypted', e.target.value)}>
+                    <option value="">Any</option>
+                    <option value="true">Enabled</option>
+                    <option value="false">Disabled</option>
+                </select>
+            </label>
+            <label>
+                Access Policy
+                <select value={filters.accessPolicy} onChange={(e) => setFilter('accessPolicy', e.target.value)}>
+                    <option value="">Any</option>
+                    <option value="PUBLIC">Public</option>
+                    <option value="PRIVATE">Private</option>
+                </select>
+            </label>
+        </div>
+    );
+
+    if (!filtered && !loading && buckets.length === 0) {
         return (
             <div className="empty-state">
                 <div className="empty-state-icon">🪣</div>
@@ -12,65 +74,78 @@ const S3BucketsTable = ({ buckets }) => {
     }
 
     return (
-        <div className="table-container">
-            <table>
-                <thead>
-                    <tr>
-                        <th>Bucket Name</th>
-                        <th>Region</th>
-                        <th>Encryption</th>
-                        <th>Access Policy</th>
-                        <th>Public Access Block</th>
-                        <th>Versioning</th>
-                    </tr>
-                </thead>
-                <tbody>
-                    {buckets.map((bucket) => (
-                        <tr key={bucket.bucketName}>
-                            <td>
-                                <code style={{ color: 'var(--accent-primary)' }}>
-                                    {bucket.bucketName}
-                                </code>
-                            </td>
-                            <td>
-                                <span className="badge badge-info">{bucket.region}</span>
-                            </td>
-                            <td>
-                                <div style={{ display: 'flex', alignItems: 'center', gap: '0.5rem' }}>
-                                    <span className={`badge ${bucket.encryptionEnabled ? 'badge-success' : 'badge-error'
+        <>
+            {filterBar}
+            <div className="table-container">
+                <table>
+                    <thead>
+                        <tr>
+                            <th>Bucket Name</th>
+                            <th>Region</th>
+                            <th>Encryption</th>
+                            <th>Access Policy</th>
+                            <th>Public Access Block</th>
+                            <th>Versioning</th>
+                        </tr>
+                    </thead>
+                    <tbody>
+                        {buckets.map((bucket) => (
+                            <tr key={bucket.bucketName}>
+                                <td>
+                                    <code style={{ color: 'var(--accent-primary)' }}>
+                                        {bucket.bucketName}
+                                    </code>
+                                </td>
+                                <td>
+                                    <span className="badge badge-info">{bucket.region}</span>
+                                </td>
+                                <td>
+                                    <div style={{ display: 'flex', alignItems: 'center', gap: '0.5rem' }}>
+                                        <span className={`badge ${bucket.encryptionEnabled ? 'badge-success' : 'badge-error'
+                                            }`}>
+                                            {bucket.encryptionEnabled ? '✓ Enabled' : '✗ Disabled'}
+                                        </span>
+                                        {bucket.encryptionEnabled && (
+                                            <code style={{ fontSize: '0.75rem', color: 'var(--text-muted)' }}>
+                                                {bucket.encryptionType}
+                                            </code>
+                                        )}
+                                    </div>
+                                </td>
+                                <td>
+                                    <span className={`badge ${bucket.accessPolicy === 'PRIVATE' ? 'badge-success' : 'badge-error'
                                         }`}>
-                                        {bucket.encryptionEnabled ? '✓ Enabled' : '✗ Disabled'}
+                                        {bucket.accessPolicy}
                                     </span>
-                                    {bucket.encryptionEnabled && (
-                                        <code style={{ fontSize: '0.75rem', color: 'var(--text-muted)' }}>
-                                            {bucket.encryptionType}
-                                        </code>
-                                    )}
-                                </div>
-                            </td>
-                            <td>
-                                <span className={`badge ${bucket.accessPolicy === 'PRIVATE' ? 'badge-success' : 'badge-error'
-                                    }`}>
-                                    {bucket.accessPolicy}
-                                </span>
-                            </td>
-                            <td>
-                                <span className={`badge ${bucket.blockPublicAccess ? 'badge-success' : 'badge-error'
-                                    }`}>
-                                    {bucket.blockPublicAccess ? '✓ Enabled' : '✗ Disabled'}
-                                </span>
-                            </td>
-                            <td>
-                                <span className={`badge ${bucket.versioningEnabled ? 'badge-success' : 'badge-warning'
-                                    }`}>
-                                    {bucket.versioningEnabled ? '✓ Enabled' : '✗ Disabled'}
-                                </span>
-                            </td>
-                        </tr>
-                    ))}
-                </tbody>
-            </table>
-        </div>
+                                </td>
+                                <td>
+                                    <span className={`badge ${bucket.blockPublicAccess ? 'badge-success' : 'badge-error'
+                                        }`}>
+                                        {bucket.blockPublicAccess ? '✓ Enabled' : '✗ Disabled'}
+                                    </span>
+                                </td>
+                                <td>
+                                    <span className={`badge ${bucket.versioningEnabled ? 'badge-success' : 'badge-warning'
+                                        }`}>
+                                        {bucket.versioningEnabled ? '✓ Enabled' : '✗ Disabled'}
+                                    </span>
+                                </td>
+                            </tr>
+                        ))}
+                    </tbody>
+                </table>
+            </div>
+            {filtered && !loading && buckets.length === 0 && (
+                <p className="text-muted text-center mt-1">No buckets match these filters</p>
+            )}
+            {nextCursor && (
+                <div className="load-more">
+                    <button className="btn btn-primary" onClick={() => loadPage(nextCursor)} disabled={loading}>
+                        {loading ? 'Loading...' : 'Load more'}
+                    </button>
+                </div>
+            )}
+        </>
     );
 };
 
@@ -14,13 +14,41 @@ export const triggerScan = async () => {
     return response.data;
 };
 
-export const getEC2Instances = async () => {
-    const response = await api.get('/instances');
+export const getScanStatus = async (scanId) => {
+    const response = await api.get(`/scan/${scanId}`);
     return response.data;
 };
 
-export const getS3Buckets = async () => {
-    const response = await api.get('/buckets');
+const SCAN_POLL_INTERVAL_MS = 2000;
+const RUNNING_SCAN_STATUSES = ['QUEUED', 'IN_PROGRESS'];
+
+// Polls a submitted scan until it finishes, reporting live progress along the way.
+export const waitForScan = async (scanId, onProgress) => {
+    for (;;) {
+        const status = await getScanStatus(scanId);
+        if (onProgress) {
+            onProgress(status);
+        }
+        if (!RUNNING_SCAN_STATUSES.includes(status.status)) {
+            return status;
+        }
+        await new Promise((resolve) => setTimeout(resolve, SCAN_POLL_INTERVAL_MS));
+    }
+};
+
+// Empty filters are left out of the query string rather than sent as ""
+const pageParams = (params) =>
+    Object.fromEntries(Object.entries(params).filter(([, value]) => value !== '' && value != null));
+
+// One page of instances: { items, nextCursor }. Pass nextCursor back as cursor for the next page.
+export const getEC2InstancePage = async (params) => {
+    const response = await api.get('/instances', { params: pageParams(params) });
+    return response.data;
+};
+
+// One page of buckets: { items, nextCursor }.
+export const getS3BucketPage = async (params) => {
+    const response = await api.get('/buckets', { params: pageParams(params) });
     return response.data;
 };
 